@@ -1,7 +1,10 @@
 drop table if exists item CASCADE;
+drop sequence if exists item_seq;
+-- increment by는 Item의 increment_size(50)와 같아야 한다. (JPA는 값 하나로 50개 id를 쓴다)
+create sequence item_seq start with 1 increment by 50;
 create table item
 (
-    id        bigint generated by default as identity,
+    id        bigint default next value for item_seq,
     item_name varchar(10),
     price     integer,
     quantity  integer,
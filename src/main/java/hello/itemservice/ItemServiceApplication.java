@@ -1,8 +1,33 @@
 package hello.itemservice;
 
+import hello.itemservice.bulk.ItemBatchWriter;
+import hello.itemservice.config.AutocompleteConfig;
+import hello.itemservice.config.BulkConfig;
+import hello.itemservice.config.ChangeFeedConfig;
+import hello.itemservice.config.CoalescingConfig;
+import hello.itemservice.config.ConcurrencyLimitConfig;
+import hello.itemservice.config.ConnectionConfig;
+import hello.itemservice.config.EmbeddedDatabaseConfig;
+import hello.itemservice.config.FindByIdBatchingConfig;
+import hello.itemservice.config.FragmentCacheConfig;
+import hello.itemservice.config.JdbcListenerConfig;
+import hello.itemservice.config.JdbcTemplateV1Config;
+import hello.itemservice.config.JdbcTemplateV2Config;
+import hello.itemservice.config.JdbcTemplateV3Config;
+import hello.itemservice.config.JpaConfig;
+import hello.itemservice.config.MemoryConfig;
+import hello.itemservice.config.MyBatisConfig;
+import hello.itemservice.config.ProjectionConfig;
+import hello.itemservice.config.QueryDslConfig;
+import hello.itemservice.config.SearchConfig;
+import hello.itemservice.config.SpringDataJpaConfig;
+import hello.itemservice.config.StaticResourceConfig;
+import hello.itemservice.config.StatsConfig;
+import hello.itemservice.config.TraceConfig;
 import hello.itemservice.config.V2Config;
 import hello.itemservice.repository.ItemRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -10,19 +35,41 @@ import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 
 @Slf4j
-//@Import(MemoryConfig.class)
-//@Import(JdbcTemplateV1Config.class)
-//@Import(JdbcTemplateV2Config.class)
-//@Import(JdbcTemplateV3Config.class)
-
-//@Import(MyBatisConfig.class)
-//명시적으로 매퍼 인터페이스의 스캔 범위를 지정. 자동 등록이 안될 경우.
-//@MapperScan("hello.itemservice.repository.mybatis")
-
-//@Import(JpaConfig.class)
-//@Import(SpringDataJpaConfig.class)
-//@Import(QueryDslConfig.class)
-@Import(V2Config.class)
+/*
+ * 예전에는 아래 @Import 중 하나만 남기고 나머지는 주석 처리하는 방식으로 구현체를 바꿨다.
+ * 지금은 전부 Import 해두고, 각 설정 클래스의 @ConditionalOnProperty로 item.repository 값에 맞는 것 하나만 등록된다.
+ * (memory, jdbc-v1, jdbc-v2, jdbc-v3, mybatis, jpa, spring-data-jpa, querydsl, v2 / 기본값 v2)
+ * 쓰지 않는 JPA, MyBatis 자동 구성은 RepositoryModeEnvironmentPostProcessor가 제외한다.
+ *
+ * MyBatis 매퍼 인터페이스 자동 등록이 안될 경우 명시적으로 스캔 범위를 지정.
+ * @MapperScan("hello.itemservice.repository.mybatis")
+ */
+@Import({
+        MemoryConfig.class,
+        JdbcTemplateV1Config.class,
+        JdbcTemplateV2Config.class,
+        JdbcTemplateV3Config.class,
+        MyBatisConfig.class,
+        JpaConfig.class,
+        SpringDataJpaConfig.class,
+        QueryDslConfig.class,
+        V2Config.class,
+        BulkConfig.class,
+        StatsConfig.class,
+        JdbcListenerConfig.class,
+        TraceConfig.class,
+        AutocompleteConfig.class,
+        SearchConfig.class,
+        ChangeFeedConfig.class,
+        ProjectionConfig.class,
+        CoalescingConfig.class,
+        FindByIdBatchingConfig.class,
+        ConcurrencyLimitConfig.class,
+        StaticResourceConfig.class,
+        FragmentCacheConfig.class,
+        EmbeddedDatabaseConfig.class,
+        ConnectionConfig.class
+})
 @SpringBootApplication(scanBasePackages = "hello.itemservice.web") //컨트롤러만 자동 등록, 나머지는 수동 등록
 public class ItemServiceApplication {
 
@@ -37,6 +84,24 @@ public class ItemServiceApplication {
         return new TestDataInit(itemRepository);
     }
 
+    /**
+     * 대량 테스트 데이터. --spring.profiles.active=local,generate --item.generator.count=1000000
+     */
+    @Bean
+    @Profile("generate")
+    public SyntheticDataInit syntheticDataInit(ItemBatchWriter itemBatchWriter,
+                                               @Value("${item.generator.count:100000}") long count,
+                                               @Value("${item.generator.seed:42}") long seed,
+                                               @Value("${item.generator.batch-size:1000}") int batchSize,
+                                               @Value("${item.generator.threads:4}") int threads) {
+        return new SyntheticDataInit(itemBatchWriter, count, seed, batchSize, threads);
+    }
+
+    @Bean
+    public StartupReporter startupReporter(@Value("${item.repository:v2}") String repositoryMode) {
+        return new StartupReporter(repositoryMode);
+    }
+
 /*	@Bean
 	@Profile("test")
 	public DataSource dataSource() {
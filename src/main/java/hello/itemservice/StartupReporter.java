@@ -0,0 +1,29 @@
+package hello.itemservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * 기동이 끝난 시점의 모드별 기동 시간과 힙 사용량을 남긴다.
+ * 기동 시간은 JVM 시작부터 잰 값이라 SpringApplication이 찍는 "Started ... in" 보다 조금 크다.
+ * 힙은 GC 직후가 아니므로 대략적인 값으로만 비교한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StartupReporter {
+
+    private final String repositoryMode;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        log.info("startup report repository={} startup={}ms heapUsed={}MB heapCommitted={}MB",
+                repositoryMode, uptime, heap.getUsed() / (1024 * 1024), heap.getCommitted() / (1024 * 1024));
+    }
+}
@@ -0,0 +1,57 @@
+package hello.itemservice;
+
+import hello.itemservice.bulk.ItemBatchWriter;
+import hello.itemservice.bulk.ItemGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 대량 테스트 데이터 추가. (generate 프로필)
+ * TestDataInit은 2건만 넣으므로 운영 규모에서의 동작을 볼 수 없다.
+ * count건을 batchSize 단위 chunk로 나눠 threads개 스레드가 생성/저장한다. 저장은 ItemBatchWriter(upsertAll)로 chunk마다 한 트랜잭션.
+ * 생성되는 상품 내용은 seed로 결정되지만, id는 저장 순서에 따라 달라진다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SyntheticDataInit {
+
+    private final ItemBatchWriter batchWriter;
+    private final long count;
+    private final long seed;
+    private final int batchSize;
+    private final int threads;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initData() throws InterruptedException, ExecutionException {
+        log.info("synthetic data init count={} seed={} batchSize={} threads={}", count, seed, batchSize, threads);
+        ItemGenerator generator = new ItemGenerator(seed);
+        long chunks = (count + batchSize - 1) / batchSize;
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                int size = (int) Math.min(batchSize, count - chunk * batchSize);
+                long current = chunk;
+                futures.add(executor.submit(() -> batchWriter.write(generator.generate(current, size))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("synthetic data init done rows={} elapsed={}ms rows/s={}", count, elapsedMillis, count * 1000 / elapsedMillis);
+    }
+}
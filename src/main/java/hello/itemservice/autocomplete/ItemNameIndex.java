@@ -0,0 +1,121 @@
+package hello.itemservice.autocomplete;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemStreamer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 상품명 자동완성 인덱스. ItemNameTrie를 읽기/쓰기 락으로 감싼다.
+ *
+ * - 조회(suggest)는 읽기 락이라 서로 막지 않는다. 저장/수정 반영(apply)만 잠깐 쓰기 락을 잡는다.
+ * - rebuild는 새 트라이를 락 밖에서 만들고 마지막에 바꿔 끼운다. 만드는 동안 들어온 변경은 모아 두었다가 새 트라이에도 반영한다.
+ *   스트리밍 읽기가 이미 본 변경이 한 번 더 반영될 수 있어서 그 사이 변경된 이름의 weight(상품 수)는 조금 틀릴 수 있다.
+ *   (기동 직후 한 번만 하므로 그 구간의 변경은 많지 않다)
+ */
+public class ItemNameIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ItemNameTrie trie = new ItemNameTrie();
+    private List<Item[]> pending;
+
+    public List<ItemNameTrie.Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.topK(prefix == null ? "" : prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param before 변경 전 상품. 새로 저장된 경우 null
+     * @param after  변경 후 상품
+     */
+    public void apply(Item before, Item after) {
+        String beforeName = before == null ? null : before.getItemName();
+        String afterName = after == null ? null : after.getItemName();
+        if (before != null && Objects.equals(beforeName, afterName)) {
+            // 가격, 수량만 바뀐 경우
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(trie, beforeName, afterName);
+            if (pending != null) {
+                pending.add(new Item[]{before, after});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(ItemNameTrie target, String beforeName, String afterName) {
+        target.remove(beforeName);
+        target.add(afterName);
+    }
+
+    /**
+     * 저장소 전체를 스트리밍으로 읽어 인덱스를 새로 만든다. 상품을 한 건씩 넣으므로 전체를 메모리에 올리지 않는다.
+     */
+    public void rebuild(ItemStreamer streamer) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ItemNameTrie rebuilt = new ItemNameTrie();
+        boolean completed = false;
+        try {
+            streamer.stream(new ItemSearchCond(), item -> rebuilt.add(item.getItemName()));
+            completed = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (completed) {
+                    for (Item[] change : pending) {
+                        apply(rebuilt, change[0] == null ? null : change[0].getItemName(), change[1].getItemName());
+                    }
+                    trie = rebuilt;
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int getNameCount() {
+        lock.readLock().lock();
+        try {
+            return trie.getNameCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNodeCount() {
+        lock.readLock().lock();
+        try {
+            return trie.getNodeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return trie.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
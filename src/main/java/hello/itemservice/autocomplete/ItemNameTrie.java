@@ -0,0 +1,295 @@
+package hello.itemservice.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 상품명 압축 트라이(radix tree). 상품명마다 그 이름을 가진 상품 수(weight)를 저장한다.
+ *
+ * - 간선 하나에 문자 하나가 아니라 문자열 조각(label)을 둬서, 분기가 없는 구간은 노드 하나로 합친다.
+ * - 자식은 첫 글자 순으로 정렬된 배열에 두고 이진 탐색한다. (노드마다 Map을 두는 것보다 메모리가 훨씬 작다)
+ * - 노드마다 하위 트리의 최대 weight(maxWeight)를 유지한다. topK는 이 값을 상한으로 쓰는 best-first 탐색이라,
+ *   접두어에 걸리는 이름이 아무리 많아도 상위 k개를 찾는 데 필요한 노드만 방문한다.
+ *
+ * 스레드 안전하지 않다. ItemNameIndex가 읽기/쓰기 락으로 감싼다.
+ */
+public class ItemNameTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+    private int nameCount;
+    private long labelChars;
+
+    public void add(String name) {
+        if (name == null) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < name.length()) {
+            int index = node.childIndex(name.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(name.substring(i));
+                node.insertChild(-index - 1, leaf);
+                nodeCount++;
+                labelChars += leaf.label.length();
+                node = leaf;
+                path.add(node);
+                i = name.length();
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, name, i);
+            if (common < child.label.length()) {
+                // 간선 중간에서 갈라지면 공통 부분을 새 노드로 떼어낸다.
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[]{child};
+                split.maxWeight = child.maxWeight;
+                node.children[index] = split;
+                nodeCount++;
+                child = split;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        if (node.weight == 0) {
+            nameCount++;
+        }
+        node.weight++;
+        updateMaxWeights(path);
+    }
+
+    public void remove(String name) {
+        if (name == null) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < name.length()) {
+            int index = node.childIndex(name.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            if (!name.startsWith(child.label, i)) {
+                return;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        if (node.weight == 0) {
+            return;
+        }
+        node.weight--;
+        if (node.weight == 0) {
+            nameCount--;
+            compact(path);
+        }
+        updateMaxWeights(path);
+    }
+
+    /**
+     * 이름이 없어진 노드를 정리한다. 자식이 없으면 떼어내고, 자식이 하나 남은 중간 노드는 자식과 합친다.
+     */
+    private void compact(List<Node> path) {
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node node = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (node.weight > 0) {
+                return;
+            }
+            if (node.children.length == 0) {
+                parent.removeChild(node);
+                nodeCount--;
+                labelChars -= node.label.length();
+                path.remove(depth);
+                continue;
+            }
+            if (node.children.length == 1) {
+                Node child = node.children[0];
+                child.label = node.label + child.label;
+                parent.children[parent.childIndex(node.label.charAt(0))] = child;
+                nodeCount--;
+                path.set(depth, child);
+            }
+            return;
+        }
+    }
+
+    private void updateMaxWeights(List<Node> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            int max = node.weight;
+            for (Node child : node.children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            node.maxWeight = max;
+        }
+    }
+
+    /**
+     * prefix로 시작하는 이름 중 weight가 큰 순으로 k개. weight가 같으면 이름 순.
+     */
+    public List<Suggestion> topK(String prefix, int k) {
+        List<Suggestion> result = new ArrayList<>(Math.min(k, 64));
+        if (k <= 0) {
+            return result;
+        }
+        Node node = root;
+        StringBuilder matched = new StringBuilder();
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(i));
+            if (index < 0) {
+                return result;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, i);
+            if (common < child.label.length() && i + common < prefix.length()) {
+                return result;
+            }
+            matched.append(child.label);
+            node = child;
+            i += common;
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+        queue.add(new Candidate(node, matched.toString(), node.maxWeight, false));
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate candidate = queue.poll();
+            if (candidate.terminal) {
+                result.add(new Suggestion(candidate.text, candidate.bound));
+                continue;
+            }
+            Node current = candidate.node;
+            if (current.weight > 0) {
+                queue.add(new Candidate(current, candidate.text, current.weight, true));
+            }
+            for (Node child : current.children) {
+                queue.add(new Candidate(child, candidate.text + child.label, child.maxWeight, false));
+            }
+        }
+        return result;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getNameCount() {
+        return nameCount;
+    }
+
+    /**
+     * 대략적인 메모리 사용량(바이트). 압축 OOP 64비트 JVM 기준
+     * 노드(객체 헤더 + 필드) 32 + 자식 배열 16 + 참조 4/개 + String 24 + byte[] 16 + 문자 수(Latin-1)
+     */
+    public long estimatedBytes() {
+        long childReferences = nodeCount - 1;
+        return nodeCount * (32L + 16 + 24 + 16) + childReferences * 4 + labelChars;
+    }
+
+    private static int commonPrefix(String label, String text, int offset) {
+        int max = Math.min(label.length(), text.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == text.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    public static class Suggestion {
+        private final String name;
+        private final int count;
+
+        public Suggestion(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private static class Candidate {
+        static final Comparator<Candidate> ORDER = Comparator.comparingInt((Candidate c) -> c.bound).reversed()
+                .thenComparing(c -> c.text)
+                // 같은 문자열, 같은 weight면 실제 이름(terminal)을 먼저 꺼낸다.
+                .thenComparing(c -> !c.terminal);
+
+        final Node node;
+        final String text;
+        final int bound;
+        final boolean terminal;
+
+        Candidate(Node node, String text, int bound, boolean terminal) {
+            this.node = node;
+            this.text = text;
+            this.bound = bound;
+            this.terminal = terminal;
+        }
+    }
+
+    private static class Node {
+        String label;
+        int weight;
+        int maxWeight;
+        Node[] children = NO_CHILDREN;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return 있으면 인덱스, 없으면 -(삽입 위치) - 1 (Arrays.binarySearch와 같은 규칙)
+         */
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int position, Node child) {
+            Node[] next = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, position, next, position + 1, children.length - position);
+            next[position] = child;
+            children = next;
+        }
+
+        void removeChild(Node child) {
+            int index = childIndex(child.label.charAt(0));
+            Node[] next = new Node[children.length - 1];
+            System.arraycopy(children, 0, next, 0, index);
+            System.arraycopy(children, index + 1, next, index, children.length - index - 1);
+            children = next;
+        }
+    }
+}
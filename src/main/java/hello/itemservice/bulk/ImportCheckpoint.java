@@ -0,0 +1,82 @@
+package hello.itemservice.bulk;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 적재 이어받기용 체크포인트.
+ * 배치가 커밋될 때마다 "어디까지 커밋되었는지"(파일 바이트 오프셋)를 원본 파일 옆의 .checkpoint 파일에 기록한다.
+ * 중간에 실패하면 다음 실행 시 이 오프셋부터 다시 읽으므로 이미 커밋된 행은 중복 적재되지 않는다.
+ * 임시 파일에 쓴 뒤 rename 하기 때문에 기록 도중 죽어도 이전 체크포인트는 깨지지 않는다.
+ */
+@Getter
+class ImportCheckpoint {
+
+    private static final ImportCheckpoint EMPTY = new ImportCheckpoint(0, 0, 0);
+
+    private final long offset;
+    private final long rowsImported;
+    private final long rowsRejected;
+
+    ImportCheckpoint(long offset, long rowsImported, long rowsRejected) {
+        this.offset = offset;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+    }
+
+    static Path pathOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    static ImportCheckpoint load(Path file) {
+        Path path = pathOf(file);
+        if (!Files.exists(path)) {
+            return EMPTY;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ImportCheckpoint(
+                Long.parseLong(props.getProperty("offset", "0")),
+                Long.parseLong(props.getProperty("rowsImported", "0")),
+                Long.parseLong(props.getProperty("rowsRejected", "0")));
+    }
+
+    static void save(Path file, ImportResult result) {
+        Path path = pathOf(file);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Properties props = new Properties();
+        props.setProperty("offset", String.valueOf(result.getCommittedOffset()));
+        props.setProperty("rowsImported", String.valueOf(result.getRowsImported()));
+        props.setProperty("rowsRejected", String.valueOf(result.getRowsRejected()));
+        try (Writer writer = Files.newBufferedWriter(tmp)) {
+            props.store(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void delete(Path file) {
+        try {
+            Files.deleteIfExists(pathOf(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
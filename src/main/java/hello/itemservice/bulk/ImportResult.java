@@ -0,0 +1,59 @@
+package hello.itemservice.bulk;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV 적재 결과.
+ * rowsImported, rowsRejected는 이어받기 이전 실행분까지 포함한 누적 값이고,
+ * rowsPerSecond는 이번 실행에서 적재한 건만으로 계산한다.
+ * rejectedSamples에는 거부된 행의 위치(바이트 오프셋)와 사유가 최대 MAX_REJECTED_SAMPLES건까지만 남는다.
+ */
+@Getter
+@ToString
+public class ImportResult {
+
+    static final int MAX_REJECTED_SAMPLES = 100;
+
+    private final String file;
+    private final long resumedFromOffset;
+    private long rowsImported;
+    private long rowsRejected;
+    private long committedOffset;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private final List<String> rejectedSamples = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    private long importedThisRun;
+
+    ImportResult(String file, ImportCheckpoint checkpoint) {
+        this.file = file;
+        this.resumedFromOffset = checkpoint.getOffset();
+        this.committedOffset = checkpoint.getOffset();
+        this.rowsImported = checkpoint.getRowsImported();
+        this.rowsRejected = checkpoint.getRowsRejected();
+    }
+
+    void addImported(int count, long offset) {
+        rowsImported += count;
+        importedThisRun += count;
+        committedOffset = offset;
+    }
+
+    void addRejected(long offset, String reason) {
+        rowsRejected++;
+        if (rejectedSamples.size() < MAX_REJECTED_SAMPLES) {
+            rejectedSamples.add("offset=" + offset + " " + reason);
+        }
+    }
+
+    void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? importedThisRun : importedThisRun * 1000 / elapsedMillis;
+    }
+}
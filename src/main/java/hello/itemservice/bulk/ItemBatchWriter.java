@@ -0,0 +1,37 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 여러 건의 Item을 하나의 트랜잭션으로 묶어서 저장.
+ * 건마다 트랜잭션을 열고 커밋하면 대량 적재 시 커밋 비용이 대부분을 차지하기 때문에,
+ * 배치 단위로 트랜잭션을 열고 그 안에서 ItemService.upsertAll()을 한 번 호출한다. (서비스 트랜잭션은 배치 트랜잭션에 참여)
+ * 건마다 save를 부르지 않고 저장소의 묶음 쓰기를 탄다.
+ * - JdbcTemplate : id 없는 상품은 시퀀스 조회 한 번으로 id를 채우고, 전체를 MERGE 배치(batchUpdate) 하나로 보낸다.
+ * - MyBatis : 같은 방식으로 id를 채우고 다중 행 MERGE 한 문장.
+ * - JPA : persist/수정은 Hibernate insert/update 배치, 새 id 행은 MERGE 배치 하나.
+ * - 메모리 : 락 한 번.
+ * 리포지토리가 아니라 서비스를 거치므로 대량 적재도 ItemChangedEvent가 발행되어 재고 통계 등에 반영된다.
+ * 배치 중 하나라도 실패하면 배치 전체가 롤백된다.
+ */
+@Slf4j
+public class ItemBatchWriter {
+
+    private final ItemService itemService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemBatchWriter(ItemService itemService, PlatformTransactionManager transactionManager) {
+        this.itemService = itemService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void write(List<Item> batch) {
+        transactionTemplate.executeWithoutResult(status -> itemService.upsertAll(batch));
+    }
+}
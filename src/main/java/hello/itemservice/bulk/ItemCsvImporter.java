@@ -0,0 +1,362 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 대용량 CSV(item_name,price,quantity) 적재기.
+ *
+ * 1. 파일은 FileChannel.map()으로 windowSize 단위씩 메모리 매핑해서 읽는다.
+ *    2GB를 넘는 파일도 처리할 수 있도록 윈도우를 옮겨 가며 매핑하고, 윈도우 끝에 걸친 행은 다음 윈도우에서 다시 읽는다.
+ * 2. 행을 String으로 만든 뒤 split 하지 않고 바이트 단위로 바로 파싱한다.
+ *    price, quantity는 바이트에서 곧바로 int로 변환하고, String은 item_name 하나만 만든다.
+ * 3. 파싱(호출 스레드)과 저장(writer 스레드)은 BlockingQueue를 사이에 두고 파이프라인으로 동시에 진행된다.
+ *    저장은 ItemBatchWriter를 통해 batchSize 건씩 하나의 트랜잭션으로 커밋된다.
+ * 4. 배치가 커밋될 때마다 체크포인트를 남기므로, 실패 후 다시 실행하면 마지막으로 커밋된 위치부터 이어서 적재한다.
+ *    writer 스레드가 하나이기 때문에 배치는 파일 순서대로 커밋되고, 체크포인트 이전의 행은 모두 커밋된 상태임이 보장된다.
+ */
+@Slf4j
+public class ItemCsvImporter {
+
+    private static final int ITEM_NAME_MAX_LENGTH = 10;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+    private static final byte[] HEADER = "item_name,price,quantity".getBytes(StandardCharsets.US_ASCII);
+
+    private final ItemBatchWriter batchWriter;
+    private final int batchSize;
+    private final long windowSize;
+
+    public ItemCsvImporter(ItemBatchWriter batchWriter, int batchSize, long windowSize) {
+        this.batchWriter = batchWriter;
+        this.batchSize = batchSize;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @param file   적재할 CSV 파일
+     * @param resume true면 체크포인트가 있을 때 그 위치부터 이어서 적재. false면 처음부터 적재.
+     */
+    public ImportResult importFile(Path file, boolean resume) {
+        if (!resume) {
+            ImportCheckpoint.delete(file);
+        }
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(file);
+        ImportResult result = new ImportResult(file.toString(), checkpoint);
+        if (checkpoint.getOffset() > 0) {
+            log.info("resume import file={} offset={}", file, checkpoint.getOffset());
+        }
+
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<Throwable> writerFailure = new AtomicReference<>();
+        Thread writer = new Thread(() -> drain(queue, file, result, writerFailure), "item-import-writer");
+
+        long start = System.nanoTime();
+        writer.start();
+        try {
+            parse(file, checkpoint.getOffset(), queue, writerFailure);
+            put(queue, Batch.END, writerFailure);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.interrupt();
+            throw new IllegalStateException("적재가 중단되었습니다. file=" + file, e);
+        } catch (RuntimeException e) {
+            writer.interrupt();
+            if (writerFailure.get() == null) {
+                throw e;
+            }
+        }
+
+        Throwable failure = writerFailure.get();
+        if (failure != null) {
+            throw new IllegalStateException("배치 저장 실패. 체크포인트 offset=" + result.getCommittedOffset()
+                    + " 부터 다시 실행하면 이어서 적재됩니다. file=" + file, failure);
+        }
+
+        result.finish(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        ImportCheckpoint.delete(file);
+        log.info("import done {}", result);
+        return result;
+    }
+
+    private void parse(Path file, long startOffset, BlockingQueue<Batch> queue,
+                       AtomicReference<Throwable> writerFailure) throws InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = startOffset;
+            LineParser parser = new LineParser();
+            Batch batch = new Batch(batchSize, startOffset);
+
+            while (position < fileSize) {
+                long size = Math.min(windowSize, fileSize - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                boolean lastWindow = position + size == fileSize;
+
+                int lineStart = 0;
+                for (int i = 0; i < size; i++) {
+                    if (buffer.get(i) != '\n') {
+                        continue;
+                    }
+                    batch = accept(parser, buffer, lineStart, i, position, batch, queue, writerFailure);
+                    lineStart = i + 1;
+                }
+                if (lastWindow && lineStart < size) {
+                    batch = accept(parser, buffer, lineStart, (int) size, position, batch, queue, writerFailure);
+                    lineStart = (int) size;
+                }
+                if (lineStart == 0) {
+                    throw new IllegalStateException("한 행이 윈도우 크기(" + windowSize + " bytes)보다 깁니다. offset=" + position);
+                }
+                position += lineStart;
+            }
+            put(queue, batch, writerFailure);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Batch accept(LineParser parser, MappedByteBuffer buffer, int from, int to, long windowOffset,
+                         Batch batch, BlockingQueue<Batch> queue,
+                         AtomicReference<Throwable> writerFailure) throws InterruptedException {
+        long lineOffset = windowOffset + from;
+        batch.endOffset = windowOffset + Math.min(to + 1, buffer.limit());
+
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        if (to > from && !(lineOffset == 0 && isHeader(buffer, from, to))) {
+            Item item = parser.parse(buffer, from, to);
+            if (item != null) {
+                batch.items.add(item);
+            } else {
+                batch.rejected.add(new Rejected(lineOffset, parser.error));
+            }
+        }
+
+        // 거부된 행만 계속 나오는 파일에서도 배치가 끝없이 커지지 않도록 거부 건수로도 넘긴다.
+        if (batch.items.size() >= batchSize || batch.rejected.size() >= batchSize) {
+            put(queue, batch, writerFailure);
+            return new Batch(batchSize, batch.endOffset);
+        }
+        return batch;
+    }
+
+    /**
+     * 첫 행이 컬럼 이름(item_name,price,quantity)과 정확히 같을 때만 헤더로 보고 건너뛴다. (대소문자 무시)
+     * 헤더 없는 파일의 첫 상품이 헤더로 오인되어 적재도 거부도 되지 않고 사라지지 않도록 한다.
+     */
+    private boolean isHeader(MappedByteBuffer buffer, int from, int to) {
+        if (to - from != HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (Character.toLowerCase(buffer.get(from + i)) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(BlockingQueue<Batch> queue, Batch batch, AtomicReference<Throwable> writerFailure)
+            throws InterruptedException {
+        // writer가 실패했는데 큐가 꽉 차 있으면 파서가 영원히 기다리게 되므로 주기적으로 실패 여부를 확인.
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (writerFailure.get() != null) {
+                throw new IllegalStateException("writer 스레드 실패로 파싱을 중단합니다.", writerFailure.get());
+            }
+        }
+    }
+
+    private void drain(BlockingQueue<Batch> queue, Path file, ImportResult result,
+                       AtomicReference<Throwable> writerFailure) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int batches = 0;
+        try {
+            while (true) {
+                Batch batch = queue.take();
+                if (batch == Batch.END) {
+                    return;
+                }
+                if (!batch.items.isEmpty()) {
+                    batchWriter.write(batch.items);
+                }
+                for (Rejected rejected : batch.rejected) {
+                    result.addRejected(rejected.offset, rejected.reason);
+                }
+                result.addImported(batch.items.size(), batch.endOffset);
+                ImportCheckpoint.save(file, result);
+                rows += batch.items.size();
+
+                if (++batches % PROGRESS_LOG_INTERVAL == 0) {
+                    long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    log.info("import progress rows={} rejected={} offset={} rows/s={}",
+                            result.getRowsImported(), result.getRowsRejected(), result.getCommittedOffset(),
+                            rows * 1000 / elapsedMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writerFailure.compareAndSet(null, e);
+        } catch (Throwable e) {
+            writerFailure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * 파일 순서대로 모은 행 묶음.
+     * endOffset은 이 배치의 마지막 행 다음 위치로, 배치가 커밋되면 체크포인트가 된다.
+     * 행이 하나도 없는 배치(마지막 배치가 딱 맞게 넘어간 경우)도 체크포인트가 뒤로 가지 않도록 앞 배치의 endOffset에서 시작한다.
+     */
+    private static class Batch {
+        static final Batch END = new Batch(0, 0);
+
+        final List<Item> items;
+        final List<Rejected> rejected = new ArrayList<>();
+        long endOffset;
+
+        Batch(int capacity, long endOffset) {
+            this.items = new ArrayList<>(capacity);
+            this.endOffset = endOffset;
+        }
+    }
+
+    private static class Rejected {
+        final long offset;
+        final String reason;
+
+        Rejected(long offset, String reason) {
+            this.offset = offset;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * item_name,price,quantity 한 행을 바이트 단위로 파싱.
+     * item_name은 큰따옴표로 감쌀 수 있고, 안의 큰따옴표는 ""로 이스케이프한다.
+     * 파싱에 실패하면 null을 반환하고 error에 사유를 남긴다.
+     * 스레드 안전하지 않으므로 파서 스레드 하나에서만 사용한다.
+     */
+    private static class LineParser {
+
+        private byte[] nameBuffer = new byte[64];
+        private int pos;
+        private String error;
+
+        Item parse(MappedByteBuffer buffer, int from, int to) {
+            pos = from;
+            int nameLength = readName(buffer, to);
+            if (nameLength < 0) {
+                return null;
+            }
+            int price = readInt(buffer, to, "price");
+            if (price < 0) {
+                return null;
+            }
+            int quantity = readInt(buffer, to, "quantity");
+            if (quantity < 0) {
+                return null;
+            }
+            // 마지막 컬럼 뒤의 구분자(quantity 뒤 ',')까지 readInt가 먹었으면 빈 컬럼이 더 있는 것
+            if (pos < to || buffer.get(to - 1) == ',') {
+                error = "컬럼 수가 많습니다";
+                return null;
+            }
+
+            String itemName = new String(nameBuffer, 0, nameLength, StandardCharsets.UTF_8);
+            if (itemName.isEmpty() || itemName.length() > ITEM_NAME_MAX_LENGTH) {
+                error = "item_name 길이 오류: " + itemName;
+                return null;
+            }
+            return new Item(itemName, price, quantity);
+        }
+
+        private int readName(MappedByteBuffer buffer, int to) {
+            int length = 0;
+            if (pos < to && buffer.get(pos) == '"') {
+                pos++;
+                while (true) {
+                    if (pos >= to) {
+                        error = "닫는 따옴표가 없습니다";
+                        return -1;
+                    }
+                    byte b = buffer.get(pos++);
+                    if (b == '"') {
+                        if (pos < to && buffer.get(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                    length = append(length, b);
+                }
+                if (pos < to && buffer.get(pos) != ',') {
+                    error = "따옴표 뒤에 구분자가 없습니다";
+                    return -1;
+                }
+            } else {
+                while (pos < to && buffer.get(pos) != ',') {
+                    length = append(length, buffer.get(pos++));
+                }
+            }
+            if (pos >= to) {
+                error = "컬럼 수가 부족합니다";
+                return -1;
+            }
+            pos++; // ','
+            return length;
+        }
+
+        private int append(int length, byte b) {
+            if (length == nameBuffer.length) {
+                nameBuffer = Arrays.copyOf(nameBuffer, length * 2);
+            }
+            nameBuffer[length] = b;
+            return length + 1;
+        }
+
+        private int readInt(MappedByteBuffer buffer, int to, String column) {
+            long value = 0;
+            int digits = 0;
+            while (pos < to) {
+                byte b = buffer.get(pos);
+                if (b == ',') {
+                    pos++;
+                    break;
+                }
+                if (b < '0' || b > '9') {
+                    error = column + " 숫자 형식 오류";
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE) {
+                    error = column + " 범위 초과";
+                    return -1;
+                }
+                digits++;
+                pos++;
+            }
+            if (digits == 0) {
+                error = column + " 값이 없습니다";
+                return -1;
+            }
+            return (int) value;
+        }
+    }
+}
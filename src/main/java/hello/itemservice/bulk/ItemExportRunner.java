@@ -0,0 +1,39 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.repository.ItemSearchCond;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 커맨드 라인 내보내기. (야간 전체 덤프용)
+ * java -jar itemservice-db.jar --item.export.file=/backup/items.ndjson.gz [--item.export.item-name=..] [--item.export.max-price=..]
+ * 파일 이름에 .ndjson이 있으면 NDJSON, 아니면 CSV로 쓰고, .gz로 끝나면 gzip으로 압축한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ItemExportRunner implements ApplicationRunner {
+
+    private final ItemExporter exporter;
+    private final String file;
+    private final ItemSearchCond cond;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path path = Path.of(file);
+        String fileName = path.getFileName().toString();
+        ExportFormat format = fileName.contains(ExportFormat.NDJSON.getExtension()) ? ExportFormat.NDJSON : ExportFormat.CSV;
+        boolean gzip = fileName.endsWith(".gz");
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            long rows = exporter.export(cond, format, gzip, out);
+            log.info("exported {} rows to {}", rows, path);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemStreamer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 카탈로그를 CSV 또는 NDJSON으로 내보낸다.
+ * ItemStreamer가 넘겨주는 행을 바로 고정 크기 버퍼에 써서 내보내므로, 전체 건수와 상관없이 힙 사용량이 일정하다.
+ * gzip을 켜면 같은 크기의 버퍼를 가진 GZIPOutputStream을 한 단계 더 거친다.
+ * 값이 없는(null) 컬럼은 CSV에서는 빈 칸, NDJSON에서는 null로 쓴다.
+ */
+@Slf4j
+public class ItemExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ItemStreamer itemStreamer;
+
+    public ItemExporter(ItemStreamer itemStreamer) {
+        this.itemStreamer = itemStreamer;
+    }
+
+    /**
+     * out은 닫지 않는다. (HTTP 응답 스트림은 컨테이너가 닫는다.)
+     *
+     * @return 내보낸 행 수
+     */
+    public long export(ItemSearchCond cond, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        long start = System.currentTimeMillis();
+        long[] rows = {0};
+        if (format == ExportFormat.CSV) {
+            writer.write("id,item_name,price,quantity\n");
+        }
+        try {
+            itemStreamer.stream(cond, item -> {
+                try {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(writer, item);
+                    } else {
+                        writeJson(writer, item);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+        log.info("export done format={} gzip={} rows={} elapsed={}ms",
+                format, gzip, rows[0], System.currentTimeMillis() - start);
+        return rows[0];
+    }
+
+    private void writeCsv(Writer writer, Item item) throws IOException {
+        writer.write(Long.toString(item.getId()));
+        writer.write(',');
+        String itemName = item.getItemName() == null ? "" : item.getItemName();
+        if (itemName.indexOf(',') >= 0 || itemName.indexOf('"') >= 0 || itemName.indexOf('\n') >= 0
+                || itemName.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(itemName.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(itemName);
+        }
+        writer.write(',');
+        writer.write(item.getPrice() == null ? "" : item.getPrice().toString());
+        writer.write(',');
+        writer.write(item.getQuantity() == null ? "" : item.getQuantity().toString());
+        writer.write('\n');
+    }
+
+    private void writeJson(Writer writer, Item item) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(Long.toString(item.getId()));
+        writer.write(",\"itemName\":");
+        if (item.getItemName() == null) {
+            writer.write("null");
+        } else {
+            writer.write('"');
+            writeJsonString(writer, item.getItemName());
+            writer.write('"');
+        }
+        writer.write(",\"price\":");
+        writer.write(String.valueOf(item.getPrice()));
+        writer.write(",\"quantity\":");
+        writer.write(String.valueOf(item.getQuantity()));
+        writer.write("}\n");
+    }
+
+    private void writeJsonString(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.domain.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 부하/벤치마크용 가짜 상품 생성기.
+ *
+ * - 상품명: 단어 조각을 Zipf 분포(상위 몇 개 조각이 대부분을 차지)로 골라 1~2개 붙이고, item_name 컬럼 길이(10자)에 맞게 자른다.
+ *          그래서 '%pen%' 같은 검색이 현실처럼 어떤 단어는 아주 많이, 어떤 단어는 거의 안 걸리게 된다.
+ * - 가격: 저가 구간에 몰리도록 구간별 가중치를 두고, 구간 안에서는 로그 균등 분포로 뽑아 100원 단위로 맞춘다.
+ * - 수량: 대부분 수십 개 이하이고 가끔 큰 값이 나오는 지수 분포. 5%는 재고 0.
+ *
+ * 같은 seed, 같은 chunk 번호면 항상 같은 상품들이 나온다.
+ * chunk마다 독립된 난수 생성기를 쓰기 때문에 여러 스레드가 chunk를 나눠 생성해도 결과가 스레드 수와 무관하다.
+ */
+public class ItemGenerator {
+
+    private static final int ITEM_NAME_MAX_LENGTH = 10;
+
+    private static final String[] FRAGMENTS = {
+            "pen", "cup", "book", "bag", "desk", "lamp", "note", "mug", "cap", "sock",
+            "tee", "ball", "toy", "box", "key", "fan", "mat", "jar", "pad", "pot",
+            "ink", "tape", "clip", "bin", "card", "case", "dock", "hub", "kit", "map",
+            "net", "oil", "pin", "rug", "saw", "tag", "tin", "tub", "van", "wax",
+            "zip", "bolt", "coat", "dish", "fork", "glue", "hook", "knob", "lock", "nail"
+    };
+    private static final double ZIPF_EXPONENT = 1.1;
+
+    private static final int[][] PRICE_BANDS = {
+            {1_000, 10_000},
+            {10_000, 50_000},
+            {50_000, 200_000},
+            {200_000, 1_000_000}
+    };
+    private static final double[] PRICE_BAND_WEIGHTS = {0.60, 0.25, 0.10, 0.05};
+
+    private final long seed;
+    private final double[] zipfCumulative;
+
+    public ItemGenerator(long seed) {
+        this.seed = seed;
+        this.zipfCumulative = zipfCumulative(FRAGMENTS.length, ZIPF_EXPONENT);
+    }
+
+    public List<Item> generate(long chunk, int size) {
+        SplittableRandom random = new SplittableRandom(mix(seed, chunk));
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(itemName(random), price(random), quantity(random)));
+        }
+        return items;
+    }
+
+    private String itemName(SplittableRandom random) {
+        String name = FRAGMENTS[zipf(random)];
+        if (random.nextInt(2) == 0) {
+            name += FRAGMENTS[zipf(random)];
+        }
+        name += random.nextInt(100);
+        return name.length() > ITEM_NAME_MAX_LENGTH ? name.substring(0, ITEM_NAME_MAX_LENGTH) : name;
+    }
+
+    private int price(SplittableRandom random) {
+        double u = random.nextDouble();
+        int band = 0;
+        double cumulative = PRICE_BAND_WEIGHTS[0];
+        while (u > cumulative && band < PRICE_BANDS.length - 1) {
+            cumulative += PRICE_BAND_WEIGHTS[++band];
+        }
+        double low = Math.log(PRICE_BANDS[band][0]);
+        double high = Math.log(PRICE_BANDS[band][1]);
+        long price = Math.round(Math.exp(low + random.nextDouble() * (high - low)) / 100) * 100;
+        return (int) Math.max(100, price);
+    }
+
+    private int quantity(SplittableRandom random) {
+        if (random.nextInt(100) < 5) {
+            return 0;
+        }
+        return (int) Math.min(10_000, 1 + Math.floor(-Math.log(1 - random.nextDouble()) * 20));
+    }
+
+    private int zipf(SplittableRandom random) {
+        int index = Arrays.binarySearch(zipfCumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, zipfCumulative.length - 1);
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * seed와 chunk 번호를 섞어 chunk별 seed를 만든다. (SplitMix64 finalizer)
+     */
+    private static long mix(long seed, long chunk) {
+        long z = seed + chunk * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,30 @@
+package hello.itemservice.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.nio.file.Path;
+
+/**
+ * 커맨드 라인 적재.
+ * java -jar itemservice-db.jar --item.import.file=/data/items.csv [--item.import.resume=false]
+ * item.import.file 속성이 있을 때만 빈으로 등록된다. (BulkConfig 참고)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ItemImportRunner implements ApplicationRunner {
+
+    private final ItemCsvImporter importer;
+    private final String file;
+    private final boolean resume;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ImportResult result = importer.importFile(Path.of(file), resume);
+        log.info("imported={} rejected={} rows/s={} elapsed={}ms",
+                result.getRowsImported(), result.getRowsRejected(),
+                result.getRowsPerSecond(), result.getElapsedMillis());
+    }
+}
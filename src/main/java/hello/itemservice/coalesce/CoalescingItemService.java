@@ -0,0 +1,176 @@
+package hello.itemservice.coalesce;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
+import hello.itemservice.service.ItemChangedEvent;
+import hello.itemservice.service.ItemService;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * 같은 조회가 동시에 몰리면 DB 호출 하나만 보내고 결과를 나눠 받는다. (single-flight)
+ * findById는 id, findItems는 검색 조건(ItemSearchCond 값)이 같으면 같은 조회로 본다.
+ *
+ * - 먼저 온 호출(leader)이 delegate를 부르는 동안 같은 조회가 들어오면 그 결과를 기다린다. 끝나면 바로 지워서 결과를 캐시하지는 않는다.
+ * - 자기가 쓴 것보다 오래된 값을 받지 않도록, 쓰기(save/update/reserveStock/upsertAll)가 끝날 때마다 writes를 올리고
+ *   진행 중인 조회는 시작할 때의 writes 값을 기억한다. 그 뒤로 끝난 쓰기가 있으면 합류하지 않고 새로 조회한다.
+ *   (쓰기가 끝났다 = delegate 호출이 커밋까지 마치고 돌아왔다)
+ * - 바깥 읽기/쓰기 트랜잭션 안의 조회는 커밋 전 자기 변경을 봐야 하므로 합류하지도, 다른 호출에 결과를 나눠 주지도 않고
+ *   바로 delegate로 보낸다. (BatchingItemRepository.findById와 같은 기준)
+ * - 기다린 호출은 복사본을 받는다. 같은 엔티티 객체를 여러 스레드가 나눠 갖지 않게.
+ */
+public class CoalescingItemService implements ItemService {
+
+    private final ItemService delegate;
+    private final ConcurrentMap<Long, Flight<Optional<Item>>> findByIdFlights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ItemSearchCond, Flight<List<Item>>> findItemsFlights = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingItemService(ItemService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Item save(Item item) {
+        try {
+            return delegate.save(item);
+        } finally {
+            writes.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        try {
+            delegate.update(itemId, updateParam);
+        } finally {
+            writes.incrementAndGet();
+        }
+    }
+
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        try {
+            return delegate.reserveStock(itemId, amount);
+        } finally {
+            writes.incrementAndGet();
+        }
+    }
+
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        try {
+            return delegate.upsertAll(items);
+        } finally {
+            writes.incrementAndGet();
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return coalesce(findByIdFlights, id, () -> delegate.findById(id), found -> found.map(ItemChangedEvent::copyOf));
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond cond) {
+        ItemSearchCond key = new ItemSearchCond(cond.getItemName(), cond.getMaxPrice(), cond.getSort(), cond.isDesc(), cond.getLimit());
+        return coalesce(findItemsFlights, key, () -> delegate.findItems(key), CoalescingItemService::copyOf);
+    }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    /**
+     * delegate를 실제로 부른 횟수
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * 다른 호출의 결과를 나눠 받은 횟수
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    private <K, T> T coalesce(ConcurrentMap<K, Flight<T>> flights, K key, Supplier<T> call, UnaryOperator<T> copy) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return call.get();
+        }
+        long seenWrites = writes.get();
+        while (true) {
+            Flight<T> flight = flights.get(key);
+            if (flight != null && flight.writes >= seenWrites) {
+                coalesced.increment();
+                return copy.apply(flight.join());
+            }
+            Flight<T> mine = new Flight<>(seenWrites);
+            boolean claimed = flight == null ? flights.putIfAbsent(key, mine) == null : flights.replace(key, flight, mine);
+            if (!claimed) {
+                continue;
+            }
+            calls.increment();
+            try {
+                T result = call.get();
+                mine.result.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                mine.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, mine);
+            }
+        }
+    }
+
+    private static List<Item> copyOf(List<Item> items) {
+        return items.stream().map(ItemChangedEvent::copyOf).collect(Collectors.toList());
+    }
+
+    private static class Flight<T> {
+
+        private final long writes;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Flight(long writes) {
+            this.writes = writes;
+        }
+
+        /**
+         * leader가 던진 예외를 그대로 다시 던진다.
+         */
+        private T join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package hello.itemservice.coalesce;
+
+import hello.itemservice.service.ItemService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+/**
+ * 저장소 설정이 등록한 itemService 빈을 CoalescingItemService로 감싼다.
+ * 트랜잭션 프록시가 먼저 만들어진 뒤에 감싸므로(auto-proxy creator는 HIGHEST_PRECEDENCE) delegate 호출은 그대로 트랜잭션 안에서 돈다.
+ * ConnectionHoldPostProcessor가 이 바깥을 감싸야 하므로 그보다 한 칸 앞 순서.
+ * 빈 자체를 바꾸므로 itemService를 주입받는 곳(SearchingItemService 포함)은 모두 감싼 것을 쓴다.
+ */
+public class CoalescingItemServicePostProcessor implements BeanPostProcessor, Ordered {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    static final String ITEM_SERVICE = "itemService";
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (ITEM_SERVICE.equals(beanName) && bean instanceof ItemService && !(bean instanceof CoalescingItemService)) {
+            return new CoalescingItemService((ItemService) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
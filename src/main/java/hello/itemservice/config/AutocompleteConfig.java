@@ -0,0 +1,25 @@
+package hello.itemservice.config;
+
+import hello.itemservice.autocomplete.ItemNameIndex;
+import hello.itemservice.autocomplete.ItemNameIndexUpdater;
+import hello.itemservice.repository.ItemStreamer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 상품명 자동완성(GET /items/autocomplete) 빈 등록.
+ * 기동 시 읽는 ItemStreamer는 BulkConfig가 등록한 것(메모리 모드면 메모리 저장소, 아니면 DB 커서)을 쓴다.
+ */
+@Configuration
+public class AutocompleteConfig {
+
+    @Bean
+    public ItemNameIndex itemNameIndex() {
+        return new ItemNameIndex();
+    }
+
+    @Bean
+    public ItemNameIndexUpdater itemNameIndexUpdater(ItemStreamer itemStreamer) {
+        return new ItemNameIndexUpdater(itemNameIndex(), itemStreamer);
+    }
+}
@@ -0,0 +1,74 @@
+package hello.itemservice.config;
+
+import hello.itemservice.bulk.ItemBatchWriter;
+import hello.itemservice.bulk.ItemCsvImporter;
+import hello.itemservice.bulk.ItemExportRunner;
+import hello.itemservice.bulk.ItemExporter;
+import hello.itemservice.bulk.ItemImportRunner;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemStreamer;
+import hello.itemservice.service.ItemService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * 대량 적재/내보내기 관련 빈 등록.
+ * ItemService, ItemRepository는 @Import로 선택된 설정(MemoryConfig, JdbcTemplateV1Config 등)이 등록한 것을 그대로 사용한다.
+ */
+@Configuration
+public class BulkConfig {
+
+    @Bean
+    public ItemBatchWriter itemBatchWriter(ItemService itemService,
+                                           PlatformTransactionManager transactionManager) {
+        return new ItemBatchWriter(itemService, transactionManager);
+    }
+
+    @Bean
+    public ItemCsvImporter itemCsvImporter(ItemBatchWriter itemBatchWriter,
+                                           @Value("${item.import.batch-size:1000}") int batchSize,
+                                           @Value("${item.import.window-size:67108864}") long windowSize) {
+        return new ItemCsvImporter(itemBatchWriter, batchSize, windowSize);
+    }
+
+    /**
+     * 리포지토리가 직접 스트리밍을 지원하면(메모리 모드) 그것을 쓰고, 아니면 DB 커서로 읽는다.
+     */
+    @Bean
+    public ItemStreamer itemStreamer(ItemRepository itemRepository, DataSource dataSource,
+                                     @Value("${item.export.fetch-size:500}") int fetchSize) {
+        if (itemRepository instanceof ItemStreamer) {
+            return (ItemStreamer) itemRepository;
+        }
+        return new JdbcTemplateItemStreamer(dataSource, fetchSize);
+    }
+
+    @Bean
+    public ItemExporter itemExporter(ItemStreamer itemStreamer) {
+        return new ItemExporter(itemStreamer);
+    }
+
+    @Bean
+    @ConditionalOnProperty("item.export.file")
+    public ItemExportRunner itemExportRunner(ItemExporter itemExporter,
+                                             @Value("${item.export.file}") String file,
+                                             @Value("${item.export.item-name:#{null}}") String itemName,
+                                             @Value("${item.export.max-price:#{null}}") Integer maxPrice) {
+        return new ItemExportRunner(itemExporter, file, new ItemSearchCond(itemName, maxPrice));
+    }
+
+    @Bean
+    @ConditionalOnProperty("item.import.file")
+    public ItemImportRunner itemImportRunner(ItemCsvImporter itemCsvImporter,
+                                             @Value("${item.import.file}") String file,
+                                             @Value("${item.import.resume:true}") boolean resume) {
+        return new ItemImportRunner(itemCsvImporter, file, resume);
+    }
+}
@@ -0,0 +1,36 @@
+package hello.itemservice.config;
+
+import hello.itemservice.feed.ItemChangeFeed;
+import hello.itemservice.feed.ItemChangePublisher;
+import hello.itemservice.feed.ItemChangeRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 상품 변경 피드(GET /items/changes) 빈 등록.
+ * 커밋된 ItemChangedEvent를 링 버퍼에 넣고, SSE 구독자는 각자 링을 읽어 간다.
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+    @Bean
+    public ItemChangeRing itemChangeRing(@Value("${item.change-feed.ring-size:4096}") int ringSize) {
+        return new ItemChangeRing(ringSize);
+    }
+
+    @Bean
+    public ItemChangePublisher itemChangePublisher(ItemChangeRing itemChangeRing) {
+        return new ItemChangePublisher(itemChangeRing);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ItemChangeFeed itemChangeFeed(ItemChangeRing itemChangeRing,
+                                         @Value("${item.change-feed.batch-size:256}") int batchSize,
+                                         @Value("${item.change-feed.max-subscribers:32}") int maxSubscribers,
+                                         @Value("${item.change-feed.poll-millis:20}") long pollMillis,
+                                         @Value("${item.change-feed.heartbeat-millis:15000}") long heartbeatMillis,
+                                         @Value("${item.change-feed.timeout-millis:1800000}") long timeoutMillis) {
+        return new ItemChangeFeed(itemChangeRing, batchSize, maxSubscribers, pollMillis, heartbeatMillis, timeoutMillis);
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.config;
+
+import hello.itemservice.coalesce.CoalescingItemServicePostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 동시에 들어온 같은 조회(findById, findItems)를 DB 호출 하나로 합친다. item.coalescing.enabled=false로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingConfig {
+
+    /**
+     * BeanPostProcessor는 다른 빈보다 먼저 만들어져야 하므로 static으로 등록한다.
+     */
+    @Bean
+    public static CoalescingItemServicePostProcessor coalescingItemServicePostProcessor() {
+        return new CoalescingItemServicePostProcessor();
+    }
+}
@@ -0,0 +1,37 @@
+package hello.itemservice.config;
+
+import hello.itemservice.limit.ConcurrencyLimitInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * ItemController 동시 처리 제한. 검색/상세/쓰기마다 응답 시간으로 한도를 따로 조절하고, 넘치면 바로 503.
+ * item.concurrency-limit.enabled=false로 끌 수 있다. 현재 한도는 GET /admin/concurrency-limits
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    @Value("${item.concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${item.concurrency-limit.min-limit:4}")
+    private int minLimit;
+
+    @Value("${item.concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Bean
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor() {
+        return new ConcurrencyLimitInterceptor(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor()).addPathPatterns("/items", "/items/**");
+    }
+}
@@ -0,0 +1,35 @@
+package hello.itemservice.config;
+
+import hello.itemservice.connection.ConnectionHoldPostProcessor;
+import hello.itemservice.connection.ConnectionHoldProfiler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 커넥션 지연 획득(item.datasource.lazy-connection)과 서비스 메서드별 커넥션 점유 측정(item.connection-profile.enabled).
+ * 측정 결과는 GET /admin/connection-holds
+ */
+@Configuration
+public class ConnectionConfig {
+
+    /**
+     * BeanPostProcessor는 다른 빈보다 먼저 만들어져야 하므로 static으로 등록한다.
+     * profiler는 itemService를 감쌀 때 꺼내 쓴다. (측정을 끄면 없음)
+     * DataSource 쪽 측정은 profiler가 JdbcListener라서 JdbcListenerConfig가 붙인다.
+     */
+    @Bean
+    public static ConnectionHoldPostProcessor connectionHoldPostProcessor(
+            @Value("${item.datasource.lazy-connection:true}") boolean lazyConnection,
+            ObjectProvider<ConnectionHoldProfiler> connectionHoldProfiler) {
+        return new ConnectionHoldPostProcessor(lazyConnection, connectionHoldProfiler);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "item.connection-profile.enabled", havingValue = "true", matchIfMissing = true)
+    public ConnectionHoldProfiler connectionHoldProfiler() {
+        return new ConnectionHoldProfiler();
+    }
+}
@@ -0,0 +1,25 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemSchemaInitializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * 내장 H2 모드. --spring.profiles.active=local,embedded
+ * 데이터 소스 설정은 application-embedded.properties. 여기서는 처음 기동할 때(item 테이블이 없을 때) 스키마만 만든다.
+ * 종료 시 스프링이 커넥션 풀을 닫으면 마지막 커넥션이 닫히면서 H2가 파일을 정리하고 닫는다.
+ */
+@Configuration
+@Profile("embedded")
+public class EmbeddedDatabaseConfig {
+
+    @Bean
+    public ItemSchemaInitializer itemSchemaInitializer(DataSource dataSource,
+                                                       @Value("${item.embedded.schema-location:classpath:sql/schema.sql}") String schemaLocation) {
+        return new ItemSchemaInitializer(dataSource, schemaLocation);
+    }
+}
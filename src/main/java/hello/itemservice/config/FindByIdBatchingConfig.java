@@ -0,0 +1,26 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.batching.BatchingItemRepositoryPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 동시에 들어온 findById를 in 조회 한 번으로 묶는다. item.find-by-id-batching.enabled=true일 때만 등록된다.
+ * ItemRepository를 쓰는 구성(v2 제외)에서 효과가 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.find-by-id-batching.enabled", havingValue = "true")
+public class FindByIdBatchingConfig {
+
+    /**
+     * BeanPostProcessor는 다른 빈보다 먼저 만들어져야 하므로 static으로 등록한다.
+     */
+    @Bean
+    public static BatchingItemRepositoryPostProcessor batchingItemRepositoryPostProcessor(
+            @Value("${item.find-by-id-batching.max-batch-size:100}") int maxBatchSize,
+            @Value("${item.find-by-id-batching.max-window-micros:500}") long maxWindowMicros) {
+        return new BatchingItemRepositoryPostProcessor(maxBatchSize, maxWindowMicros);
+    }
+}
@@ -0,0 +1,38 @@
+package hello.itemservice.config;
+
+import hello.itemservice.fragment.ItemFragmentCache;
+import hello.itemservice.fragment.ItemFragmentCacheInvalidator;
+import hello.itemservice.fragment.ItemFragments;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.ITemplateEngine;
+
+/**
+ * 상품 상세, 수정 폼, 목록 행 HTML 조각 캐시. 상태는 GET /admin/fragment-cache
+ * ItemController가 조각으로 페이지를 그리므로 항상 등록하고, item.fragment-cache.enabled=false면 담지 않고 매번 그린다.
+ */
+@Configuration
+public class FragmentCacheConfig {
+
+    @Value("${item.fragment-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${item.fragment-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Bean
+    public ItemFragmentCache itemFragmentCache() {
+        return new ItemFragmentCache(enabled ? maxBytes : 0);
+    }
+
+    @Bean
+    public ItemFragmentCacheInvalidator itemFragmentCacheInvalidator() {
+        return new ItemFragmentCacheInvalidator(itemFragmentCache());
+    }
+
+    @Bean
+    public ItemFragments itemFragments(ITemplateEngine templateEngine) {
+        return new ItemFragments(templateEngine, itemFragmentCache());
+    }
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.config;
+
+import hello.itemservice.jdbc.InterceptingDataSourcePostProcessor;
+import hello.itemservice.jdbc.JdbcListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * DataSource를 InterceptingDataSource로 한 번만 감싸고, 등록된 JdbcListener 빈을 모두 붙인다.
+ * 리스너(SqlTraceRecorder, ConnectionHoldProfiler)는 각 기능 설정(TraceConfig, ConnectionConfig)이 켜져 있을 때만 등록된다.
+ */
+@Configuration
+public class JdbcListenerConfig {
+
+    /**
+     * BeanPostProcessor는 다른 빈보다 먼저 만들어져야 하므로 static으로 등록한다.
+     * 리스너는 DataSource를 감쌀 때 꺼내 쓴다.
+     */
+    @Bean
+    public static InterceptingDataSourcePostProcessor interceptingDataSourcePostProcessor(ObjectProvider<JdbcListener> jdbcListeners) {
+        return new InterceptingDataSourcePostProcessor(jdbcListeners);
+    }
+}
@@ -5,12 +5,14 @@ import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemReposotiryV2;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV1;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
 
 @Configuration
+@ConditionalOnProperty(name = "item.repository", havingValue = "jdbc-v2")
 @RequiredArgsConstructor
 public class JdbcTemplateV2Config {
 
@@ -1,18 +1,33 @@
 package hello.itemservice.config;
 
 import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.memory.ItemJournal;
 import hello.itemservice.repository.memory.MemoryItemRepository;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV1;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+
 /**
  * 빈 수동 등록
+ * item.memory.journal.dir을 지정하면 MemoryItemRepository가 로그와 스냅샷으로 영속화된다.
  */
 @Configuration
+@ConditionalOnProperty(name = "item.repository", havingValue = "memory")
+@RequiredArgsConstructor
 public class MemoryConfig {
 
+    private final ObjectProvider<ItemJournal> itemJournal;
+
+    @Value("${item.memory.journal.snapshot-interval-seconds:300}")
+    private long snapshotIntervalSeconds;
+
     @Bean
     public ItemService itemService() {
         return new ItemServiceV1(itemRepository());
@@ -20,7 +35,24 @@ public class MemoryConfig {
 
     @Bean
     public ItemRepository itemRepository() {
-        return new MemoryItemRepository();
+        ItemJournal journal = itemJournal.getIfAvailable();
+        MemoryItemRepository repository = new MemoryItemRepository(journal);
+        if (journal != null) {
+            journal.scheduleSnapshots(repository::snapshot, snapshotIntervalSeconds);
+        }
+        return repository;
+    }
+
+    /**
+     * destroyMethod를 지정하지 않아도 close()가 있으면 컨테이너 종료 시 호출된다. (마지막 flush)
+     */
+    @Bean
+    @ConditionalOnProperty("item.memory.journal.dir")
+    public ItemJournal itemJournal(@Value("${item.memory.journal.dir}") String dir,
+                                   @Value("${item.memory.journal.segment-size:67108864}") int segmentSize,
+                                   @Value("${item.memory.journal.flush-interval-millis:10}") long flushIntervalMillis,
+                                   @Value("${item.memory.journal.wait-for-flush:true}") boolean waitForFlush) {
+        return new ItemJournal(Path.of(dir), segmentSize, flushIntervalMillis, waitForFlush);
     }
 
 }
@@ -6,10 +6,12 @@ import hello.itemservice.repository.mybatis.ItemMapper;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV1;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnProperty(name = "item.repository", havingValue = "mybatis")
 @RequiredArgsConstructor
 public class MyBatisConfig {
 
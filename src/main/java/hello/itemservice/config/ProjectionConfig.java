@@ -0,0 +1,30 @@
+package hello.itemservice.config;
+
+import hello.itemservice.feed.ItemChangeRing;
+import hello.itemservice.projection.ItemProjection;
+import hello.itemservice.projection.ItemProjector;
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.repository.v2.ItemRepositoryV2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ItemQueryRepositoryV2의 검색 읽기 모델. v2 구성에서 item.projection.enabled=true일 때만 등록된다.
+ * 변경은 ChangeFeedConfig의 링 버퍼에서 읽고, 바뀐 상품은 ItemRepositoryV2로 다시 읽어서 반영한다.
+ */
+@Configuration
+@ConditionalOnExpression("${item.projection.enabled:false} and '${item.repository:v2}' == 'v2'")
+public class ProjectionConfig {
+
+    @Bean(destroyMethod = "close")
+    public ItemProjector itemProjector(ItemChangeRing itemChangeRing, ItemStreamer itemStreamer,
+                                       ItemRepositoryV2 itemRepositoryV2,
+                                       @Value("${item.projection.batch-size:256}") int batchSize,
+                                       @Value("${item.projection.poll-millis:10}") long pollMillis,
+                                       @Value("${item.projection.max-lag-millis:1000}") long maxLagMillis) {
+        return new ItemProjector(itemChangeRing, new ItemProjection(), itemStreamer, itemRepositoryV2::findAllById,
+                batchSize, pollMillis, maxLagMillis);
+    }
+}
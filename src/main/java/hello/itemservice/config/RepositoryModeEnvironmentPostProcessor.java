@@ -0,0 +1,64 @@
+package hello.itemservice.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * item.repository 값에 따라 쓰지 않는 영속성 기술의 자동 구성을 제외한다.
+ * 예를 들어 memory, jdbc-v1 모드에서는 EntityManagerFactory(Hibernate)와 SqlSessionFactory(MyBatis)를 아예 만들지 않는다.
+ * 자동 구성 제외(spring.autoconfigure.exclude)는 컨텍스트가 뜨기 전에 정해져야 하므로
+ * 설정 파일을 읽은 직후 실행되는 EnvironmentPostProcessor에서 처리한다. (META-INF/spring.factories에 등록)
+ * 사용자가 직접 지정한 spring.autoconfigure.exclude 값은 유지하고 뒤에 덧붙인다.
+ * item.repository.exclude-unused-auto-configuration=false로 끄면 모든 자동 구성이 그대로 올라간다.
+ */
+public class RepositoryModeEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String MODE_PROPERTY = "item.repository";
+    static final String DEFAULT_MODE = "v2";
+
+    private static final List<String> JPA = List.of(
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration");
+    private static final List<String> MYBATIS = List.of(
+            "org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration",
+            "org.mybatis.spring.boot.autoconfigure.MybatisLanguageDriverAutoConfiguration");
+
+    private static final Set<String> JPA_MODES = Set.of("jpa", "spring-data-jpa", "querydsl", "v2");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("item.repository.exclude-unused-auto-configuration", Boolean.class, true)) {
+            return;
+        }
+        String mode = environment.getProperty(MODE_PROPERTY, DEFAULT_MODE);
+
+        List<String> excludes = new ArrayList<>();
+        String userExcludes = environment.getProperty("spring.autoconfigure.exclude");
+        if (StringUtils.hasText(userExcludes)) {
+            excludes.add(userExcludes);
+        }
+        if (!JPA_MODES.contains(mode)) {
+            excludes.addAll(JPA);
+        }
+        if (!"mybatis".equals(mode)) {
+            excludes.addAll(MYBATIS);
+        }
+
+        environment.getPropertySources().addFirst(new MapPropertySource("itemRepositoryMode",
+                Map.of("spring.autoconfigure.exclude", String.join(",", excludes))));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
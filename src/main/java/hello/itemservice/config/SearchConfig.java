@@ -0,0 +1,40 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.search.ItemSearchIndex;
+import hello.itemservice.search.ItemSearchIndexUpdater;
+import hello.itemservice.search.SearchingItemService;
+import hello.itemservice.service.ItemService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 상품명 전문 검색(Lucene). item.search.enabled=true일 때만 등록된다.
+ * 저장소 설정이 등록한 itemService를 감싼 SearchingItemService를 @Primary로 등록해서, 컨트롤러는 이쪽을 주입받는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.search.enabled", havingValue = "true")
+public class SearchConfig {
+
+    @Bean(destroyMethod = "close")
+    public ItemSearchIndex itemSearchIndex(@Value("${item.search.refresh-millis:100}") long refreshMillis,
+                                           @Value("${item.search.max-hits:1000}") int maxHits) {
+        return new ItemSearchIndex(refreshMillis, maxHits);
+    }
+
+    @Bean
+    public ItemSearchIndexUpdater itemSearchIndexUpdater(ItemSearchIndex itemSearchIndex, ItemStreamer itemStreamer) {
+        return new ItemSearchIndexUpdater(itemSearchIndex, itemStreamer);
+    }
+
+    @Bean
+    @Primary
+    public ItemService searchingItemService(@Qualifier("itemService") ItemService itemService,
+                                            ItemSearchIndex itemSearchIndex) {
+        return new SearchingItemService(itemService, itemSearchIndex);
+    }
+}
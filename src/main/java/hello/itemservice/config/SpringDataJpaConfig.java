@@ -6,14 +6,19 @@ import hello.itemservice.repository.jpa.SpringDataJpaItemRepository;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV1;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.persistence.EntityManager;
+
 @Configuration
+@ConditionalOnProperty(name = "item.repository", havingValue = "spring-data-jpa")
 @RequiredArgsConstructor
 public class SpringDataJpaConfig {
     // 문제 없음. 주입 정상적으로 되고 있음. IDE 인식 오류임.
     private final SpringDataJpaItemRepository springDataJpaItemRepository;
+    private final EntityManager em;
 
     @Bean
     public ItemService itemService() {
@@ -23,6 +28,6 @@ public class SpringDataJpaConfig {
     // 인터페이스를 주입하는 것 같이 보이지만, 실제로는 해당 인터페이스의 프록시 구현체가 자동 생성되어 주입된다.
     @Bean
     public ItemRepository itemRepository() {
-        return new JpaItemRepositoryV2(springDataJpaItemRepository);
+        return new JpaItemRepositoryV2(springDataJpaItemRepository, em);
     }
 }
@@ -0,0 +1,113 @@
+package hello.itemservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * /css/** 정적 자원을 내용 해시가 붙은 주소로 내보낸다. (bootstrap.min.css -> bootstrap.min-{md5}.css)
+ *
+ * - 템플릿의 th:href="@{/css/...}"는 ResourceUrlEncodingFilter가 해시 붙은 주소로 바꿔 준다. 템플릿은 그대로 둔다.
+ * - 해시 붙은 주소는 내용이 바뀌면 주소도 바뀌므로 max-age를 길게 주고 immutable을 붙인다.
+ * - 해시 없는 주소(/css/bootstrap.min.css)도 그대로 응답하지만 내용이 바뀌어도 주소가 같으므로 no-cache로 보낸다.
+ *   브라우저는 매번 Last-Modified로 확인하고 바뀌지 않았으면 304를 받는다.
+ * - 빌드(processResources)에서 미리 만든 .br/.gz 파일을 Accept-Encoding에 맞춰 골라 보낸다. 실행 중에 압축하지 않는다.
+ * item.static-resources.enabled=false면 스프링 부트 기본 처리(해시/압축본 없음)로 돌아간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.static-resources.enabled", havingValue = "true", matchIfMissing = true)
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    @Value("${item.static-resources.max-age-days:365}")
+    private long maxAgeDays;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/css/**")
+                .addResourceLocations("classpath:/static/css/")
+                .setCacheControl(new ImmutableCacheControl(Duration.ofDays(maxAgeDays)))
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResourceUrlEncodingFilter> resourceUrlEncodingFilter() {
+        return new FilterRegistrationBean<>(new ResourceUrlEncodingFilter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<UnversionedCacheControlFilter> unversionedCacheControlFilter() {
+        FilterRegistrationBean<UnversionedCacheControlFilter> registration =
+                new FilterRegistrationBean<>(new UnversionedCacheControlFilter());
+        registration.addUrlPatterns("/css/*");
+        return registration;
+    }
+
+    /**
+     * 리소스 핸들러는 요청마다 다른 Cache-Control을 줄 수 없다. 주소에 내용 해시가 없으면
+     * 핸들러가 쓰는 Cache-Control(immutable)을 no-cache로 바꿔 쓴다.
+     */
+    static class UnversionedCacheControlFilter extends OncePerRequestFilter {
+
+        // VersionResourceResolver의 content 전략이 붙이는 모양. (이름-{md5}.확장자)
+        private static final Pattern FINGERPRINT = Pattern.compile("-[0-9a-f]{32}\\.[^/]*$");
+        private static final String NO_CACHE = CacheControl.noCache().getHeaderValue();
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            if (FINGERPRINT.matcher(request.getRequestURI()).find()) {
+                chain.doFilter(request, response);
+                return;
+            }
+            chain.doFilter(request, new HttpServletResponseWrapper(response) {
+                @Override
+                public void setHeader(String name, String value) {
+                    super.setHeader(name, HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) ? NO_CACHE : value);
+                }
+
+                @Override
+                public void addHeader(String name, String value) {
+                    super.addHeader(name, HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) ? NO_CACHE : value);
+                }
+            });
+        }
+    }
+
+    /**
+     * CacheControl에는 immutable 지시자가 없어서(스프링 5.3) 헤더 값을 직접 만든다.
+     */
+    static class ImmutableCacheControl extends CacheControl {
+
+        private final String headerValue;
+
+        ImmutableCacheControl(Duration maxAge) {
+            this.headerValue = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue() + ", immutable";
+        }
+
+        @Override
+        public String getHeaderValue() {
+            return headerValue;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package hello.itemservice.config;
+
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.stats.InventoryStats;
+import hello.itemservice.stats.InventoryStatsListener;
+import hello.itemservice.stats.InventoryStatsReconciler;
+import hello.itemservice.stats.InventoryTotals;
+import hello.itemservice.stats.JdbcInventoryTotalsQuery;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.util.function.Supplier;
+
+/**
+ * 재고 통계 빈 등록. ItemService가 발행하는 ItemChangedEvent로 유지하고, 주기적으로 저장소와 비교해 보정한다.
+ */
+@Configuration
+@EnableScheduling
+public class StatsConfig {
+
+    @Bean
+    public InventoryStats inventoryStats() {
+        return new InventoryStats();
+    }
+
+    @Bean
+    public InventoryStatsListener inventoryStatsListener() {
+        return new InventoryStatsListener(inventoryStats());
+    }
+
+    /**
+     * 메모리 모드는 DB 테이블이 아니라 메모리 저장소를 집계한다.
+     */
+    @Bean
+    public InventoryStatsReconciler inventoryStatsReconciler(ItemRepository itemRepository, DataSource dataSource) {
+        Supplier<InventoryTotals> source;
+        if (itemRepository instanceof ItemStreamer) {
+            ItemStreamer streamer = (ItemStreamer) itemRepository;
+            source = () -> {
+                InventoryStats scan = new InventoryStats();
+                streamer.stream(new ItemSearchCond(), item -> scan.apply(null, item));
+                return scan.snapshot();
+            };
+        } else {
+            source = new JdbcInventoryTotalsQuery(dataSource);
+        }
+        return new InventoryStatsReconciler(inventoryStats(), source);
+    }
+}
@@ -0,0 +1,27 @@
+package hello.itemservice.config;
+
+import hello.itemservice.trace.SqlTraceRecorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL 추적. 모든 SQL 실행 시간을 DataSource 단계에서 재고, 느린 SQL은 바인드 값과 실행 계획을 GET /admin/sql로 보여준다.
+ * SQL마다 로그를 남기는 대신 사용한다. item.sql-trace.enabled=false로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.sql-trace.enabled", havingValue = "true", matchIfMissing = true)
+public class TraceConfig {
+
+    /**
+     * JdbcListener라서 JdbcListenerConfig가 DataSource에 붙인다.
+     */
+    @Bean
+    public SqlTraceRecorder sqlTraceRecorder(@Value("${item.sql-trace.sample-rate:0.1}") double sampleRate,
+                                             @Value("${item.sql-trace.slow-threshold-millis:100}") long slowThresholdMillis,
+                                             @Value("${item.sql-trace.explain-threshold-millis:200}") long explainThresholdMillis,
+                                             @Value("${item.sql-trace.ring-size:200}") int ringSize) {
+        return new SqlTraceRecorder(sampleRate, slowThresholdMillis, explainThresholdMillis, ringSize);
+    }
+}
@@ -1,5 +1,6 @@
 package hello.itemservice.config;
 
+import hello.itemservice.projection.ItemProjector;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.jpa.JpaItemRepositoryV3;
 import hello.itemservice.repository.v2.ItemQueryRepositoryV2;
@@ -7,25 +8,29 @@ import hello.itemservice.repository.v2.ItemRepositoryV2;
 import hello.itemservice.service.ItemService;
 import hello.itemservice.service.ItemServiceV2;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.persistence.EntityManager;
 
 @Configuration
+@ConditionalOnProperty(name = "item.repository", havingValue = "v2", matchIfMissing = true)
 @RequiredArgsConstructor
 public class V2Config {
     private final ItemRepositoryV2 itemRepositoryV2; // SpringDataJPA가 구현 프록시 객체 만들어서 자동 주입.
     private final EntityManager em;
+    private final ObjectProvider<ItemProjector> itemProjector; // item.projection.enabled=true일 때만 있음. (ProjectionConfig)
 
     @Bean
     public ItemService itemService() {
-        return new ItemServiceV2(itemRepositoryV2, itemQueryRepositoryV2());
+        return new ItemServiceV2(itemRepositoryV2, itemQueryRepositoryV2(), em);
     }
 
     @Bean
     public ItemQueryRepositoryV2 itemQueryRepositoryV2() {
-        return new ItemQueryRepositoryV2(em);
+        return new ItemQueryRepositoryV2(em, itemProjector.getIfAvailable());
     }
 
     /*
@@ -0,0 +1,24 @@
+package hello.itemservice.connection;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * ItemService 메서드 호출 구간을 ConnectionHoldProfiler에 알린다. 그 사이 꺼낸 커넥션은 이 메서드 몫으로 센다.
+ */
+@RequiredArgsConstructor
+public class ConnectionHoldInterceptor implements MethodInterceptor {
+
+    private final ConnectionHoldProfiler profiler;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ConnectionHoldProfiler.Call call = profiler.begin(invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            profiler.end(call);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package hello.itemservice.connection;
+
+import hello.itemservice.service.ItemService;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 빈과 itemService 빈을 감싼다.
+ *
+ * - DataSource : LazyConnectionDataSourceProxy(InterceptingDataSource(원래 DataSource)).
+ *   트랜잭션 매니저가 받는 커넥션은 지연 프록시라서, 트랜잭션을 시작해도 첫 SQL 전까지 풀에서 커넥션을 꺼내지 않는다.
+ *   setAutoCommit, setReadOnly 같은 설정은 기억해 뒀다가 실제 커넥션을 꺼낼 때 적용하고, SQL 없이 끝난 트랜잭션의 commit은 건너뛴다.
+ *   점유 측정(ConnectionHoldProfiler)은 그 아래 InterceptingDataSource에 붙어 있으므로 실제로 풀에서 꺼낸 커넥션만 잰다.
+ * - itemService : ConnectionHoldInterceptor를 붙인 프록시. 트랜잭션 프록시와 CoalescingItemService보다 바깥이므로
+ *   합류한 조회처럼 DB에 가지 않은 호출은 커넥션 없이 끝난 호출로 잡힌다.
+ *
+ * 둘 다 가장 바깥에 있어야 하므로 순서를 가장 늦게(LOWEST_PRECEDENCE) 준다.
+ * InterceptingDataSourcePostProcessor, CoalescingItemServicePostProcessor는 이보다 앞 순서이고,
+ * 트랜잭션 프록시를 만드는 auto-proxy creator는 HIGHEST_PRECEDENCE라 항상 먼저다.
+ */
+public class ConnectionHoldPostProcessor implements BeanPostProcessor, Ordered {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    static final String ITEM_SERVICE = "itemService";
+
+    private final boolean lazyConnection;
+    private final ObjectProvider<ConnectionHoldProfiler> profiler;
+
+    public ConnectionHoldPostProcessor(boolean lazyConnection, ObjectProvider<ConnectionHoldProfiler> profiler) {
+        this.lazyConnection = lazyConnection;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (lazyConnection && bean instanceof DataSource && !(bean instanceof LazyConnectionDataSourceProxy)) {
+            return new LazyConnectionDataSourceProxy((DataSource) bean);
+        }
+        if (ITEM_SERVICE.equals(beanName) && bean instanceof ItemService) {
+            ConnectionHoldProfiler connectionHoldProfiler = profiler.getIfAvailable();
+            if (connectionHoldProfiler != null) {
+                ProxyFactory factory = new ProxyFactory();
+                factory.setTarget(bean);
+                factory.addInterface(ItemService.class);
+                factory.addAdvice(new ConnectionHoldInterceptor(connectionHoldProfiler));
+                return factory.getProxy();
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,166 @@
+package hello.itemservice.connection;
+
+import hello.itemservice.jdbc.JdbcListener;
+
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 서비스 메서드별로 물리 커넥션을 잡고 있던 시간과 그중 SQL을 실행한 시간을 모은다.
+ *
+ * - ItemService 호출은 ConnectionHoldInterceptor가 begin/end로 감싼다. 중첩 호출(update 안의 findById 등)은 바깥 메서드에 합친다.
+ * - 커넥션은 InterceptingDataSource가 풀에서 꺼낼 때부터 돌려줄 때까지를 잰다. (JdbcListener로 붙는다)
+ *   LazyConnectionDataSourceProxy 아래에 있으므로 트랜잭션 시작이 아니라 첫 SQL 시점부터다.
+ * - 서비스 호출 밖에서 꺼낸 커넥션(기동, 대량 적재 등)은 "(outside service)"로 모은다.
+ * - 전체 점유 시간 / 경과 시간 = 평균 사용 중 커넥션 수. 최대 동시 사용 수와 함께 풀 크기를 정하는 근거로 쓴다.
+ * - 진행 중인 Call, Hold는 메서드 이름만 들고 있다가 끝날 때 통계를 찾는다. reset()으로 통계를 비운 뒤에 끝난 호출도
+ *   버려진 예전 통계가 아니라 새 통계에 들어간다.
+ */
+public class ConnectionHoldProfiler implements JdbcListener {
+
+    static final String OUTSIDE_SERVICE = "(outside service)";
+
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final LongAdder holdNanos = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    /**
+     * 이미 서비스 호출 안이면 null. (바깥 호출에 합친다)
+     */
+    public Call begin(String method) {
+        if (current.get() != null) {
+            return null;
+        }
+        Call call = new Call(method, System.nanoTime());
+        current.set(call);
+        return call;
+    }
+
+    public void end(Call call) {
+        if (call == null) {
+            return;
+        }
+        current.remove();
+        stats(call.method).call(System.nanoTime() - call.startNanos, call.acquired);
+    }
+
+    @Override
+    public ConnectionListener acquired(long waitNanos) {
+        Call call = current.get();
+        String method;
+        if (call != null) {
+            call.acquired = true;
+            method = call.method;
+        } else {
+            method = OUTSIDE_SERVICE;
+        }
+        MethodStats stats = stats(method);
+        stats.acquisitions.increment();
+        stats.waitNanos.add(waitNanos);
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        return new Hold(method, System.nanoTime());
+    }
+
+    public ConnectionHoldReport report() {
+        double elapsedMillis = (System.nanoTime() - since) / 1_000_000.0;
+        List<ConnectionHoldReport.Method> rows = methods.entrySet().stream()
+                .map(entry -> entry.getValue().toReport(entry.getKey()))
+                .sorted(Comparator.comparingDouble(ConnectionHoldReport.Method::getTotalHoldMillis).reversed())
+                .collect(Collectors.toList());
+        return new ConnectionHoldReport(elapsedMillis / 1000.0,
+                elapsedMillis == 0 ? 0 : holdNanos.sum() / 1_000_000.0 / elapsedMillis,
+                peakInUse.get(), inUse.get(), rows);
+    }
+
+    public void reset() {
+        methods.clear();
+        holdNanos.reset();
+        peakInUse.set(inUse.get());
+        since = System.nanoTime();
+    }
+
+    private MethodStats stats(String method) {
+        return methods.computeIfAbsent(method, key -> new MethodStats());
+    }
+
+    public static class Call {
+
+        private final String method;
+        private final long startNanos;
+        private boolean acquired;
+
+        Call(String method, long startNanos) {
+            this.method = method;
+            this.startNanos = startNanos;
+        }
+    }
+
+    /**
+     * 꺼낸 커넥션 하나. SQL 실행 시간과 반환 시점을 받는다.
+     */
+    private class Hold implements ConnectionListener {
+
+        private final String method;
+        private final long startNanos;
+
+        Hold(String method, long startNanos) {
+            this.method = method;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void executed(Connection connection, String sql, Object[] binds, long nanos, boolean failed) {
+            stats(method).sqlNanos.add(nanos);
+        }
+
+        @Override
+        public void closed() {
+            long nanos = System.nanoTime() - startNanos;
+            inUse.decrementAndGet();
+            holdNanos.add(nanos);
+            stats(method).holdNanos.add(nanos);
+        }
+    }
+
+    static class MethodStats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder callsWithoutConnection = new LongAdder();
+        private final LongAdder callNanos = new LongAdder();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder holdNanos = new LongAdder();
+        private final LongAdder sqlNanos = new LongAdder();
+
+        void call(long nanos, boolean acquired) {
+            calls.increment();
+            callNanos.add(nanos);
+            if (!acquired) {
+                callsWithoutConnection.increment();
+            }
+        }
+
+        ConnectionHoldReport.Method toReport(String name) {
+            long count = calls.sum();
+            double holdMillis = holdNanos.sum() / 1_000_000.0;
+            double sqlMillis = sqlNanos.sum() / 1_000_000.0;
+            return new ConnectionHoldReport.Method(name, count, callsWithoutConnection.sum(), acquisitions.sum(),
+                    count == 0 ? 0 : callNanos.sum() / 1_000_000.0 / count,
+                    count == 0 ? 0 : holdMillis / count,
+                    count == 0 ? 0 : sqlMillis / count,
+                    count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count,
+                    holdMillis,
+                    sqlMillis,
+                    holdMillis == 0 ? 0 : sqlMillis / holdMillis);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package hello.itemservice.connection;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * GET /admin/connection-holds 응답. 시간은 밀리초.
+ * avgConnectionsInUse : 전체 점유 시간 / 경과 시간. 풀 크기가 이보다 작으면 대기가 생긴다.
+ * methods : 서비스 메서드별, 전체 점유 시간 순. avg*는 호출 한 번 기준.
+ * sqlShareOfHold가 낮으면 커넥션을 잡은 채 SQL 외의 일(결과 변환, 다른 호출 대기 등)을 오래 하고 있다는 뜻.
+ */
+@Data
+public class ConnectionHoldReport {
+
+    private final double elapsedSeconds;
+    private final double avgConnectionsInUse;
+    private final int peakConnectionsInUse;
+    private final int connectionsInUse;
+    private final List<Method> methods;
+
+    @Data
+    public static class Method {
+        private final String method;
+        private final long calls;
+        private final long callsWithoutConnection;
+        private final long acquisitions;
+        private final double avgCallMillis;
+        private final double avgHoldMillis;
+        private final double avgSqlMillis;
+        private final double avgWaitMillis;
+        private final double totalHoldMillis;
+        private final double totalSqlMillis;
+        private final double sqlShareOfHold;
+    }
+}
@@ -1,6 +1,8 @@
 package hello.itemservice.domain;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -9,8 +11,20 @@ import javax.persistence.*;
 //@Table(name = "item") // 매핑할 테이블 지정. 테이블 명이 객체 명과 동일할 때는 생략 가능.
 public class Item {
 
+    /*
+    IDENTITY 전략은 persist할 때마다 insert를 바로 실행해서 DB가 만든 id를 받아와야 하므로 JDBC insert 배치가 꺼진다.
+    시퀀스(item_seq)에서 id를 미리 받아두면 insert를 flush 시점까지 모았다가 batch_size개씩 묶어서 보낼 수 있다.
+    pooled-lo : 시퀀스 값 하나(v)를 받으면 v ~ v+49를 메모리에서 나눠 준다. 시퀀스 호출은 50건에 한 번.
+    increment_size는 schema.sql의 increment by와 같아야 한다.
+    JDBC, MyBatis insert는 id 컬럼의 default(next value for item_seq)로 값 하나를 받으므로 서로 겹치지 않는다.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @GenericGenerator(name = "item_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "item_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     /*
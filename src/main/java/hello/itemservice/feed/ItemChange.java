@@ -0,0 +1,17 @@
+package hello.itemservice.feed;
+
+import hello.itemservice.domain.Item;
+import lombok.Data;
+
+/**
+ * 변경 피드로 내보내는 상품 변경 한 건.
+ * sequence는 링 버퍼에 발행된 순번. 0부터 1씩 늘고, SSE 이벤트 id(Last-Event-ID)로 쓰인다.
+ * before는 새로 저장된 경우 null.
+ */
+@Data
+public class ItemChange {
+
+    private final long sequence;
+    private final Item before;
+    private final Item after;
+}
@@ -0,0 +1,134 @@
+package hello.itemservice.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 링 버퍼의 변경을 SSE 구독자에게 보낸다.
+ *
+ * - 구독자마다 스레드 하나가 자기 cursor로 링을 읽어 batchSize건씩 "items" 이벤트 하나로 보낸다. (이벤트 id = 마지막 순번)
+ *   느린 구독자는 자기 스레드만 붙잡고 있고, 다른 구독자와 쓰기 쪽에는 영향이 없다.
+ * - 한 바퀴 넘게 뒤처져서 덮어써진 만큼은 "overrun" 이벤트({"from", "lost"})로 알려 준다. 받은 쪽은 목록을 다시 읽어 맞추면 된다.
+ * - 새 변경이 없으면 pollMillis만큼 쉬고, heartbeatMillis마다 주석 한 줄을 보내 끊긴 연결을 정리한다.
+ * - 구독자 수는 maxSubscribers까지. 넘으면 subscribe()가 빈 값.
+ */
+@Slf4j
+public class ItemChangeFeed implements Closeable {
+
+    private final ItemChangeRing ring;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public ItemChangeFeed(ItemChangeRing ring, int batchSize, int maxSubscribers, long pollMillis,
+                          long heartbeatMillis, long timeoutMillis) {
+        this.ring = ring;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "item-change-feed-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * @param lastEventId 마지막으로 받은 이벤트 id(재접속 시 Last-Event-ID). 없으면 지금부터의 변경만 보낸다.
+     */
+    public Optional<SseEmitter> subscribe(Long lastEventId) {
+        long next = ring.nextSequence();
+        long from = lastEventId == null ? next : Math.min(lastEventId + 1, next);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(emitter, from);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        try {
+            executor.execute(subscription);
+        } catch (RejectedExecutionException e) {
+            return Optional.empty();
+        }
+        return Optional.of(emitter);
+    }
+
+    public int getSubscriberCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private class Subscription implements Runnable {
+
+        private final SseEmitter emitter;
+        private long cursor;
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter, long from) {
+            this.emitter = emitter;
+            this.cursor = from;
+        }
+
+        private void close() {
+            closed = true;
+        }
+
+        @Override
+        public void run() {
+            List<ItemChange> batch = new ArrayList<>(batchSize);
+            long lastSentMillis = System.currentTimeMillis();
+            try {
+                while (!closed && !Thread.currentThread().isInterrupted()) {
+                    batch.clear();
+                    long next = ring.read(cursor, batchSize, batch);
+                    long lost = next - cursor - batch.size();
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name("overrun")
+                                .data(Map.of("from", cursor, "lost", lost), MediaType.APPLICATION_JSON));
+                    }
+                    if (!batch.isEmpty()) {
+                        emitter.send(SseEmitter.event().id(String.valueOf(next - 1)).name("items")
+                                .data(batch, MediaType.APPLICATION_JSON));
+                    }
+                    if (next != cursor) {
+                        cursor = next;
+                        lastSentMillis = System.currentTimeMillis();
+                        continue;
+                    }
+                    if (System.currentTimeMillis() - lastSentMillis >= heartbeatMillis) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        lastSentMillis = System.currentTimeMillis();
+                    }
+                    Thread.sleep(pollMillis);
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 클라이언트가 끊었거나 이미 완료된 emitter
+                log.debug("item change subscriber closed cursor={}", cursor, e);
+            } catch (InterruptedException e) {
+                emitter.complete();
+            }
+        }
+    }
+}
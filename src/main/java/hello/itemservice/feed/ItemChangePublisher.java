@@ -0,0 +1,21 @@
+package hello.itemservice.feed;
+
+import hello.itemservice.service.ItemChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * ItemService가 발행하는 ItemChangedEvent를 링 버퍼에 넣는다.
+ * 커밋된 변경만 넣는다. fallbackExecution : 트랜잭션 밖에서 발행된 이벤트는 바로 넣음.
+ * 쓰는 스레드에서 실행되지만 칸 하나에 값만 바꾸므로 잠금이나 대기가 없다.
+ */
+@RequiredArgsConstructor
+public class ItemChangePublisher {
+
+    private final ItemChangeRing ring;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        ring.publish(event.getBefore(), event.getAfter());
+    }
+}
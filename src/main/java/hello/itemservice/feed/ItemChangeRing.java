@@ -0,0 +1,100 @@
+package hello.itemservice.feed;
+
+import hello.itemservice.domain.Item;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 변경 링 버퍼. (Disruptor 방식)
+ *
+ * - 칸은 생성할 때 전부 만들어 두고 계속 재사용한다. 쓰는 쪽은 순번을 하나 받아(getAndIncrement) 그 칸의 값만 바꾼다.
+ * - 쓰는 쪽은 읽는 쪽을 기다리지 않는다. 한 바퀴 넘게 뒤처진 독자의 변경은 덮어쓰고, 독자는 read()에서 그만큼 건너뛴 것을 알게 된다.
+ *   그래서 느린 구독자가 있어도 저장/수정은 느려지지 않는다.
+ * - 독자는 각자 cursor를 들고 있다가 read()로 연속으로 발행된 것만 한 번에 가져간다.
+ *
+ * 칸마다 writing(쓰기 시작한 순번)과 published(쓰기를 마친 순번)를 두고, 읽는 중에 writing이 바뀌면 덮어써진 것으로 본다.
+ * 필드가 전부 volatile이라 쓰기/읽기 순서가 그대로 보인다.
+ */
+public class ItemChangeRing {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    public ItemChangeRing(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("ring size must be a power of two: " + size);
+        }
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            // 아직 한 번도 안 쓴 칸은 "이전 바퀴"에 쓴 것처럼 둔다.
+            slots[i] = new Slot(i - size);
+        }
+    }
+
+    /**
+     * @return 발행한 변경의 순번
+     */
+    public long publish(Item before, Item after) {
+        long sequence = next.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.writing = sequence;
+        slot.before = before;
+        slot.after = after;
+        slot.published = sequence;
+        return sequence;
+    }
+
+    /**
+     * cursor부터 연속으로 발행된 변경을 최대 max건 batch에 담는다.
+     *
+     * @return 다음에 읽을 cursor. batch.size()만큼보다 더 나아갔다면 그 차이만큼은 덮어써져서 놓친 것이다.
+     * (놓친 경우 남아 있는 가장 오래된 쪽이 아니라 링의 절반 뒤로 건너뛴다. 바로 다시 따라잡히지 않도록)
+     */
+    public long read(long cursor, int max, List<ItemChange> batch) {
+        while (batch.size() < max) {
+            Slot slot = slots[(int) (cursor & mask)];
+            long published = slot.published;
+            if (published == cursor) {
+                Item before = slot.before;
+                Item after = slot.after;
+                if (slot.writing == cursor) {
+                    batch.add(new ItemChange(cursor, before, after));
+                    cursor++;
+                    continue;
+                }
+            } else if (published < cursor && slot.writing <= cursor) {
+                // 아직 발행 전(또는 쓰는 중)
+                return cursor;
+            }
+            // 다음 바퀴 변경이 이미 덮어썼다. 읽은 것부터 넘기고, 없으면 건너뛴다.
+            return batch.isEmpty() ? Math.max(cursor + 1, next.get() - slots.length / 2) : cursor;
+        }
+        return cursor;
+    }
+
+    /**
+     * 다음에 발행될 순번. 지금부터 구독하는 독자의 시작 cursor.
+     */
+    public long nextSequence() {
+        return next.get();
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    private static class Slot {
+        private volatile long writing;
+        private volatile long published;
+        private volatile Item before;
+        private volatile Item after;
+
+        private Slot(long initial) {
+            this.writing = initial;
+            this.published = initial;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package hello.itemservice.fragment;
+
+import lombok.Data;
+
+/**
+ * GET /admin/fragment-cache 응답.
+ * savedRenderMillis : 적중 수 x 평균 렌더링 시간. 캐시가 없었다면 더 들었을 렌더링 시간의 추정치.
+ */
+@Data
+public class FragmentCacheStats {
+
+    private final long maxBytes;
+    private final long bytes;
+    private final int entries;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final double hitRatio;
+    private final double avgRenderMicros;
+    private final double savedRenderMillis;
+}
@@ -0,0 +1,143 @@
+package hello.itemservice.fragment;
+
+import hello.itemservice.domain.Item;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 상품 하나를 그린 HTML 조각을 (조각 이름, 상품 id)마다 UTF-8 바이트로 담아 둔다.
+ *
+ * - 그릴 때의 상품 값(상품명, 가격, 수량)을 같이 저장하고, 꺼낼 때 지금 값과 다르면 다시 그린다.
+ *   변경 이벤트가 늦거나 빠져도 바뀐 상품이 예전 HTML로 나가지 않는다.
+ * - 변경 이벤트가 오면 그 상품의 조각을 바로 지운다. (메모리 회수)
+ * - 전체 크기를 maxBytes로 제한하고, 넘으면 가장 오래 안 쓴 조각부터 버린다. maxBytes가 0이면 담지 않고 매번 그린다.
+ * - 다시 그린 시간을 재서, 적중 한 번이 아낀 렌더링 시간을 평균 렌더링 시간으로 추정한다.
+ */
+public class ItemFragmentCache {
+
+    /**
+     * 키, 값, 맵 노드가 차지하는 대략적인 크기. HTML 바이트에 더해서 maxBytes와 비교한다.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<String> fragments = ConcurrentHashMap.newKeySet();
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+
+    public ItemFragmentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 담아 둔 조각이 지금 상품 값으로 그린 것이면 그대로, 아니면 renderer로 다시 그려서 담고 돌려준다.
+     * 그리는 동안에는 잠금을 잡지 않는다. 같은 조각을 동시에 그리면 마지막 것이 남는다.
+     */
+    public byte[] get(String fragment, Item item, Function<Item, String> renderer) {
+        Key key = new Key(fragment, item.getId());
+        Stamp stamp = Stamp.of(item);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.getStamp().equals(stamp)) {
+                hits.increment();
+                return entry.getHtml();
+            }
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        byte[] html = renderer.apply(item).getBytes(StandardCharsets.UTF_8);
+        renderNanos.add(System.nanoTime() - start);
+        if (maxBytes > 0) {
+            fragments.add(fragment);
+            put(key, new Entry(stamp, html));
+        }
+        return html;
+    }
+
+    public void evict(Long itemId) {
+        synchronized (this) {
+            for (String fragment : fragments) {
+                Entry removed = entries.remove(new Key(fragment, itemId));
+                if (removed != null) {
+                    bytes -= size(removed);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public FragmentCacheStats stats() {
+        int size;
+        long usedBytes;
+        synchronized (this) {
+            size = entries.size();
+            usedBytes = bytes;
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        double avgRenderNanos = missCount == 0 ? 0 : renderNanos.sum() / (double) missCount;
+        return new FragmentCacheStats(maxBytes, usedBytes, size, hitCount, missCount, evictions.sum(),
+                total == 0 ? 0 : hitCount / (double) total,
+                avgRenderNanos / 1_000.0,
+                hitCount * avgRenderNanos / 1_000_000.0);
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        bytes += size(entry) - (old == null ? 0 : size(old));
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= size(eldest.next().getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long size(Entry entry) {
+        return entry.getHtml().length + ENTRY_OVERHEAD;
+    }
+
+    @Value
+    private static class Key {
+        String fragment;
+        Long itemId;
+    }
+
+    /**
+     * 조각을 그릴 때 쓴 상품 값. id는 키에 있으므로 나머지만 비교한다.
+     */
+    @Value
+    private static class Stamp {
+        String itemName;
+        Integer price;
+        Integer quantity;
+
+        static Stamp of(Item item) {
+            return new Stamp(item.getItemName(), item.getPrice(), item.getQuantity());
+        }
+    }
+
+    @Value
+    private static class Entry {
+        Stamp stamp;
+        byte[] html;
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.fragment;
+
+import hello.itemservice.service.ItemChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 커밋된 변경의 상품 조각을 지운다. 지우지 않아도 값 비교로 다시 그려지지만, 예전 HTML이 메모리에 남지 않게 한다.
+ * fallbackExecution : 트랜잭션 밖에서 발행된 이벤트는 바로 반영.
+ */
+@RequiredArgsConstructor
+public class ItemFragmentCacheInvalidator {
+
+    private final ItemFragmentCache cache;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.getBefore() != null) {
+            cache.evict(event.getBefore().getId());
+        }
+    }
+}
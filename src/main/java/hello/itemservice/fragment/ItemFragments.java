@@ -0,0 +1,73 @@
+package hello.itemservice.fragment;
+
+import hello.itemservice.domain.Item;
+import lombok.RequiredArgsConstructor;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 상품 상세, 수정 폼, 목록 한 줄을 templates/fragments/item.html의 조각으로 그리고 ItemFragmentCache에 담아 재사용한다.
+ * 페이지 틀(item.html, editForm.html, items.html)은 매번 그리고, 조각은 th:utext로 끼워 넣는다.
+ * 조각은 상품 값만으로 그려야 한다. 검색 조건, status 파라미터처럼 요청마다 달라지는 값은 페이지 틀에 둔다.
+ */
+@RequiredArgsConstructor
+public class ItemFragments {
+
+    private static final String TEMPLATE = "fragments/item";
+
+    private final ITemplateEngine templateEngine;
+    private final ItemFragmentCache cache;
+
+    public String detail(Item item, HttpServletRequest request, HttpServletResponse response) {
+        return new String(fragment("detail", item, request, response), StandardCharsets.UTF_8);
+    }
+
+    public String editForm(Item item, HttpServletRequest request, HttpServletResponse response) {
+        return new String(fragment("editForm", item, request, response), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 목록의 tr들을 이어 붙인다. 문자열 변환은 페이지당 한 번.
+     */
+    public String rows(List<Item> items, HttpServletRequest request, HttpServletResponse response) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(items.size() * 256);
+        for (Item item : items) {
+            out.writeBytes(fragment("row", item, request, response));
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private byte[] fragment(String name, Item item, HttpServletRequest request, HttpServletResponse response) {
+        return cache.get(name, item, target -> render(name, target, request, response));
+    }
+
+    private String render(String name, Item item, HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(request, new NoUrlRewritingResponse(response), request.getServletContext(),
+                request.getLocale());
+        context.setVariable("item", item);
+        return templateEngine.process(TEMPLATE, Set.of(name), context);
+    }
+
+    /**
+     * 링크(@{...})에 세션 id(;jsessionid=) 같은 요청마다 다른 값이 붙으면 다른 사용자에게 그대로 나가므로 encodeURL을 막는다.
+     */
+    private static class NoUrlRewritingResponse extends HttpServletResponseWrapper {
+
+        NoUrlRewritingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+    }
+}
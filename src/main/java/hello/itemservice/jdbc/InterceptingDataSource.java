@@ -0,0 +1,193 @@
+package hello.itemservice.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connection, Statement를 프록시로 한 번만 감싸서 커넥션 획득/반환과 execute* 호출 시간을 JdbcListener들에 넘긴다.
+ * JdbcTemplate, MyBatis, 하이버네이트 모두 결국 DataSource에서 커넥션을 얻으므로 여기 한 곳에서 전부 잡힌다.
+ *
+ * - 리스너마다 DataSource를 따로 감싸면 Statement가 겹겹이 프록시가 되고 시간도 리스너 수만큼 따로 재므로, 한 번 재서 나눠 준다.
+ * - PreparedStatement의 set*(index, value) 호출은 바인드 값으로 기억해 둔다. (배치는 마지막 행의 값)
+ * - 잰 시간은 execute 호출까지이고, 이후 ResultSet을 읽는 시간은 포함되지 않는다. (커넥션 점유 시간에는 들어감)
+ */
+public class InterceptingDataSource extends DelegatingDataSource {
+
+    private final List<JdbcListener> listeners;
+
+    public InterceptingDataSource(DataSource targetDataSource, List<JdbcListener> listeners) {
+        super(targetDataSource);
+        this.listeners = List.copyOf(listeners);
+    }
+
+    public List<JdbcListener> getListeners() {
+        return listeners;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        return proxy(Connection.class, new ConnectionHandler(connection, acquired(System.nanoTime() - start)));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return proxy(Connection.class, new ConnectionHandler(connection, acquired(System.nanoTime() - start)));
+    }
+
+    private JdbcListener.ConnectionListener[] acquired(long waitNanos) {
+        List<JdbcListener.ConnectionListener> connectionListeners = new ArrayList<>(listeners.size());
+        for (JdbcListener listener : listeners) {
+            JdbcListener.ConnectionListener connectionListener = listener.acquired(waitNanos);
+            if (connectionListener != null) {
+                connectionListeners.add(connectionListener);
+            }
+        }
+        return connectionListeners.toArray(new JdbcListener.ConnectionListener[0]);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InterceptingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 프록시끼리의 equals/hashCode는 프록시 자신 기준. (스프링이 트랜잭션 커넥션을 비교할 때 사용)
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName())) {
+            return proxy == args[0];
+        }
+        return System.identityHashCode(proxy);
+    }
+
+    private static boolean isIdentityMethod(Method method) {
+        return ("equals".equals(method.getName()) && method.getParameterCount() == 1)
+                || ("hashCode".equals(method.getName()) && method.getParameterCount() == 0);
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final JdbcListener.ConnectionListener[] listeners;
+        private boolean closed;
+
+        ConnectionHandler(Connection target, JdbcListener.ConnectionListener[] listeners) {
+            this.target = target;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            if ("close".equals(method.getName())) {
+                // 두 번 닫아도 한 번만 알린다.
+                if (!closed) {
+                    closed = true;
+                    for (JdbcListener.ConnectionListener listener : listeners) {
+                        listener.closed();
+                    }
+                }
+                return InterceptingDataSource.invoke(target, method, args);
+            }
+            Object result = InterceptingDataSource.invoke(target, method, args);
+            if (listeners.length == 0) {
+                return result;
+            }
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result, this, (Connection) proxy, (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result, this, (Connection) proxy, (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, this, (Connection) proxy, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final ConnectionHandler connectionHandler;
+        private final Connection connection;
+        private final String sql;
+        private Object[] binds;
+
+        StatementHandler(Statement target, ConnectionHandler connectionHandler, Connection connection, String sql) {
+            this.target = target;
+            this.connectionHandler = connectionHandler;
+            this.connection = connection;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if (name.startsWith("execute")) {
+                // Statement.execute(sql)는 SQL을 인자로 받고, PreparedStatement.execute()는 생성할 때의 SQL
+                boolean sqlArgument = args != null && args.length > 0 && args[0] instanceof String;
+                String executed = sqlArgument ? (String) args[0] : sql;
+                long start = System.nanoTime();
+                boolean failed = true;
+                try {
+                    Object result = InterceptingDataSource.invoke(target, method, args);
+                    failed = false;
+                    return result;
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    for (JdbcListener.ConnectionListener listener : connectionHandler.listeners) {
+                        listener.executed(connectionHandler.target, executed, sqlArgument ? null : binds, nanos, failed);
+                    }
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                binds = null;
+            }
+            return InterceptingDataSource.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (binds == null) {
+                binds = new Object[Math.max(index, 4)];
+            } else if (binds.length < index) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package hello.itemservice.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 스프링 부트가 만든 DataSource 빈을 InterceptingDataSource로 감싸고, 등록된 JdbcListener 빈을 모두 붙인다.
+ * 빈 자체를 바꾸기 때문에 트랜잭션 매니저, JdbcTemplate, MyBatis, JPA가 모두 감싼 DataSource를 쓰게 된다.
+ * 리스너가 하나도 없으면(SQL 추적, 점유 측정 모두 끔) 감싸지 않는다.
+ *
+ * ConnectionHoldPostProcessor가 그 바깥을 LazyConnectionDataSourceProxy로 감싸야 하므로 먼저 실행된다. (ORDER)
+ */
+public class InterceptingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 2;
+
+    private final ObjectProvider<JdbcListener> listeners;
+
+    public InterceptingDataSourcePostProcessor(ObjectProvider<JdbcListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof InterceptingDataSource)) {
+            List<JdbcListener> found = listeners.orderedStream().collect(Collectors.toList());
+            if (!found.isEmpty()) {
+                return new InterceptingDataSource((DataSource) bean, found);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,36 @@
+package hello.itemservice.jdbc;
+
+import java.sql.Connection;
+
+/**
+ * InterceptingDataSource가 잡은 JDBC 호출을 받는 쪽. (SQL 추적, 커넥션 점유 측정)
+ * 빈으로 등록하면 InterceptingDataSourcePostProcessor가 DataSource에 붙인다.
+ */
+public interface JdbcListener {
+
+    /**
+     * 풀에서 커넥션을 꺼낼 때마다 호출된다.
+     *
+     * @param waitNanos getConnection에 걸린 시간 (풀 대기)
+     * @return 이 커넥션의 SQL 실행과 close를 받을 리스너. 필요 없으면 null
+     */
+    ConnectionListener acquired(long waitNanos);
+
+    interface ConnectionListener {
+
+        /**
+         * Statement의 execute* 호출이 끝났을 때. (예외로 끝난 경우 failed)
+         *
+         * @param connection 풀에서 꺼낸 원래 커넥션. (프록시가 아니므로 여기서 실행한 SQL은 다시 잡히지 않는다)
+         * @param binds      PreparedStatement에 set*로 넣은 값. Statement.execute(sql)처럼 SQL을 직접 넘기면 null
+         */
+        default void executed(Connection connection, String sql, Object[] binds, long nanos, boolean failed) {
+        }
+
+        /**
+         * 커넥션을 풀에 돌려줄 때. 두 번 닫아도 한 번만 호출된다.
+         */
+        default void closed() {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package hello.itemservice.limit;
+
+import hello.itemservice.web.ItemController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * ItemController 요청을 검색/상세/쓰기로 나눠 각각의 GradientConcurrencyLimiter로 제한한다.
+ * 한도를 넘은 요청은 컨트롤러까지 가지 않고 바로 503 + Retry-After. (스레드를 붙잡고 줄 서지 않게)
+ * 처리 시간은 컨트롤러 + 뷰 렌더링까지. (afterCompletion)
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    public enum Group {
+        SEARCH, DETAIL, WRITE
+    }
+
+    private static final String START = ConcurrencyLimitInterceptor.class.getName() + ".start";
+    private static final String LIMITER = ConcurrencyLimitInterceptor.class.getName() + ".limiter";
+
+    private final Map<Group, GradientConcurrencyLimiter> limiters = new EnumMap<>(Group.class);
+
+    public ConcurrencyLimitInterceptor(int initialLimit, int minLimit, int maxLimit) {
+        for (Group group : Group.values()) {
+            limiters.put(group, new GradientConcurrencyLimiter(group.name().toLowerCase(), initialLimit, minLimit, maxLimit));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Group group = group(request, handler);
+        if (group == null) {
+            return true;
+        }
+        GradientConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+        request.setAttribute(LIMITER, limiter);
+        request.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        GradientConcurrencyLimiter limiter = (GradientConcurrencyLimiter) request.getAttribute(LIMITER);
+        if (limiter != null) {
+            request.removeAttribute(LIMITER);
+            limiter.release(System.nanoTime() - (long) request.getAttribute(START));
+        }
+    }
+
+    public List<ConcurrencyLimitSnapshot> snapshots() {
+        return limiters.values().stream()
+                .map(GradientConcurrencyLimiter::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * POST는 쓰기, 목록(items)은 검색, 나머지 GET(상세, 등록/수정 폼)은 상세. ItemController가 아니면 null(제한 없음)
+     */
+    static Group group(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod) || ((HandlerMethod) handler).getBeanType() != ItemController.class) {
+            return null;
+        }
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            return Group.WRITE;
+        }
+        return "items".equals(((HandlerMethod) handler).getMethod().getName()) ? Group.SEARCH : Group.DETAIL;
+    }
+}
@@ -0,0 +1,18 @@
+package hello.itemservice.limit;
+
+import lombok.Data;
+
+/**
+ * GET /admin/concurrency-limits 응답 한 줄. rtt는 밀리초.
+ */
+@Data
+public class ConcurrencyLimitSnapshot {
+
+    private final String name;
+    private final int limit;
+    private final int inFlight;
+    private final double shortRttMillis;
+    private final double longRttMillis;
+    private final long accepted;
+    private final long rejected;
+}
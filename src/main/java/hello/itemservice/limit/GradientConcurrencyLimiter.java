@@ -0,0 +1,101 @@
+package hello.itemservice.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 시간으로 동시 처리 한도를 조절하는 제한기. (gradient 방식, Netflix concurrency-limits의 Gradient2와 같은 식)
+ *
+ * - shortRtt : 최근 응답 시간의 지수 이동 평균(짧은 창). longRtt : 긴 창의 평균. 평소 응답 시간의 기준선.
+ * - gradient = clamp(tolerance * longRtt / shortRtt, 0.5, 1). 최근 응답이 평소보다 tolerance배 넘게 느려지면 1보다 작아진다.
+ * - newLimit = limit * gradient + sqrt(limit). 느려지면 줄고, 괜찮으면 sqrt(limit)만큼씩 늘어난다. smoothing 비율로 섞어서 반영.
+ * - 한도의 절반도 안 쓰고 있을 때(요청이 적어서 빠른 것)는 늘리지 않는다.
+ * - 느린 상태가 오래 가면 longRtt도 따라 올라가는데, longRtt가 shortRtt의 두 배를 넘으면(회복됨) 빨리 내려서 다시 늘어날 수 있게 한다.
+ *
+ * 한도만큼 처리 중이면 tryAcquire()가 바로 false. 기다리게 하지 않는다.
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public GradientConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("invalid limits: initial=" + initialLimit + " min=" + minLimit + " max=" + maxLimit);
+        }
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return false면 한도 초과. true면 처리가 끝난 뒤 반드시 release()를 불러야 한다.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos 요청 처리에 걸린 시간
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        onSample(rttNanos, current);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtRelease) {
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * 2 / (SHORT_WINDOW + 1);
+        longRttNanos += (shortRttNanos - longRttNanos) * 2 / (LONG_WINDOW + 1);
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        double current = limit;
+        if (inFlightAtRelease < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public synchronized ConcurrencyLimitSnapshot snapshot() {
+        return new ConcurrencyLimitSnapshot(name, (int) limit, inFlight.get(),
+                shortRttNanos / TimeUnit.MILLISECONDS.toNanos(1), longRttNanos / TimeUnit.MILLISECONDS.toNanos(1),
+                accepted.sum(), rejected.sum());
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+}
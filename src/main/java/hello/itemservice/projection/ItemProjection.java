@@ -0,0 +1,110 @@
+package hello.itemservice.projection;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.springframework.util.StringUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 상품 검색용 읽기 모델. (메모리)
+ *
+ * - 상품을 가격 구간(ItemProjectionRow.priceBucket)별로 나눠 둔다. maxPrice 조건은 상한보다 아래 구간만 훑고,
+ *   상한이 들어 있는 구간만 가격을 하나씩 비교한다.
+ * - 상품명 조건은 item 테이블 검색(LIKE '%x%')과 같은 결과가 나오도록 대소문자를 구분해서 포함 여부만 본다.
+ * - 정렬, limit은 ItemSortKey 순서 그대로. (값이 같으면 id 순)
+ *
+ * 쓰기는 ItemProjector 스레드 하나만 한다. 상품을 옮길 때 지우고 나서 넣으므로, 읽는 쪽은 옮기는 중인 상품을 잠깐 못 볼 수는 있어도
+ * 두 번 보지는 않는다.
+ */
+public class ItemProjection {
+
+    private volatile Tables tables = new Tables();
+
+    public List<Item> findAll(ItemSearchCond cond) {
+        Stream<ItemProjectionRow> rows = rows(tables, cond.getMaxPrice());
+        String itemName = cond.getItemName();
+        if (StringUtils.hasText(itemName)) {
+            rows = rows.filter(row -> row.getItemName() != null && row.getItemName().contains(itemName));
+        }
+        Stream<Item> items = rows.map(ItemProjectionRow::toItem);
+        ItemSortKey sort = cond.getSortOrDefault();
+        if (sort == null) {
+            return items.collect(Collectors.toList());
+        }
+        Comparator<Item> comparator = sort.comparator(cond.isDesc());
+        if (cond.getLimit() == null) {
+            return items.sorted(comparator).collect(Collectors.toList());
+        }
+        return MemoryItemRepository.topK(items, comparator, cond.getLimit());
+    }
+
+    /**
+     * @param item 현재 상태. 없어진 상품이면 null
+     */
+    void apply(Long id, Item item) {
+        Tables current = tables;
+        current.remove(id);
+        if (item != null) {
+            current.put(new ItemProjectionRow(item));
+        }
+    }
+
+    /**
+     * 새 테이블을 다 채운 뒤에 바꿔 끼운다. 그동안 읽는 쪽은 이전 테이블을 본다.
+     */
+    void rebuild(ItemStreamer streamer) {
+        Tables rebuilt = new Tables();
+        streamer.stream(new ItemSearchCond(), item -> rebuilt.put(new ItemProjectionRow(item)));
+        tables = rebuilt;
+    }
+
+    public int size() {
+        return tables.byId.size();
+    }
+
+    private static Stream<ItemProjectionRow> rows(Tables tables, Integer maxPrice) {
+        if (maxPrice == null) {
+            return tables.byId.values().stream();
+        }
+        int boundary = ItemProjectionRow.bucket(maxPrice);
+        return tables.byPrice.headMap(boundary, true).entrySet().stream()
+                .flatMap(bucket -> bucket.getKey() < boundary
+                        ? bucket.getValue().values().stream()
+                        : bucket.getValue().values().stream().filter(row -> row.getPrice() <= maxPrice));
+    }
+
+    private static class Tables {
+
+        private final Map<Long, ItemProjectionRow> byId = new ConcurrentHashMap<>();
+        // 가격이 없는 상품은 byId에만 둔다. (price <= maxPrice에 걸리지 않음)
+        private final ConcurrentNavigableMap<Integer, Map<Long, ItemProjectionRow>> byPrice = new ConcurrentSkipListMap<>();
+
+        private void put(ItemProjectionRow row) {
+            if (row.getPrice() != null) {
+                byPrice.computeIfAbsent(row.getPriceBucket(), bucket -> new ConcurrentHashMap<>()).put(row.getId(), row);
+            }
+            byId.put(row.getId(), row);
+        }
+
+        private void remove(Long id) {
+            ItemProjectionRow row = byId.remove(id);
+            if (row != null && row.getPrice() != null) {
+                Map<Long, ItemProjectionRow> bucket = byPrice.get(row.getPriceBucket());
+                if (bucket != null) {
+                    bucket.remove(id);
+                }
+            }
+        }
+    }
+}
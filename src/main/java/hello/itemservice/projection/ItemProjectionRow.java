@@ -0,0 +1,47 @@
+package hello.itemservice.projection;
+
+import hello.itemservice.domain.Item;
+import lombok.Getter;
+
+/**
+ * 읽기 모델의 상품 한 건. 바뀌면 새로 만들어 갈아 끼운다. (불변)
+ * priceBucket은 가격을 유효숫자 두 자리로 내린 값. ex) 12,345 -> 12,000 / 980 -> 980 / 50 -> 50
+ */
+@Getter
+public class ItemProjectionRow {
+
+    private final Long id;
+    private final String itemName;
+    private final Integer price;
+    private final Integer quantity;
+    private final int priceBucket;
+
+    public ItemProjectionRow(Item item) {
+        this.id = item.getId();
+        this.itemName = item.getItemName();
+        this.price = item.getPrice();
+        this.quantity = item.getQuantity();
+        this.priceBucket = price == null ? 0 : bucket(price);
+    }
+
+    public Item toItem() {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        return item;
+    }
+
+    /**
+     * 가격이 커질수록 구간도 넓어진다. (100 미만은 가격 그대로)
+     * 가격 순서를 그대로 지키므로 bucket(p) < bucket(maxPrice)면 p <= maxPrice.
+     */
+    static int bucket(int price) {
+        if (price < 100) {
+            return price;
+        }
+        int magnitude = 1;
+        while (price / magnitude >= 100) {
+            magnitude *= 10;
+        }
+        return price / magnitude * magnitude;
+    }
+}
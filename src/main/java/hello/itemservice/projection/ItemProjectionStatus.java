@@ -0,0 +1,22 @@
+package hello.itemservice.projection;
+
+import lombok.Data;
+
+/**
+ * GET /admin/projection 응답.
+ * appliedSequence : 다음에 반영할 변경 순번. publishedSequence - appliedSequence = 아직 반영 못 한 변경 수(pending)
+ */
+@Data
+public class ItemProjectionStatus {
+
+    private final boolean ready;
+    private final boolean fresh;
+    private final int rows;
+    private final long appliedSequence;
+    private final long publishedSequence;
+    private final long pending;
+    private final long lagMillis;
+    private final long maxLagMillis;
+    private final long appliedChanges;
+    private final long rebuilds;
+}
@@ -0,0 +1,182 @@
+package hello.itemservice.projection;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.feed.ItemChange;
+import hello.itemservice.feed.ItemChangeRing;
+import hello.itemservice.repository.ItemStreamer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 커밋된 변경을 읽기 모델(ItemProjection)에 반영하는 스레드.
+ *
+ * - 상품 변경 링 버퍼(ItemChangeRing)를 batchSize건씩 읽는다. 쓰는 쪽과는 링으로만 연결되어 있어 쓰기를 늦추지 않는다.
+ * - 변경 이벤트의 값을 그대로 쓰지 않고, 바뀐 id들을 loader(in 조회 한 번)로 다시 읽어서 넣는다.
+ *   커밋 순서와 이벤트 발행 순서가 어긋나도(같은 상품을 두 트랜잭션이 연달아 수정) 마지막에는 DB와 같아진다.
+ * - 기동 시, 그리고 링을 한 바퀴 넘게 놓쳤을 때는 저장소 전체를 다시 읽어 새로 만든다.
+ *
+ * 지연(lag) : 아직 반영하지 못한 변경이 있으면 마지막으로 다 따라잡았던 시점부터 지난 시간. 없으면 0.
+ *   "따라잡았다"는 읽기 직전에 발행되어 있던 순번까지 반영했다는 뜻이고, 그 시점은 읽기 직전 시각이다.
+ *   쓰기가 끊이지 않아 링이 비는 순간이 없어도 배치마다 갱신되므로, 따라가고 있는 동안 지연은 배치 하나를 반영하는 시간 정도다.
+ * 읽는 쪽은 isFresh()가 false면(아직 첫 적재 전이거나 maxLagMillis보다 뒤처짐) item 테이블을 직접 읽는다.
+ */
+@Slf4j
+public class ItemProjector implements Closeable {
+
+    private final ItemChangeRing ring;
+    private final ItemProjection projection;
+    private final ItemStreamer streamer;
+    private final Function<List<Long>, List<Item>> loader;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long maxLagMillis;
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong appliedChanges = new AtomicLong();
+    private volatile long cursor;
+    private volatile boolean ready;
+    private volatile long caughtUpAt = System.currentTimeMillis();
+    private Thread thread;
+
+    public ItemProjector(ItemChangeRing ring, ItemProjection projection, ItemStreamer streamer,
+                         Function<List<Long>, List<Item>> loader, int batchSize, long pollMillis, long maxLagMillis) {
+        this.ring = ring;
+        this.projection = projection;
+        this.streamer = streamer;
+        this.loader = loader;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "item-projector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public ItemProjection getProjection() {
+        return projection;
+    }
+
+    public boolean isFresh() {
+        return ready && getLagMillis() <= maxLagMillis;
+    }
+
+    public long getLagMillis() {
+        if (ring.nextSequence() <= cursor) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - caughtUpAt);
+    }
+
+    public ItemProjectionStatus status() {
+        long published = ring.nextSequence();
+        return new ItemProjectionStatus(ready, isFresh(), projection.size(), cursor, published,
+                Math.max(0, published - cursor), getLagMillis(), maxLagMillis, appliedChanges.get(), rebuilds.get());
+    }
+
+    @Override
+    public void close() {
+        Thread running;
+        synchronized (this) {
+            running = thread;
+        }
+        if (running == null) {
+            return;
+        }
+        running.interrupt();
+        try {
+            running.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<ItemChange> batch = new ArrayList<>(batchSize);
+        boolean rebuild = true;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (rebuild) {
+                    rebuild();
+                    rebuild = false;
+                }
+                batch.clear();
+                long readAt = System.currentTimeMillis();
+                long published = ring.nextSequence();
+                long next = ring.read(cursor, batchSize, batch);
+                if (next - cursor > batch.size()) {
+                    log.warn("item projector fell behind the change ring, rebuilding lost={}", next - cursor - batch.size());
+                    rebuild = true;
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    caughtUpAt = readAt;
+                    Thread.sleep(pollMillis);
+                    continue;
+                }
+                apply(batch);
+                cursor = next;
+                if (next >= published) {
+                    caughtUpAt = readAt;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // DB 오류 등. cursor를 그대로 두고 다시 시도한다. 그동안 지연이 늘어 읽기는 테이블로 넘어간다.
+                log.warn("item projector failed, retrying", e);
+                try {
+                    Thread.sleep(Math.max(pollMillis, 1000));
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 새로 읽기 시작하는 시점(cursor)을 먼저 잡고 전체를 읽는다. 읽는 동안 들어온 변경은 그 뒤에 다시 반영되므로 빠지지 않는다.
+     */
+    private void rebuild() {
+        long start = System.nanoTime();
+        long startedAt = System.currentTimeMillis();
+        cursor = ring.nextSequence();
+        projection.rebuild(streamer);
+        caughtUpAt = startedAt;
+        ready = true;
+        rebuilds.incrementAndGet();
+        log.info("item projection built rows={} elapsed={}ms", projection.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void apply(List<ItemChange> batch) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (ItemChange change : batch) {
+            ids.add(change.getAfter().getId());
+        }
+        Map<Long, Item> current = new HashMap<>();
+        for (Item item : loader.apply(new ArrayList<>(ids))) {
+            current.put(item.getId(), item);
+        }
+        for (Long id : ids) {
+            projection.apply(id, current.get(id));
+        }
+        appliedChanges.addAndGet(batch.size());
+    }
+}
@@ -9,10 +9,32 @@ public interface ItemRepository {
 
     Item save(Item item);
 
-    void update(Long itemId, ItemUpdateDto updateParam);
+    /**
+     * 수정하고 수정 전 값을 돌려준다. 변경 이벤트를 만들려고 수정 전에 따로 조회하지 않도록.
+     * 없는 id면 빈 Optional을 돌려주거나 예외를 던진다. (구현마다 다름)
+     */
+    Optional<Item> update(Long itemId, ItemUpdateDto updateParam);
 
     Optional<Item> findById(Long id);
 
     List<Item> findAll(ItemSearchCond cond);
 
+    /**
+     * id 목록에 해당하는 상품을 in 조회 한 번으로 가져온다. 없는 id는 빠지고, 순서는 보장하지 않는다.
+     */
+    List<Item> findAllById(List<Long> ids);
+
+    /**
+     * 재고가 amount 이상일 때만 amount만큼 줄인다. 조회 후 계산해서 update하지 않고 한 번에 조건부로 처리하므로
+     * 동시에 여러 주문이 들어와도 재고가 음수가 되거나 차감이 유실되지 않는다.
+     */
+    StockReservation reserveStock(Long itemId, int amount);
+
+    /**
+     * 있으면 덮어쓰고 없으면 저장한다. id가 없는 상품은 새로 저장하고 생성된 id를 채운다.
+     * 건마다 findById 후 save/update하지 않고, 기존 id 조회 한 번과 일괄 쓰기로 처리한다.
+     * 같은 id가 여러 번 있으면 마지막 것만 반영한다.
+     */
+    ItemUpsertResult upsertAll(List<Item> items);
+
 }
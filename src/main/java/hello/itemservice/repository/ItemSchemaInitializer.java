@@ -0,0 +1,54 @@
+package hello.itemservice.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * item 테이블이 없을 때만 schema.sql을 실행한다.
+ * schema.sql은 테이블과 시퀀스를 지우고 다시 만들기 때문에, 파일 DB에서 기동할 때마다 실행하면 데이터가 사라진다.
+ * DataSourceScriptDatabaseInitializer를 상속하면 스프링 부트가 JPA, JdbcTemplate 빈보다 먼저 초기화되도록 순서를 잡아 준다.
+ */
+@Slf4j
+public class ItemSchemaInitializer extends DataSourceScriptDatabaseInitializer {
+
+    private final DataSource dataSource;
+
+    public ItemSchemaInitializer(DataSource dataSource, String schemaLocation) {
+        super(dataSource, settings(schemaLocation));
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        if (itemTableExists()) {
+            log.info("item table exists, skipping schema initialization");
+            return false;
+        }
+        log.info("item table not found, running schema script");
+        return super.initializeDatabase();
+    }
+
+    private boolean itemTableExists() {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData().getTables(null, null, "ITEM", new String[]{"TABLE"})) {
+            return tables.next();
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to read table metadata", e);
+        }
+    }
+
+    private static DatabaseInitializationSettings settings(String schemaLocation) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of(schemaLocation));
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        return settings;
+    }
+}
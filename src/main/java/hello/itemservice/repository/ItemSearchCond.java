@@ -2,12 +2,21 @@ package hello.itemservice.repository;
 
 import lombok.Data;
 
+/**
+ * sort, desc, limit : 정렬해서 앞에서부터 limit건만 조회. ex) 가격 낮은 순 20건 -> sort=PRICE, limit=20
+ * 셋 다 비워두면 예전처럼 정렬 없이 조건에 맞는 전체를 반환한다.
+ * limit은 1 이상이어야 한다. 요청에서 받는 값은 ItemController가 검사한다.
+ */
 @Data
 public class ItemSearchCond {
 
     private String itemName;
     private Integer maxPrice;
 
+    private ItemSortKey sort;
+    private boolean desc;
+    private Integer limit;
+
     public ItemSearchCond() {
     }
 
@@ -15,4 +24,22 @@ public class ItemSearchCond {
         this.itemName = itemName;
         this.maxPrice = maxPrice;
     }
+
+    public ItemSearchCond(String itemName, Integer maxPrice, ItemSortKey sort, boolean desc, Integer limit) {
+        this(itemName, maxPrice);
+        this.sort = sort;
+        this.desc = desc;
+        this.limit = limit;
+    }
+
+    /**
+     * limit만 지정한 경우 어떤 limit건이 나올지 정해지도록 id 순으로 자른다.
+     * 정렬이 필요 없으면 null.
+     */
+    public ItemSortKey getSortOrDefault() {
+        if (sort != null) {
+            return sort;
+        }
+        return limit != null ? ItemSortKey.ID : null;
+    }
 }
@@ -0,0 +1,111 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * upsertAll이 외부에서 정한 id로 insert해도 item_seq는 움직이지 않는다.
+ * 그대로 두면 나중에 save가 시퀀스에서 같은 id를 받아 기본키 충돌이 나므로,
+ * 명시적인 id를 쓴 뒤에는 시퀀스 다음 값이 max(id)보다 커지도록 앞으로 당긴다. (뒤로 돌리지는 않는다)
+ * <p>
+ * - 재시작 값은 1 + 50k 꼴로 맞춘다. Item의 pooled-lo는 시퀀스 값 v를 v ~ v+49 블록으로 쓰므로 블록 경계를 유지한다.
+ * - H2의 ALTER SEQUENCE는 트랜잭션을 커밋하지 않고, 바뀐 값은 다른 트랜잭션에도 바로 보이며 롤백해도 돌아가지 않는다. (id가 비는 것뿐)
+ * - 조회와 변경 사이에 다른 스레드가 더 작은 값으로 되돌리지 않도록 synchronized. (DB를 쓰는 애플리케이션은 하나라고 가정)
+ * - Hibernate가 이미 받아서 메모리에 들고 있는 블록 안의 id를 외부에서 넣는 것까지는 막지 못한다.
+ * <p>
+ * id 없이 들어온 상품을 upsertAll로 묶어 쓸 때는 assignIds로 시퀀스에서 id 블록을 미리 받아 채운다.
+ * 그러면 새 상품도 id가 있는 상품과 같은 MERGE 배치에 실어 보낼 수 있다. (행마다 insert + 생성 키 조회를 하지 않음)
+ */
+public final class ItemSequence {
+
+    /**
+     * schema.sql의 increment by, Item의 increment_size와 같아야 한다.
+     */
+    public static final int INCREMENT_SIZE = 50;
+
+    /**
+     * 마지막으로 발급한 값. 다음 값은 current_value + increment.
+     */
+    public static final String CURRENT_VALUE_SQL =
+            "select current_value from information_schema.sequences where sequence_name = 'ITEM_SEQ'";
+
+    /**
+     * 시퀀스 값을 count개 받는다. 값 하나가 id 블록 하나(v ~ v+49)이므로 Hibernate pooled-lo와 같은 방식.
+     */
+    public static final String NEXT_VALUES_SQL = "select next value for item_seq from system_range(1, ?)";
+
+    private ItemSequence() {
+    }
+
+    public static void assignIds(List<Item> items, JdbcOperations template) {
+        assignIds(items, count -> template.queryForList(NEXT_VALUES_SQL, Long.class, count));
+    }
+
+    public static void assignIds(List<Item> items, EntityManager em) {
+        assignIds(items, count -> {
+            List<?> values = em.createNativeQuery(NEXT_VALUES_SQL).setParameter(1, count).getResultList();
+            return values.stream().map(value -> ((Number) value).longValue()).collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * id가 없는 상품에 시퀀스에서 받은 블록의 id를 차례로 채운다. 50건에 시퀀스 값 하나, 조회는 한 번.
+     * 시퀀스 값은 50씩 띄엄띄엄이고 id 컬럼 default(save)는 블록의 첫 값만 쓰므로 다른 저장 경로와 겹치지 않는다.
+     *
+     * @param nextValues 시퀀스 값 count개를 받는 함수
+     */
+    public static void assignIds(List<Item> items, IntFunction<List<Long>> nextValues) {
+        List<Item> withoutId = items.stream().filter(item -> item.getId() == null).collect(Collectors.toList());
+        if (withoutId.isEmpty()) {
+            return;
+        }
+        List<Long> blocks = nextValues.apply((withoutId.size() + INCREMENT_SIZE - 1) / INCREMENT_SIZE);
+        for (int i = 0; i < withoutId.size(); i++) {
+            withoutId.get(i).setId(blocks.get(i / INCREMENT_SIZE) + i % INCREMENT_SIZE);
+        }
+    }
+
+    public static void advancePast(List<Item> items, JdbcOperations template) {
+        advancePast(items,
+                () -> template.queryForObject(CURRENT_VALUE_SQL, Long.class),
+                value -> template.execute(restartSql(value)));
+    }
+
+    public static void advancePast(List<Item> items, EntityManager em) {
+        advancePast(items,
+                () -> ((Number) em.createNativeQuery(CURRENT_VALUE_SQL).getSingleResult()).longValue(),
+                value -> em.createNativeQuery(restartSql(value)).executeUpdate());
+    }
+
+    /**
+     * items 중 id가 있는 것의 최댓값이 시퀀스 다음 값 이상이면 그보다 큰 값으로 재시작한다.
+     */
+    public static synchronized void advancePast(List<Item> items, LongSupplier currentValue, LongConsumer restart) {
+        long maxId = items.stream().map(Item::getId).filter(Objects::nonNull).mapToLong(Long::longValue).max().orElse(0);
+        if (maxId <= 0) {
+            return;
+        }
+        if (currentValue.getAsLong() + INCREMENT_SIZE <= maxId) {
+            restart.accept(restartValue(maxId));
+        }
+    }
+
+    /**
+     * maxId보다 큰 값 중 가장 작은 1 + 50k. 예) 1000 -> 1001, 1001 -> 1051
+     */
+    public static long restartValue(long maxId) {
+        return (Math.floorDiv(maxId - 1, INCREMENT_SIZE) + 1) * INCREMENT_SIZE + 1;
+    }
+
+    public static String restartSql(long value) {
+        return "alter sequence item_seq restart with " + value;
+    }
+}
@@ -0,0 +1,110 @@
+package hello.itemservice.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import hello.itemservice.domain.Item;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+import static hello.itemservice.domain.QItem.item;
+
+/**
+ * 검색 결과 정렬 기준.
+ * 값이 같은 상품끼리의 순서가 DB마다, 실행마다 달라지지 않도록 항상 id를 두 번째 정렬 기준으로 붙인다.
+ * column은 SQL, property는 JPQL/Spring Data에서 쓰는 이름.
+ */
+public enum ItemSortKey {
+
+    ID("id", "id"),
+    NAME("item_name", "itemName"),
+    PRICE("price", "price"),
+    QUANTITY("quantity", "quantity");
+
+    private final String column;
+    private final String property;
+
+    ItemSortKey(String column, String property) {
+        this.column = column;
+        this.property = property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * ex) PRICE, desc -> "price desc, id desc"
+     */
+    public String sqlOrderBy(boolean desc) {
+        return orderBy("", column, "id", desc);
+    }
+
+    /**
+     * ex) PRICE, "i", desc -> "i.price desc, i.id desc"
+     */
+    public String jpqlOrderBy(String alias, boolean desc) {
+        return orderBy(alias + ".", property, "id", desc);
+    }
+
+    /**
+     * Querydsl용. ex) PRICE, desc -> item.price desc, item.id desc
+     * 정렬 조건이 없으면(sortKey == null) 빈 배열이라 order by가 붙지 않는다.
+     */
+    public static OrderSpecifier<?>[] querydslOrderBy(ItemSortKey sortKey, boolean desc) {
+        if (sortKey == null) {
+            return new OrderSpecifier<?>[0];
+        }
+        Order order = desc ? Order.DESC : Order.ASC;
+        OrderSpecifier<Long> byId = new OrderSpecifier<>(order, item.id);
+        switch (sortKey) {
+            case NAME:
+                return new OrderSpecifier<?>[]{new OrderSpecifier<>(order, item.itemName), byId};
+            case PRICE:
+                return new OrderSpecifier<?>[]{new OrderSpecifier<>(order, item.price), byId};
+            case QUANTITY:
+                return new OrderSpecifier<?>[]{new OrderSpecifier<>(order, item.quantity), byId};
+            default:
+                return new OrderSpecifier<?>[]{byId};
+        }
+    }
+
+    private String orderBy(String prefix, String name, String idName, boolean desc) {
+        String direction = desc ? " desc" : " asc";
+        String orderBy = prefix + name + direction;
+        if (this != ID) {
+            orderBy += ", " + prefix + idName + direction;
+        }
+        return orderBy;
+    }
+
+    /**
+     * 메모리 저장소용. DB와 같은 순서가 나오도록 null은 가장 작은 값으로 본다. (H2 기본값)
+     */
+    public Comparator<Item> comparator(boolean desc) {
+        Comparator<Item> byId = comparing(Item::getId);
+        Comparator<Item> comparator;
+        switch (this) {
+            case NAME:
+                comparator = comparing(Item::getItemName).thenComparing(byId);
+                break;
+            case PRICE:
+                comparator = comparing(Item::getPrice).thenComparing(byId);
+                break;
+            case QUANTITY:
+                comparator = comparing(Item::getQuantity).thenComparing(byId);
+                break;
+            default:
+                comparator = byId;
+        }
+        return desc ? comparator.reversed() : comparator;
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Item> comparing(Function<Item, T> getter) {
+        return Comparator.comparing(getter, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+}
@@ -0,0 +1,15 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+
+import java.util.function.Consumer;
+
+/**
+ * 검색 조건에 맞는 Item을 List로 모으지 않고 한 건씩 흘려보내는 조회.
+ * ItemRepository.findAll()은 결과 전체를 메모리에 올리기 때문에 전체 카탈로그 덤프 같은 작업에는 쓸 수 없다.
+ * action에 넘겨진 Item은 호출이 끝난 뒤 참조를 유지하지 않는 것을 전제로 한다.
+ */
+public interface ItemStreamer {
+
+    void stream(ItemSearchCond cond, Consumer<Item> action);
+}
@@ -0,0 +1,48 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * upsertAll 결과. 새로 들어간 상품 id와 기존 상품을 덮어쓴 id를 입력 순서대로 담는다.
+ * previous는 덮어쓴 상품의 변경 전 상태. (ItemService가 ItemChangedEvent를 만들 때 쓴다)
+ */
+@Data
+public class ItemUpsertResult {
+
+    private final List<Long> insertedIds = new ArrayList<>();
+    private final List<Long> updatedIds = new ArrayList<>();
+    private final Map<Long, Item> previous = new HashMap<>();
+
+    public void inserted(Item item) {
+        insertedIds.add(item.getId());
+    }
+
+    public void updated(Item before, Item after) {
+        updatedIds.add(after.getId());
+        Item copy = new Item(before.getItemName(), before.getPrice(), before.getQuantity());
+        copy.setId(before.getId());
+        previous.put(after.getId(), copy);
+    }
+
+    /**
+     * 같은 id가 여러 번 있으면 마지막 것만 남긴다. id가 없는 상품(새로 저장)은 모두 남긴다.
+     * 한 묶음 안에서 같은 행을 여러 번 쓰지 않도록 구현체가 먼저 호출한다.
+     */
+    public static List<Item> lastPerId(List<Item> items) {
+        Map<Object, Item> last = new LinkedHashMap<>();
+        for (Item item : items) {
+            // id가 없으면 상품 객체 자체를 키로 써서 합쳐지지 않게 한다.
+            Object key = item.getId() == null ? new Object() : item.getId();
+            last.remove(key);
+            last.put(key, item);
+        }
+        return new ArrayList<>(last.values());
+    }
+}
@@ -7,7 +7,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
@@ -24,14 +28,61 @@ public class MyBatisItemRepository implements ItemRepository {
 
     @Override
     public Item save(Item item) {
-        log.info("itemMapper class = {} ", itemMapper.getClass());
+        log.debug("itemMapper class = {} ", itemMapper.getClass());
         itemMapper.save(item);
         return item;
     }
 
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
-        itemMapper.update(itemId, updateParam);
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
+        return itemMapper.update(itemId, updateParam);
+    }
+
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        if (itemMapper.reserveStock(itemId, amount) == 1) {
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(itemMapper.findById(itemId).isPresent());
+    }
+
+    /**
+     * 기존 id를 in 조회 한 번으로 가져오고, id가 없는 상품은 시퀀스에서 id 블록을 받아 채운 뒤(ItemSequence.assignIds)
+     * 전부 다중 행 MERGE 한 문장으로 쓴다. 새 id로 insert했을 수 있으므로 item_seq를 그 뒤로 당긴다.
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        List<Item> batch = ItemUpsertResult.lastPerId(items);
+        List<Long> ids = batch.stream().map(Item::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Map<Long, Item> existing = findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        ItemSequence.assignIds(batch, itemMapper::nextItemSequenceValues);
+
+        ItemUpsertResult result = new ItemUpsertResult();
+        for (Item item : batch) {
+            if (existing.containsKey(item.getId())) {
+                result.updated(existing.get(item.getId()), item);
+            } else {
+                result.inserted(item);
+            }
+        }
+        if (!batch.isEmpty()) {
+            itemMapper.mergeAll(batch);
+            ItemSequence.advancePast(batch, itemMapper::itemSequenceCurrentValue, itemMapper::restartItemSequence);
+        }
+        return result;
+    }
+
+    /**
+     * 빈 in ()은 SQL 문법 오류이므로 조회하지 않는다.
+     */
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return itemMapper.findAllById(ids);
     }
 
     @Override
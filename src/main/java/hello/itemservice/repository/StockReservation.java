@@ -0,0 +1,24 @@
+package hello.itemservice.repository;
+
+/**
+ * reserveStock 결과.
+ */
+public enum StockReservation {
+
+    RESERVED,
+    INSUFFICIENT_STOCK,
+    NOT_FOUND;
+
+    /**
+     * 조건부 update가 0건이면 상품이 없는 것인지 재고가 모자란 것인지 구분이 안 되므로, 실패했을 때만 존재 여부를 확인한다.
+     */
+    public static StockReservation failed(boolean itemExists) {
+        return itemExists ? INSUFFICIENT_STOCK : NOT_FOUND;
+    }
+
+    public static void validateAmount(int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("amount must be positive: " + amount);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hello.itemservice.repository.batching;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * findById를 FindByIdBatcher로 모아서 delegate.findAllById(in 조회) 한 번으로 처리하는 ItemRepository.
+ * findAllById만 쓰므로 JdbcTemplate, MyBatis, JPA 구현 모두 그대로 감쌀 수 있다.
+ *
+ * 묶음 조회는 다른 스레드의 커넥션에서 실행될 수 있다. 읽기/쓰기 트랜잭션 안에서의 findById는 아직 커밋하지 않은 자기 변경을 봐야 하고
+ * JPA라면 영속 상태 엔티티를 돌려받아야 하므로 모으지 않고 바로 delegate로 보낸다. (트랜잭션 없음, 읽기 전용 트랜잭션만 모음)
+ * 나머지 메서드는 그대로 넘긴다.
+ */
+public class BatchingItemRepository implements ItemRepository {
+
+    private final ItemRepository delegate;
+    private final FindByIdBatcher batcher;
+
+    public BatchingItemRepository(ItemRepository delegate, int maxBatchSize, long maxWindowMicros) {
+        this.delegate = delegate;
+        this.batcher = new FindByIdBatcher(delegate::findAllById, maxBatchSize, maxWindowMicros);
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return delegate.findById(id);
+        }
+        return batcher.load(id);
+    }
+
+    @Override
+    public Item save(Item item) {
+        return delegate.save(item);
+    }
+
+    @Override
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
+        return delegate.update(itemId, updateParam);
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        return delegate.findAll(cond);
+    }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        return delegate.reserveStock(itemId, amount);
+    }
+
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        return delegate.upsertAll(items);
+    }
+
+    public FindByIdBatcher getBatcher() {
+        return batcher;
+    }
+}
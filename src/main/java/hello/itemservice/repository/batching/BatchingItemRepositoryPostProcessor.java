@@ -0,0 +1,32 @@
+package hello.itemservice.repository.batching;
+
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * 저장소 설정이 등록한 itemRepository 빈을 BatchingItemRepository로 감싼다.
+ * 설정 클래스 안의 itemRepository() 호출도 컨테이너의 빈을 돌려주므로 ItemServiceV1은 감싼 것을 쓴다.
+ * 메모리 저장소는 왕복 비용이 없으므로 감싸지 않는다. (BulkConfig 등이 ItemStreamer인지 보고 그대로 쓰기도 함)
+ */
+public class BatchingItemRepositoryPostProcessor implements BeanPostProcessor {
+
+    static final String ITEM_REPOSITORY = "itemRepository";
+
+    private final int maxBatchSize;
+    private final long maxWindowMicros;
+
+    public BatchingItemRepositoryPostProcessor(int maxBatchSize, long maxWindowMicros) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxWindowMicros = maxWindowMicros;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (ITEM_REPOSITORY.equals(beanName) && bean instanceof ItemRepository
+                && !(bean instanceof MemoryItemRepository) && !(bean instanceof BatchingItemRepository)) {
+            return new BatchingItemRepository((ItemRepository) bean, maxBatchSize, maxWindowMicros);
+        }
+        return bean;
+    }
+}
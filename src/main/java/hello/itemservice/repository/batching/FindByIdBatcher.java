@@ -0,0 +1,182 @@
+package hello.itemservice.repository.batching;
+
+import hello.itemservice.domain.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 동시에 들어온 findById들을 모아 in 조회 한 번(loader)으로 처리한다. (DataLoader 방식)
+ *
+ * - 빈 묶음에 처음 들어온 호출(leader)이 window만큼 기다렸다가 그동안 모인 id를 자기 스레드에서 한 번에 조회한다.
+ *   나머지 호출은 자기 결과가 채워질 때까지 기다린다. maxBatchSize개가 차면 채운 호출이 바로 조회한다.
+ * - window는 부하에 맞춰 바뀐다. 조회가 진행 중이거나 대기 중인 묶음이 있을 때 새 호출이 오면(동시 호출이 있다) 두 배로 늘리고
+ *   (최대 maxWindow), 한 건짜리 묶음이 나가면 반으로 줄인다. 한가할 때는 금방 0이 되어 기다리지 않고 바로 조회한다.
+ *   어떤 경우에도 더해지는 지연은 maxWindow 이하.
+ * - 결과는 호출마다 새로 만든 복사본이다. (분리된 객체)
+ */
+public class FindByIdBatcher {
+
+    // 이보다 짧은 window는 0으로 본다. (parkNanos 정밀도보다 짧음)
+    private static final long MIN_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final Function<List<Long>, List<Item>> loader;
+    private final int maxBatchSize;
+    private final long maxWindowNanos;
+
+    private final Object lock = new Object();
+    private Batch pending;
+    private volatile long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+
+    public FindByIdBatcher(Function<List<Long>, List<Item>> loader, int maxBatchSize, long maxWindowMicros) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.loader = loader;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWindowNanos = TimeUnit.MICROSECONDS.toNanos(maxWindowMicros);
+    }
+
+    public Optional<Item> load(Long id) {
+        lookups.increment();
+        CompletableFuture<Optional<Item>> result = new CompletableFuture<>();
+        Batch full = null;
+        Batch led = null;
+        long wait = 0;
+        synchronized (lock) {
+            if (pending != null || inFlight.get() > 0) {
+                grow();
+            }
+            if (pending == null) {
+                pending = new Batch();
+                led = pending;
+                wait = windowNanos;
+            }
+            pending.add(id, result);
+            if (pending.size() >= maxBatchSize || wait == 0 && led != null) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            run(full);
+        } else if (led != null) {
+            awaitWindow(result, wait);
+            Batch mine = null;
+            synchronized (lock) {
+                if (pending == led) {
+                    mine = pending;
+                    pending = null;
+                }
+            }
+            if (mine != null) {
+                run(mine);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getWindowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(windowNanos);
+    }
+
+    private void run(Batch batch) {
+        inFlight.incrementAndGet();
+        queries.increment();
+        try {
+            Map<Long, Item> found = new HashMap<>();
+            for (Item item : loader.apply(new ArrayList<>(batch.waiters.keySet()))) {
+                found.put(item.getId(), item);
+            }
+            batch.waiters.forEach((id, waiters) -> {
+                Item item = found.get(id);
+                // 첫 호출을 포함해 모두 복사본. loader가 돌려준 객체는 조회한 스레드의 영속성 컨텍스트에 속할 수 있고,
+                // 같은 객체를 여러 스레드가 나눠 가지면 한쪽의 변경이 다른 쪽에 보인다.
+                for (CompletableFuture<Optional<Item>> waiter : waiters) {
+                    waiter.complete(Optional.ofNullable(item).map(FindByIdBatcher::copyOf));
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            batch.waiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.completeExceptionally(e)));
+        } finally {
+            inFlight.decrementAndGet();
+            if (batch.size() <= 1) {
+                shrink();
+            }
+        }
+    }
+
+    private void grow() {
+        long window = windowNanos;
+        windowNanos = window == 0 ? Math.min(maxWindowNanos, MIN_WINDOW_NANOS * 4) : Math.min(maxWindowNanos, window * 2);
+    }
+
+    private void shrink() {
+        long window = windowNanos / 2;
+        windowNanos = window < MIN_WINDOW_NANOS ? 0 : window;
+    }
+
+    private static Item copyOf(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        return copy;
+    }
+
+    private static void awaitWindow(CompletableFuture<Optional<Item>> result, long nanos) {
+        try {
+            result.get(nanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // window가 끝났거나 다른 호출이 조회를 마쳤다.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 같은 id가 여러 번 들어와도 in 목록에는 한 번만 넣는다.
+     */
+    private static class Batch {
+
+        private final Map<Long, List<CompletableFuture<Optional<Item>>>> waiters = new LinkedHashMap<>();
+        private int size;
+
+        private void add(Long id, CompletableFuture<Optional<Item>> waiter) {
+            waiters.computeIfAbsent(id, key -> new ArrayList<>(1)).add(waiter);
+            size++;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
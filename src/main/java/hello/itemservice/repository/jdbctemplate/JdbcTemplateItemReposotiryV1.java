@@ -3,7 +3,11 @@ package hello.itemservice.repository.jdbctemplate;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSequence;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -16,8 +20,13 @@ import org.springframework.util.StringUtils;
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
@@ -75,14 +84,76 @@ public class JdbcTemplateItemReposotiryV1 implements ItemRepository {
     /**
      * @param itemId      여기서는 save할 때 이미 아이디가 만들어졌으므로 keyholder 필요 없음.
      * @param updateParam dto객체.
+     * @return 수정 전 값. H2의 old table(update ...)로 update와 수정 전 행 조회를 한 문장으로 처리한다.
      */
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
-        String sql = "update item set item_name=?, price=?, quantity=? where id=?";
-        template.update(
-                sql,
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
+        String sql = "select id, item_name, price, quantity from old table (" +
+                "update item set item_name=?, price=?, quantity=? where id=?)";
+        return template.query(
+                sql, itemRowMapper(),
                 updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(),
-                itemId);
+                itemId).stream().findFirst();
+    }
+
+    /**
+     * 조회 없이 update 한 번. where 조건에 재고 확인을 넣어서 DB가 행 단위로 원자적으로 처리한다.
+     * 반영된 행이 0이면 실패.
+     */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        String sql = "update item set quantity = quantity - ? where id = ? and quantity >= ?";
+        int updated = template.update(sql, amount, itemId, amount);
+        if (updated == 1) {
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(findById(itemId).isPresent());
+    }
+
+    /**
+     * 1. 입력 id 중 이미 있는 것을 in 조회 한 번으로 가져온다. (insert/update 구분과 변경 전 값 용도)
+     * 2. id가 없는 상품은 ItemSequence.assignIds로 시퀀스에서 id 블록을 받아 채운다. (조회 한 번)
+     * 3. 전부 H2 MERGE ... KEY(id)로 한 번에 배치 실행. 있으면 update, 없으면 그 id로 insert.
+     * 명시적인 id로 insert하면 item_seq가 그 id를 다시 발급하지 않도록 ItemSequence.advancePast로 앞으로 당긴다.
+     * 조회와 MERGE 사이에 다른 트랜잭션이 같은 id를 넣으면 결과에서 insert로 분류될 수 있다. (데이터는 MERGE가 맞게 처리)
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        List<Item> batch = ItemUpsertResult.lastPerId(items);
+        List<Long> ids = batch.stream().map(Item::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Map<Long, Item> existing = findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        ItemSequence.assignIds(batch, template);
+
+        ItemUpsertResult result = new ItemUpsertResult();
+        for (Item item : batch) {
+            if (existing.containsKey(item.getId())) {
+                result.updated(existing.get(item.getId()), item);
+            } else {
+                result.inserted(item);
+            }
+        }
+
+        String sql = "merge into item (id, item_name, price, quantity) key (id) values (?, ?, ?, ?)";
+        template.batchUpdate(sql, batch, batch.size(), (ps, item) -> {
+            ps.setLong(1, item.getId());
+            ps.setString(2, item.getItemName());
+            ps.setObject(3, item.getPrice());
+            ps.setObject(4, item.getQuantity());
+        });
+        ItemSequence.advancePast(batch, template);
+        return result;
+    }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        String sql = "select id, item_name, price, quantity from item where id in (" + placeholders + ")";
+        return template.query(sql, itemRowMapper(), ids.toArray());
     }
 
     @Override
@@ -136,7 +207,17 @@ public class JdbcTemplateItemReposotiryV1 implements ItemRepository {
 
         }
 
-        log.info("sql={}", sql);
+        //정렬, 개수 제한은 DB에서 처리. 전체를 가져와서 자르지 않는다.
+        ItemSortKey sort = cond.getSortOrDefault();
+        if (sort != null) {
+            sql += " order by " + sort.sqlOrderBy(cond.isDesc());
+        }
+        if (cond.getLimit() != null) {
+            sql += " limit ?";
+            param.add(cond.getLimit());
+        }
+
+        log.debug("sql={}", sql);
         return template.query(sql, itemRowMapper(), param.toArray());
 
     }
@@ -3,7 +3,11 @@ package hello.itemservice.repository.jdbctemplate;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSequence;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
@@ -12,15 +16,20 @@ import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * NamedParameterJdbcTemplate
@@ -49,7 +58,8 @@ public class JdbcTemplateItemReposotiryV2 implements ItemRepository {
         SqlParameterSource param = new BeanPropertySqlParameterSource(item);
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
-        template.update(sql, param, keyHolder);
+        //id는 시퀀스 default로 채워지므로 돌려받을 컬럼을 지정한다.
+        template.update(sql, param, keyHolder, new String[]{"id"});
 
         long key = keyHolder.getKey().longValue();
         item.setId(key);
@@ -60,12 +70,14 @@ public class JdbcTemplateItemReposotiryV2 implements ItemRepository {
      * MapSqlParameterSource를 사용하여 sql의 ':파라미터'와 필드 값을 수동으로 매핑.
      * addValue 메서드 순서 상관 없이 이름(:파라미터) 기준으로 값이 매핑됨.
      * 즉, 파라미터 이름만 정확히 맞추면, 쿼리에서 올바르게 바인딩 된다.
+     * old table(update ...)로 수정 전 행을 같은 문장에서 돌려받는다.
      */
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
-        String sql = "update item " +
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
+        String sql = "select id, item_name, price, quantity from old table (" +
+                "update item " +
                 "set item_name= :itemName, price= :price, quantity= :quantity " +
-                "where id= :id";
+                "where id= :id)";
 
         /**
          * ItemUpdateDto에는 id 필드가 없어서, BeanPropertySqlParameterSource를 사용하면
@@ -82,7 +94,65 @@ public class JdbcTemplateItemReposotiryV2 implements ItemRepository {
                 .addValue("quantity", updateParam.getQuantity())
                 .addValue("id", itemId);
 
-        template.update(sql, param);
+        return template.query(sql, param, itemRowMapper()).stream().findFirst();
+    }
+
+    /**
+     * 조회 없이 조건부 update 한 번. 반영된 행이 0이면 실패.
+     */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        String sql = "update item " +
+                "set quantity = quantity - :amount " +
+                "where id = :id and quantity >= :amount";
+        MapSqlParameterSource param = new MapSqlParameterSource()
+                .addValue("amount", amount)
+                .addValue("id", itemId);
+
+        int updated = template.update(sql, param);
+        if (updated == 1) {
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(findById(itemId).isPresent());
+    }
+
+    /**
+     * JdbcTemplateItemReposotiryV1.upsertAll과 같은 방식. 기존 id는 in (:ids) 한 번으로 조회하고
+     * (NamedParameterJdbcTemplate이 컬렉션 파라미터를 ?, ?, ...로 펼쳐준다),
+     * MERGE는 Item 필드 이름으로 바인딩해서 배치 실행한다.
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        List<Item> batch = ItemUpsertResult.lastPerId(items);
+        List<Long> ids = batch.stream().map(Item::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Map<Long, Item> existing = findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        ItemSequence.assignIds(batch, template.getJdbcOperations());
+
+        ItemUpsertResult result = new ItemUpsertResult();
+        for (Item item : batch) {
+            if (existing.containsKey(item.getId())) {
+                result.updated(existing.get(item.getId()), item);
+            } else {
+                result.inserted(item);
+            }
+        }
+
+        String sql = "merge into item (id, item_name, price, quantity) key (id) " +
+                "values (:id, :itemName, :price, :quantity)";
+        template.batchUpdate(sql, SqlParameterSourceUtils.createBatch(batch));
+        ItemSequence.advancePast(batch, template.getJdbcOperations());
+        return result;
+    }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "select id, item_name, price, quantity from item where id in (:ids)";
+        return template.query(sql, Map.of("ids", ids), itemRowMapper());
     }
 
     @Override
@@ -138,7 +208,16 @@ public class JdbcTemplateItemReposotiryV2 implements ItemRepository {
             sql += " price <= :maxPrice";
         }
 
-        log.info("sql={}", sql);
+        //정렬, 개수 제한은 DB에서 처리. 전체를 가져와서 자르지 않는다.
+        ItemSortKey sort = cond.getSortOrDefault();
+        if (sort != null) {
+            sql += " order by " + sort.sqlOrderBy(cond.isDesc());
+        }
+        if (cond.getLimit() != null) {
+            sql += " limit :limit";
+        }
+
+        log.debug("sql={}", sql);
         return template.query(sql, param, itemRowMapper());
 
     }
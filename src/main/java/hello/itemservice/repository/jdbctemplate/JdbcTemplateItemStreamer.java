@@ -0,0 +1,60 @@
+package hello.itemservice.repository.jdbctemplate;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemStreamer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * DB 커서로 한 행씩 읽어 넘겨주는 ItemStreamer.
+ * RowCallbackHandler는 RowMapper와 달리 결과를 List에 모으지 않으므로, 힙에는 드라이버가 fetchSize만큼 가져온 행만 남는다.
+ * (H2 TCP 모드는 fetchSize 단위로 서버에서 행을 가져온다.)
+ * 검색 조건은 JdbcTemplateItemReposotiryV1.findAll()과 같은 방식으로 동적 쿼리를 만든다.
+ */
+public class JdbcTemplateItemStreamer implements ItemStreamer {
+
+    private final JdbcTemplate template;
+
+    public JdbcTemplateItemStreamer(DataSource dataSource, int fetchSize) {
+        this.template = new JdbcTemplate(dataSource);
+        this.template.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public void stream(ItemSearchCond cond, Consumer<Item> action) {
+        String itemName = cond.getItemName();
+        Integer maxPrice = cond.getMaxPrice();
+
+        String sql = "select id, item_name, price, quantity from item";
+        List<Object> param = new ArrayList<>();
+        if (StringUtils.hasText(itemName) || maxPrice != null) {
+            sql += " where";
+        }
+        if (StringUtils.hasText(itemName)) {
+            sql += " item_name like concat('%',?,'%')";
+            param.add(itemName);
+        }
+        if (maxPrice != null) {
+            if (!param.isEmpty()) {
+                sql += " and";
+            }
+            sql += " price <= ?";
+            param.add(maxPrice);
+        }
+        sql += " order by id";
+
+        template.query(sql, rs -> {
+            // getInt는 SQL NULL을 0으로 바꾸므로 값이 없는 컬럼은 null 그대로 넘긴다.
+            Item item = new Item(rs.getString("item_name"),
+                    rs.getObject("price", Integer.class), rs.getObject("quantity", Integer.class));
+            item.setId(rs.getLong("id"));
+            action.accept(item);
+        }, param.toArray());
+    }
+}
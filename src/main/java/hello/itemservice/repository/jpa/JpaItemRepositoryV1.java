@@ -3,7 +3,10 @@ package hello.itemservice.repository.jpa;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
@@ -42,11 +45,54 @@ public class JpaItemRepositoryV1 implements ItemRepository {
     자동으로 update도 되지 않는다. test에서 update 확인하려면 @Commit 붙이고 돌리면 된다.
     */
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
         Item findItem = em.find(Item.class, itemId);
+        Item before = new Item(findItem.getItemName(), findItem.getPrice(), findItem.getQuantity());
+        before.setId(itemId);
         findItem.setItemName(updateParam.getItemName());
         findItem.setPrice(updateParam.getPrice());
         findItem.setQuantity(updateParam.getQuantity());
+        return Optional.of(before);
+    }
+
+    /*
+    update()처럼 find 후 변경 감지로 처리하면, 같은 재고를 동시에 읽은 트랜잭션들이 각자 계산한 값으로 덮어써서 차감이 유실된다.
+    JPQL 벌크 update로 DB에서 한 번에 조건부 차감한다.
+    벌크 update는 영속성 컨텍스트를 거치지 않으므로, 이 트랜잭션에서 이미 읽어둔 엔티티가 있으면 DB 값으로 다시 읽는다.
+    (벌크 update 실행 전에는 하이버네이트가 자동으로 flush한다.)
+    */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        int updated = em.createQuery("update Item i set i.quantity = i.quantity - :amount" +
+                        " where i.id = :id and i.quantity >= :amount")
+                .setParameter("amount", amount)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        if (updated == 1) {
+            refreshIfLoaded(itemId);
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(findById(itemId).isPresent());
+    }
+
+    /*
+    getReference는 영속성 컨텍스트에 있으면 그 엔티티를, 없으면 select 없이 프록시를 반환한다.
+    이미 로딩된 엔티티일 때만 refresh해서 불필요한 select를 피한다.
+    */
+    private void refreshIfLoaded(Long itemId) {
+        Item cached = em.getReference(Item.class, itemId);
+        if (em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(cached)) {
+            em.refresh(cached);
+        }
+    }
+
+    /*
+    기존 id를 in 조회 한 번으로 올려두고 값 복사/persist, 없는 id는 MERGE 배치 하나. (JpaItemUpsert)
+    */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        return JpaItemUpsert.upsertAll(em, items, this::findAllById);
     }
 
     @Override
@@ -55,6 +101,16 @@ public class JpaItemRepositoryV1 implements ItemRepository {
         return Optional.ofNullable(item);
     }
 
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
         String jpql = "select i from Item i"; // i는 별칭.
@@ -79,7 +135,12 @@ public class JpaItemRepositoryV1 implements ItemRepository {
             jpql += " i.price <= :maxPrice";
         }
 
-        log.info("jpql={}", jpql);
+        ItemSortKey sort = cond.getSortOrDefault();
+        if (sort != null) {
+            jpql += " order by " + sort.jpqlOrderBy("i", cond.isDesc());
+        }
+
+        log.debug("jpql={}", jpql);
 
         TypedQuery<Item> query = em.createQuery(jpql, Item.class);
         if (StringUtils.hasText(itemName)) {
@@ -88,6 +149,10 @@ public class JpaItemRepositoryV1 implements ItemRepository {
         if (maxPrice != null) {
             query.setParameter("maxPrice", maxPrice);
         }
+        // JPQL에는 limit이 없다. setMaxResults를 쓰면 하이버네이트가 DB 방언에 맞는 limit 절을 붙여준다.
+        if (cond.getLimit() != null) {
+            query.setMaxResults(cond.getLimit());
+        }
         return query.getResultList();
     }
 }
@@ -3,12 +3,19 @@ package hello.itemservice.repository.jpa;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,17 +45,43 @@ public class JpaItemRepositoryV2 implements ItemRepository {
      */
     private final SpringDataJpaItemRepository repository;
 
+    /*
+    upsertAll에서만 사용. (JpaItemUpsert)
+     */
+    private final EntityManager em;
+
     @Override
     public Item save(Item item) {
         return repository.save(item);
     }
 
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
         Item findItem = repository.findById(itemId).orElseThrow();
+        Item before = new Item(findItem.getItemName(), findItem.getPrice(), findItem.getQuantity());
+        before.setId(itemId);
         findItem.setItemName(updateParam.getItemName());
         findItem.setPrice(updateParam.getPrice());
         findItem.setQuantity(updateParam.getQuantity());
+        return Optional.of(before);
+    }
+
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        if (repository.reserveStock(itemId, amount) == 1) {
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(repository.existsById(itemId));
+    }
+
+    /*
+    repository.save(item)은 id가 있으면 merge라서 건마다 select가 나간다.
+    findAllById(in 조회 한 번)로 기존 엔티티를 올려두고 값만 복사한다. 나머지는 JpaItemRepositoryV1.upsertAll과 같음. (JpaItemUpsert)
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        return JpaItemUpsert.upsertAll(em, items, repository::findAllById);
     }
 
     /*
@@ -59,11 +92,25 @@ public class JpaItemRepositoryV2 implements ItemRepository {
         return repository.findById(id);
     }
 
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
         String itemName = cond.getItemName();
         Integer maxPrice = cond.getMaxPrice();
 
+        ItemSortKey sortKey = cond.getSortOrDefault();
+        if (sortKey != null) {
+            Sort sort = sort(sortKey, cond.isDesc());
+            if (cond.getLimit() != null) {
+                return findAll(itemName, maxPrice, PageRequest.of(0, cond.getLimit(), sort));
+            }
+            return findAll(itemName, maxPrice, sort);
+        }
+
         if (StringUtils.hasText(itemName) && maxPrice != null) {
         //return repository.findByItemNameLikeAndPriceLessThanEqual("%" + itemName + "%", maxPrice);
             return repository.findItems("%" + itemName + "%", maxPrice);
@@ -75,4 +122,40 @@ public class JpaItemRepositoryV2 implements ItemRepository {
             return repository.findAll();
         }
     }
+
+    private List<Item> findAll(String itemName, Integer maxPrice, Sort sort) {
+        if (StringUtils.hasText(itemName) && maxPrice != null) {
+            return repository.findItems("%" + itemName + "%", maxPrice, sort);
+        } else if (StringUtils.hasText(itemName)) {
+            return repository.findByItemNameLike("%" + itemName + "%", sort);
+        } else if (maxPrice != null) {
+            return repository.findByPriceLessThanEqual(maxPrice, sort);
+        } else {
+            return repository.findAll(sort);
+        }
+    }
+
+    private List<Item> findAll(String itemName, Integer maxPrice, Pageable pageable) {
+        if (StringUtils.hasText(itemName) && maxPrice != null) {
+            return repository.findItems("%" + itemName + "%", maxPrice, pageable);
+        } else if (StringUtils.hasText(itemName)) {
+            return repository.findByItemNameLike("%" + itemName + "%", pageable);
+        } else if (maxPrice != null) {
+            return repository.findByPriceLessThanEqual(maxPrice, pageable);
+        } else {
+            return repository.findAllBy(pageable);
+        }
+    }
+
+    /*
+    ItemSortKey와 같은 순서. 값이 같으면 id 순.
+     */
+    private Sort sort(ItemSortKey sortKey, boolean desc) {
+        Sort.Direction direction = desc ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortKey.getProperty());
+        if (sortKey != ItemSortKey.ID) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        return sort;
+    }
 }
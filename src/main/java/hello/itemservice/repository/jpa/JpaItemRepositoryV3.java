@@ -2,12 +2,16 @@ package hello.itemservice.repository.jpa;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import hello.itemservice.domain.Item;
 import hello.itemservice.domain.QItem;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -41,11 +45,47 @@ public class JpaItemRepositoryV3 implements ItemRepository {
     }
 
     @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
+    public Optional<Item> update(Long itemId, ItemUpdateDto updateParam) {
         Item findItem = em.find(Item.class, itemId);
+        Item before = new Item(findItem.getItemName(), findItem.getPrice(), findItem.getQuantity());
+        before.setId(itemId);
         findItem.setItemName(updateParam.getItemName());
         findItem.setPrice(updateParam.getPrice());
         findItem.setQuantity(updateParam.getQuantity());
+        return Optional.of(before);
+    }
+
+    /*
+    Querydsl 벌크 update. JPQL 벌크 update와 같으므로 영속성 컨텍스트 처리도 JpaItemRepositoryV1과 같다.
+     */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        long updated = query
+                .update(item)
+                .set(item.quantity, item.quantity.subtract(amount))
+                .where(item.id.eq(itemId), item.quantity.goe(amount))
+                .execute();
+        if (updated == 1) {
+            refreshIfLoaded(itemId);
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(findById(itemId).isPresent());
+    }
+
+    private void refreshIfLoaded(Long itemId) {
+        Item cached = em.getReference(Item.class, itemId);
+        if (em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(cached)) {
+            em.refresh(cached);
+        }
+    }
+
+    /*
+    JpaItemRepositoryV1.upsertAll과 같은 방식. 기존 상품 조회만 Querydsl in 조건으로.
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        return JpaItemUpsert.upsertAll(em, items, this::findAllById);
     }
 
     @Override
@@ -54,6 +94,17 @@ public class JpaItemRepositoryV3 implements ItemRepository {
         return Optional.ofNullable(item);
     }
 
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return query
+                .selectFrom(item)
+                .where(item.id.in(ids))
+                .fetch();
+    }
+
 //    @Override
     public List<Item> findAllOld(ItemSearchCond cond) {
         String itemName = cond.getItemName();
@@ -92,11 +143,15 @@ public class JpaItemRepositoryV3 implements ItemRepository {
     */
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        return query
+        JPAQuery<Item> findQuery = query
                 .select(item)
                 .from(item)
                 .where(likeItemName(cond.getItemName()), maxPrice(cond.getMaxPrice()))
-                .fetch();
+                .orderBy(ItemSortKey.querydslOrderBy(cond.getSortOrDefault(), cond.isDesc()));
+        if (cond.getLimit() != null) {
+            findQuery.limit(cond.getLimit());
+        }
+        return findQuery.fetch();
     }
 
     /*
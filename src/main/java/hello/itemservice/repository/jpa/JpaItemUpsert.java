@@ -0,0 +1,86 @@
+package hello.itemservice.repository.jpa;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSequence;
+import hello.itemservice.repository.ItemUpsertResult;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * JPA 저장소(V1, V2, V3)와 ItemServiceV2가 같이 쓰는 upsertAll.
+ * em.merge는 영속성 컨텍스트에 없는 엔티티마다 select를 한 번씩 실행한다.
+ * 대신 입력 id를 in 조회 한 번으로 영속성 컨텍스트에 올려두고
+ * - 있는 상품 : 조회한 엔티티에 값을 복사. flush할 때 변경 감지로 update (Hibernate update 배치)
+ * - id 없는 상품 : persist (시퀀스 pooled-lo + Hibernate insert 배치)
+ * - 없는 id : @GeneratedValue가 붙은 엔티티는 id를 지정해서 persist할 수 없으므로(detached로 취급) JDBC로 직접 넣는다.
+ *   행마다 native 쿼리를 실행하면 한 건씩 왕복하고, 실행할 때마다 auto flush로 쌓인 insert/update 배치가 잘게 끊긴다.
+ *   그래서 루프가 끝난 뒤 먼저 flush해서 Hibernate 배치를 온전히 보내고, 새 id 행은 MERGE 배치 하나로 보낸다.
+ *   시퀀스가 그 id를 다시 발급하지 않도록 마지막에 ItemSequence.advancePast
+ */
+public final class JpaItemUpsert {
+
+    static final String MERGE_SQL = "merge into item (id, item_name, price, quantity) key (id) values (?, ?, ?, ?)";
+
+    private JpaItemUpsert() {
+    }
+
+    /**
+     * @param findAllById 저장소의 in 조회. 조회한 엔티티는 영속성 컨텍스트에 올라와 있어야 한다.
+     */
+    public static ItemUpsertResult upsertAll(EntityManager em, List<Item> items,
+                                             Function<List<Long>, List<Item>> findAllById) {
+        List<Item> batch = ItemUpsertResult.lastPerId(items);
+        List<Long> ids = batch.stream().map(Item::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Map<Long, Item> existing = findAllById.apply(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        ItemUpsertResult result = new ItemUpsertResult();
+        List<Item> newIds = new ArrayList<>();
+        for (Item item : batch) {
+            Item managed = item.getId() == null ? null : existing.get(item.getId());
+            if (managed != null) {
+                result.updated(managed, item);
+                managed.setItemName(item.getItemName());
+                managed.setPrice(item.getPrice());
+                managed.setQuantity(item.getQuantity());
+            } else {
+                if (item.getId() == null) {
+                    em.persist(item);
+                } else {
+                    newIds.add(item);
+                }
+                result.inserted(item);
+            }
+        }
+        if (!newIds.isEmpty()) {
+            em.flush();
+            mergeAll(em, newIds);
+        }
+        ItemSequence.advancePast(batch, em);
+        return result;
+    }
+
+    private static void mergeAll(EntityManager em, List<Item> items) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MERGE_SQL)) {
+                for (Item item : items) {
+                    ps.setLong(1, item.getId());
+                    ps.setString(2, item.getItemName());
+                    ps.setObject(3, item.getPrice(), Types.INTEGER);
+                    ps.setObject(4, item.getQuantity(), Types.INTEGER);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+}
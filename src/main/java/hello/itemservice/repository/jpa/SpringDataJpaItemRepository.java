@@ -1,7 +1,10 @@
 package hello.itemservice.repository.jpa;
 
 import hello.itemservice.domain.Item;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -37,6 +40,37 @@ public interface SpringDataJpaItemRepository extends JpaRepository<Item, Long> {
     @Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
     List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
 
+    /*
+    정렬, 개수 제한 버전. 마지막 파라미터로 Sort나 Pageable을 받으면 스프링 데이터 JPA가 order by, limit을 붙여준다.
+    @Query로 직접 작성한 쿼리에도 동일하게 적용된다.
+    반환 타입이 Page가 아니라 List이면 전체 건수를 세는 count 쿼리는 실행하지 않는다.
+    */
+    List<Item> findByItemNameLike(String itemName, Sort sort);
+
+    List<Item> findByItemNameLike(String itemName, Pageable pageable);
+
+    List<Item> findByPriceLessThanEqual(Integer price, Sort sort);
+
+    List<Item> findByPriceLessThanEqual(Integer price, Pageable pageable);
+
+    @Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
+    List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price, Sort sort);
+
+    @Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
+    List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price, Pageable pageable);
+
+    /*
+    조건부 재고 차감. 변경 쿼리는 @Modifying이 필요하고, 반환값은 update된 행 수.
+    벌크 update는 영속성 컨텍스트를 거치지 않으므로 실행 전에 flush, 실행 후에 clear해서
+    이미 읽어둔 엔티티가 예전 재고를 들고 있지 않게 한다.
+    */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Item i set i.quantity = i.quantity - :amount where i.id = :id and i.quantity >= :amount")
+    int reserveStock(@Param("id") Long id, @Param("amount") int amount);
+
+    // findAll(Pageable)은 Page를 반환하므로 count 쿼리가 함께 나간다. 조건 없는 조회도 List 버전을 따로 둔다.
+    List<Item> findAllBy(Pageable pageable);
+
 /*
     // 예시1. itemName 필드 값들의 리스트가 반환
     @Query("select i.itemName from Item i where i.price > :minPrice")
@@ -0,0 +1,48 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+
+/**
+ * 저장소에 들어간 뒤로는 바뀌지 않는 Item. 조회 결과로 복사 없이 그대로 내주므로, 받은 쪽이 고치려 하면 예외로 막는다.
+ * 값을 바꾸려면 새 Item으로 update/upsertAll을 호출한다.
+ */
+final class FrozenItem extends Item {
+
+    private FrozenItem(Long id, String itemName, Integer price, Integer quantity) {
+        super(itemName, price, quantity);
+        super.setId(id);
+    }
+
+    static FrozenItem of(Long id, String itemName, Integer price, Integer quantity) {
+        return new FrozenItem(id, itemName, price, quantity);
+    }
+
+    static FrozenItem of(Item item) {
+        return item instanceof FrozenItem ? (FrozenItem) item
+                : new FrozenItem(item.getId(), item.getItemName(), item.getPrice(), item.getQuantity());
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw immutable();
+    }
+
+    @Override
+    public void setItemName(String itemName) {
+        throw immutable();
+    }
+
+    @Override
+    public void setPrice(Integer price) {
+        throw immutable();
+    }
+
+    @Override
+    public void setQuantity(Integer quantity) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("items returned by MemoryItemRepository are read-only, use update()");
+    }
+}
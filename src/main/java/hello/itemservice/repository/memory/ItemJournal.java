@@ -0,0 +1,423 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * MemoryItemRepository의 영속화 담당. (append-only 로그 + 주기적 스냅샷)
+ *
+ * 로그(wal-{세대}.log)
+ * - 고정 크기로 메모리 매핑한 세그먼트 파일에 save/update 결과(변경 후 Item 전체)를 순서대로 덧붙인다.
+ * - 레코드 형식: length(4) + crc32(4) + type(1) + Item. 세그먼트가 차면 다음 세대 파일로 넘어간다.
+ * - fsync(MappedByteBuffer.force)는 쓰기마다 하지 않고 flushIntervalMillis마다 한 번에 한다. (group commit)
+ *   waitForFlush가 true면 쓰기 스레드는 자기 레코드가 포함된 force가 끝날 때까지 기다린다.
+ *   false면 기다리지 않으므로, 장애 시 마지막 flushIntervalMillis 동안의 쓰기는 잃을 수 있다.
+ *
+ * 스냅샷(snapshot-{세대}.bin)
+ * - 로그를 새 세대로 넘긴 시점의 전체 상태를 기록한다. 스냅샷에 적힌 세대 이전의 로그는 필요 없으므로 지운다.
+ * - 임시 파일에 쓰고 fsync 한 뒤 rename 하므로, 가장 최근 스냅샷은 항상 온전하다.
+ *
+ * 복구
+ * - 가장 최근 스냅샷을 읽고, 그 세대 이후의 로그를 순서대로 재생한다.
+ * - 로그 끝의 깨진 레코드(길이 0, 크기 초과, crc 불일치)를 만나면 거기서 재생을 멈춘다.
+ */
+@Slf4j
+public class ItemJournal implements Closeable {
+
+    static final byte SAVE = 1;
+    static final byte UPDATE = 2;
+
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOT_MAGIC = 0x49544D53;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean waitForFlush;
+    private final ScheduledExecutorService scheduler;
+
+    // 아래 필드는 모두 lock으로 보호한다.
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long generation;
+    private long flushedGeneration;
+    private int flushedPosition;
+
+    public ItemJournal(Path dir, int segmentSize, long flushIntervalMillis, boolean waitForFlush) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.waitForFlush = waitForFlush;
+        // flush와 스냅샷이 서로를 막지 않도록 스레드 2개. (스냅샷 쓰는 동안에도 group commit은 계속되어야 함)
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "item-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 스냅샷과 로그를 읽어 상태를 복구하고, 이후 쓰기를 위한 새 세그먼트를 연다.
+     * 시작할 때 한 번만 호출한다.
+     *
+     * @param apply 복구된 Item을 받는다. 같은 id가 여러 번 오면 나중 것이 최신이다.
+     * @return 복구된 Item 중 가장 큰 id (시퀀스 복원용)
+     */
+    public long recover(Consumer<Item> apply) {
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(dir);
+            long startGeneration = 0;
+            long sequence = 0;
+
+            List<Long> snapshots = generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (!snapshots.isEmpty()) {
+                startGeneration = snapshots.get(snapshots.size() - 1);
+                sequence = loadSnapshot(snapshotPath(startGeneration), apply);
+            }
+
+            long records = 0;
+            long nextGeneration = startGeneration;
+            for (long gen : generations(LOG_PREFIX, LOG_SUFFIX)) {
+                if (gen < startGeneration) {
+                    continue;
+                }
+                long[] replayed = replay(logPath(gen), apply);
+                records += replayed[0];
+                sequence = Math.max(sequence, replayed[1]);
+                nextGeneration = gen + 1;
+            }
+
+            synchronized (lock) {
+                openSegment(nextGeneration);
+            }
+            log.info("journal recovered dir={} snapshotGeneration={} replayedRecords={} elapsed={}ms",
+                    dir, startGeneration, records, System.currentTimeMillis() - start);
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 레코드를 로그에 덧붙인다. 호출하는 쪽에서 상태 변경과 같은 순서로 호출되도록 직렬화해야 한다.
+     *
+     * @return awaitDurable()에 넘길 위치 정보
+     */
+    long append(byte type, Item item) {
+        byte[] name = ItemRecordCodec.nameBytes(item);
+        int payloadSize = 1 + ItemRecordCodec.size(name);
+        if (RECORD_HEADER_SIZE + payloadSize + 4 > segmentSize) {
+            throw new IllegalArgumentException("레코드가 세그먼트 크기보다 큽니다. size=" + payloadSize);
+        }
+
+        synchronized (lock) {
+            // 레코드 뒤에 길이 0(끝 표시)이 들어갈 4바이트를 항상 남겨둔다.
+            if (segment.remaining() < RECORD_HEADER_SIZE + payloadSize + 4) {
+                rotateSegment();
+            }
+            if (scratch.capacity() < payloadSize) {
+                scratch = ByteBuffer.allocate(payloadSize * 2);
+            }
+            scratch.clear();
+            scratch.put(type);
+            ItemRecordCodec.write(scratch, item, name);
+            scratch.flip();
+
+            crc.reset();
+            crc.update(scratch.array(), 0, scratch.limit());
+            segment.putInt(payloadSize);
+            segment.putInt((int) crc.getValue());
+            segment.put(scratch);
+            return (generation << 32) | segment.position();
+        }
+    }
+
+    /**
+     * waitForFlush 모드면 append()한 레코드가 디스크에 반영될 때까지 기다린다.
+     * 여러 스레드가 같은 force 한 번을 함께 기다리게 되므로, 호출하는 쪽의 락 밖에서 불러야 group commit 효과가 난다.
+     */
+    void awaitDurable(long ticket) {
+        if (!waitForFlush) {
+            return;
+        }
+        long gen = ticket >>> 32;
+        int position = (int) ticket;
+        synchronized (lock) {
+            while (flushedGeneration < gen || (flushedGeneration == gen && flushedPosition < position)) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("로그 flush 대기 중 인터럽트", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 로그를 새 세대로 넘긴다. 스냅샷을 뜨기 직전에 호출하며, 반환된 세대부터가 스냅샷 이후의 변경분이다.
+     * 호출하는 쪽은 상태를 복사하는 동안 쓰기를 막고 있어야 한다.
+     */
+    long rotate() {
+        synchronized (lock) {
+            rotateSegment();
+            return generation;
+        }
+    }
+
+    /**
+     * rotate()가 반환한 세대 기준의 전체 상태를 스냅샷으로 기록하고, 더 이상 필요 없는 로그와 스냅샷을 지운다.
+     */
+    void writeSnapshot(long startGeneration, long sequence, Collection<Item> items) {
+        long start = System.currentTimeMillis();
+        Path path = snapshotPath(startGeneration);
+        Path tmp = dir.resolve(path.getFileName() + ".tmp");
+        try (FileChannel snapshotChannel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(snapshotChannel), 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(startGeneration);
+            out.writeLong(sequence);
+            out.writeInt(items.size());
+
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            for (Item item : items) {
+                byte[] name = ItemRecordCodec.nameBytes(item);
+                int size = ItemRecordCodec.size(name);
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size * 2);
+                }
+                buffer.clear();
+                ItemRecordCodec.write(buffer, item, name);
+                out.writeShort(size);
+                out.write(buffer.array(), 0, size);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            snapshotChannel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (long gen : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (gen < startGeneration) {
+                    Files.deleteIfExists(snapshotPath(gen));
+                }
+            }
+            for (long gen : generations(LOG_PREFIX, LOG_SUFFIX)) {
+                if (gen < startGeneration) {
+                    Files.deleteIfExists(logPath(gen));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("snapshot written generation={} items={} elapsed={}ms",
+                startGeneration, items.size(), System.currentTimeMillis() - start);
+    }
+
+    public void scheduleSnapshots(Runnable snapshot, long intervalSeconds) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot.run();
+            } catch (RuntimeException e) {
+                log.error("snapshot failed", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (segment == null) {
+                return;
+            }
+            segment.force();
+            markFlushed(generation, segment.position());
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segment = null;
+        }
+    }
+
+    private void flush() {
+        MappedByteBuffer target;
+        long gen;
+        int position;
+        synchronized (lock) {
+            if (segment == null || (flushedGeneration == generation && flushedPosition == segment.position())) {
+                return;
+            }
+            target = segment;
+            gen = generation;
+            position = segment.position();
+        }
+        // force는 락 밖에서 한다. 그동안 다른 스레드는 계속 append 할 수 있다.
+        target.force();
+        synchronized (lock) {
+            markFlushed(gen, position);
+        }
+    }
+
+    private void markFlushed(long gen, int position) {
+        if (gen > flushedGeneration || (gen == flushedGeneration && position > flushedPosition)) {
+            flushedGeneration = gen;
+            flushedPosition = position;
+        }
+        lock.notifyAll();
+    }
+
+    private void rotateSegment() {
+        segment.force();
+        markFlushed(generation, segment.position());
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        openSegment(generation + 1);
+    }
+
+    private void openSegment(long gen) {
+        try {
+            channel = FileChannel.open(logPath(gen), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            generation = gen;
+            flushedGeneration = gen;
+            flushedPosition = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return {재생한 레코드 수, 가장 큰 id}
+     */
+    private long[] replay(Path path, Consumer<Item> apply) throws IOException {
+        long records = 0;
+        long maxId = 0;
+        try (FileChannel logChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = logChannel.map(FileChannel.MapMode.READ_ONLY, 0, logChannel.size());
+            CRC32 checksum = new CRC32();
+            byte[] payload = new byte[256];
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int expected = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length * 2];
+                }
+                buffer.get(payload, 0, length);
+                checksum.reset();
+                checksum.update(payload, 0, length);
+                if ((int) checksum.getValue() != expected) {
+                    log.warn("journal {} has a torn record at offset {}, ignoring the rest",
+                            path.getFileName(), buffer.position() - length - RECORD_HEADER_SIZE);
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload, 1, length - 1);
+                Item item = ItemRecordCodec.read(record);
+                apply.accept(item);
+                maxId = Math.max(maxId, item.getId());
+                records++;
+            }
+        }
+        return new long[]{records, maxId};
+    }
+
+    private long loadSnapshot(Path path, Consumer<Item> apply) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 64 * 1024), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("스냅샷 파일 형식이 아닙니다. " + path);
+            }
+            in.readLong(); // startGeneration은 파일 이름과 같다.
+            long sequence = in.readLong();
+            int count = in.readInt();
+
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int size = in.readUnsignedShort();
+                if (bytes.length < size) {
+                    bytes = new byte[size * 2];
+                }
+                in.readFully(bytes, 0, size);
+                apply.accept(ItemRecordCodec.read(ByteBuffer.wrap(bytes, 0, size)));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IllegalStateException("스냅샷 체크섬 불일치. " + path);
+            }
+            return sequence;
+        }
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path logPath(long gen) {
+        return dir.resolve(String.format("%s%020d%s", LOG_PREFIX, gen, LOG_SUFFIX));
+    }
+
+    private Path snapshotPath(long gen) {
+        return dir.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, gen, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,60 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 로그/스냅샷에 쓰는 Item 이진 형식.
+ * id(8) + flags(1) + price(4) + quantity(4) + nameLength(2) + name(UTF-8)
+ * price, quantity, itemName은 null일 수 있으므로 flags의 비트로 null 여부를 표시한다.
+ */
+final class ItemRecordCodec {
+
+    private static final int FIXED_SIZE = 8 + 1 + 4 + 4 + 2;
+    private static final int PRICE_NULL = 1;
+    private static final int QUANTITY_NULL = 1 << 1;
+    private static final int NAME_NULL = 1 << 2;
+
+    private ItemRecordCodec() {
+    }
+
+    static byte[] nameBytes(Item item) {
+        return item.getItemName() == null ? null : item.getItemName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int size(byte[] name) {
+        return FIXED_SIZE + (name == null ? 0 : name.length);
+    }
+
+    static void write(ByteBuffer buffer, Item item, byte[] name) {
+        int flags = (item.getPrice() == null ? PRICE_NULL : 0)
+                | (item.getQuantity() == null ? QUANTITY_NULL : 0)
+                | (name == null ? NAME_NULL : 0);
+        buffer.putLong(item.getId());
+        buffer.put((byte) flags);
+        buffer.putInt(item.getPrice() == null ? 0 : item.getPrice());
+        buffer.putInt(item.getQuantity() == null ? 0 : item.getQuantity());
+        buffer.putShort((short) (name == null ? 0 : name.length));
+        if (name != null) {
+            buffer.put(name);
+        }
+    }
+
+    static Item read(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        int flags = buffer.get();
+        int price = buffer.getInt();
+        int quantity = buffer.getInt();
+        byte[] name = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(name);
+
+        Item item = new Item(
+                (flags & NAME_NULL) != 0 ? null : new String(name, StandardCharsets.UTF_8),
+                (flags & PRICE_NULL) != 0 ? null : price,
+                (flags & QUANTITY_NULL) != 0 ? null : quantity);
+        item.setId(id);
+        return item;
+    }
+}
@@ -0,0 +1,97 @@
+package hello.itemservice.repository.memory;
+
+/**
+ * 상품 하나의 버전 목록. 저장소 맵에는 최신 버전이 들어 있고 prev로 이전 버전을 거슬러 올라간다.
+ * 오래된 버전은 쓰기가 잘라내므로(prev = null), 그보다 오래된 스냅샷으로 읽으면 SnapshotTooOldException.
+ * <p>
+ * 쓰기는 먼저 커밋 번호가 없는(PENDING) 버전을 목록 앞에 CAS로 붙이고, 그다음 커밋 번호를 받아 찍는다. (commit)
+ * 번호를 받기 전에 자리를 잡으므로 번호가 스냅샷 이하인 버전은 이미 목록에 들어 있다.
+ * 아직 번호가 없는 버전을 만난 읽기는, 받게 될 번호가 스냅샷보다 클 것이 확실하면(floor 이하 스냅샷) 건너뛰고
+ * 아니면 번호가 찍힐 때까지 잠깐 기다린다.
+ */
+final class ItemVersion {
+
+    static final long PENDING = Long.MAX_VALUE;
+
+    final FrozenItem item;
+    /**
+     * 이 상품의 첫 버전인지. 목록 끝이 첫 버전이 아닌데 더 거슬러 올라가야 하면 잘린 것이다.
+     */
+    final boolean first;
+    /**
+     * CAS로 붙이기 전에 읽은 커밋 번호. 이 버전이 받을 번호는 이보다 크다.
+     */
+    final long floor;
+    volatile long version = PENDING;
+    volatile ItemVersion prev;
+
+    ItemVersion(FrozenItem item, ItemVersion prev, long floor) {
+        this.item = item;
+        this.first = prev == null;
+        this.floor = floor;
+        this.prev = prev;
+    }
+
+    /**
+     * snapshot 시점에 보이던 값. 그때 아직 없던 상품이면 null.
+     */
+    FrozenItem visibleAt(long snapshot) {
+        ItemVersion current = this;
+        while (current.versionFor(snapshot) > snapshot) {
+            ItemVersion previous = current.prev;
+            if (previous == null) {
+                if (current.first) {
+                    return null;
+                }
+                throw SnapshotTooOldException.INSTANCE;
+            }
+            current = previous;
+        }
+        return current.item;
+    }
+
+    /**
+     * snapshot과 비교할 번호. 아직 번호가 없어도 floor 이하 스냅샷에는 어차피 안 보이므로 기다리지 않는다.
+     */
+    private long versionFor(long snapshot) {
+        long current = version;
+        while (current == PENDING && snapshot > floor) {
+            Thread.onSpinWait();
+            current = version;
+        }
+        return current;
+    }
+
+    /**
+     * 이 버전 위에 새 버전을 붙이기 전에 호출한다. 번호가 찍힌 뒤에 붙여야 목록의 번호가 앞쪽일수록 커진다.
+     */
+    void awaitCommitted() {
+        while (version == PENDING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * floor 이하 스냅샷은 더 이상 보장하지 않는다. floor 이하인 가장 최근 버전만 남기고 그 이전은 잘라낸다.
+     */
+    void prune(long floor) {
+        for (ItemVersion current = this; current != null; current = current.prev) {
+            if (current.version <= floor) {
+                current.prev = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 스냅샷이 보존 범위보다 오래됐을 때. 읽기는 새 스냅샷으로 다시 시작한다. 흐름 제어용이라 스택 트레이스를 만들지 않는다.
+     */
+    static final class SnapshotTooOldException extends RuntimeException {
+
+        static final SnapshotTooOldException INSTANCE = new SnapshotTooOldException();
+
+        private SnapshotTooOldException() {
+            super("snapshot too old", null, false, false);
+        }
+    }
+}
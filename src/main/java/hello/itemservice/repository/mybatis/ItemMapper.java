@@ -24,16 +24,46 @@ public interface ItemMapper {
 
     void save(Item item);
 
-    void update(@Param("id") Long id, @Param("updateParam") ItemUpdateDto updateParam);
+    /**
+     * 수정 전 행을 돌려준다. (select ... from old table(update ...))
+     */
+    Optional<Item> update(@Param("id") Long id, @Param("updateParam") ItemUpdateDto updateParam);
+
+    /**
+     * 반환 타입을 int로 하면 update된 행 수를 돌려준다. 재고가 모자라면 0.
+     */
+    int reserveStock(@Param("id") Long id, @Param("amount") int amount);
 
     Optional<Item> findById(Long id);
 
+    List<Item> findAllById(@Param("ids") List<Long> ids);
+
+    /**
+     * H2 MERGE ... KEY(id) 한 문장에 여러 행을 values로 넣는다. 있으면 update, 없으면 그 id로 insert.
+     */
+    void mergeAll(@Param("items") List<Item> items);
+
+    /**
+     * item_seq가 마지막으로 발급한 값과 재시작. mergeAll로 새 id를 넣은 뒤 ItemSequence.advancePast에서 쓴다.
+     */
+    long itemSequenceCurrentValue();
+
+    void restartItemSequence(@Param("value") long value);
+
+    /**
+     * item_seq 값을 count개 받는다. upsertAll에서 id 없는 상품의 id 블록으로 쓴다. (ItemSequence.assignIds)
+     */
+    List<Long> nextItemSequenceValues(@Param("count") int count);
+
     /**
      *  1. xml에서 resultType이 List<Item>이 아니라 Item인 이유?
      * 쿼리가 실행되어 여러 행을 반환하면, MyBatis는 각 행을 하나의 Item 객체로 매핑.
      * 매핑된 Item 객체들이 모여 List<Item> 형태로 반환됨.
      * 2. xml에서 itemSearch.itemName가 아니라 바로 itemName 사용 가능한 이유?
      * 단일 객체 파라미터일 때는 해당 파라미터의 필드들에 직접 접근할 수 있음.
+     * 3. order by에 ${} 사용
+     * #{}는 값 바인딩(?)이라 컬럼명에는 쓸 수 없다. ${}는 문자열 그대로 SQL에 들어가므로
+     * 사용자 입력이 아니라 ItemSortKey가 만든 문자열만 넣는다.
      */
     List<Item> findAll(ItemSearchCond itemSearch);
 }
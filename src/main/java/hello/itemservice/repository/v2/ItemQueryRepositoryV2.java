@@ -1,9 +1,12 @@
 package hello.itemservice.repository.v2;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import hello.itemservice.domain.Item;
+import hello.itemservice.projection.ItemProjector;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
@@ -16,18 +19,35 @@ import static hello.itemservice.domain.QItem.item;
 public class ItemQueryRepositoryV2 {
 
     private final JPAQueryFactory query;
+    private final ItemProjector projector;
 
     public ItemQueryRepositoryV2(EntityManager em) {
+        this(em, null);
+    }
+
+    /*
+    projector가 있으면(item.projection.enabled=true) 검색은 읽기 모델에서 처리한다. DB를 거치지 않으므로 쓰기 부하와 상관없이 늘릴 수 있다.
+    읽기 모델이 아직 준비 전이거나 허용 지연보다 뒤처져 있으면 예전처럼 item 테이블을 읽는다.
+     */
+    public ItemQueryRepositoryV2(EntityManager em, ItemProjector projector) {
         this.query = new JPAQueryFactory(em);
+        this.projector = projector;
     }
 
     public List<Item> findAll(ItemSearchCond cond) {
-        return query.select(item)
+        if (projector != null && projector.isFresh()) {
+            return projector.getProjection().findAll(cond);
+        }
+        JPAQuery<Item> findQuery = query.select(item)
                 .from(item)
                 .where(
                         likeItemName(cond.getItemName()),
                         maxPrice(cond.getMaxPrice()))
-                .fetch();
+                .orderBy(ItemSortKey.querydslOrderBy(cond.getSortOrDefault(), cond.isDesc()));
+        if (cond.getLimit() != null) {
+            findQuery.limit(cond.getLimit());
+        }
+        return findQuery.fetch();
     }
 
     private BooleanExpression likeItemName(String itemName) {
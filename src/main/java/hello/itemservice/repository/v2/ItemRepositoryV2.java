@@ -2,7 +2,16 @@ package hello.itemservice.repository.v2;
 
 import hello.itemservice.domain.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ItemRepositoryV2 extends JpaRepository<Item, Long> {
 
+    /*
+    조건부 재고 차감. SpringDataJpaItemRepository.reserveStock과 같음.
+    */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Item i set i.quantity = i.quantity - :amount where i.id = :id and i.quantity >= :amount")
+    int reserveStock(@Param("id") Long id, @Param("amount") int amount);
 }
@@ -0,0 +1,270 @@
+package hello.itemservice.search;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.ItemStreamer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품명 전문 검색 인덱스. (Lucene, 메모리 디렉터리)
+ *
+ * - 상품명을 3글자씩 잘라(3-gram) 색인한다. 검색어도 3글자씩 잘라 연속된 위치에 있는지(PhraseQuery) 보므로
+ *   결과는 LIKE '%검색어%'와 같다. (대소문자 구분도 같음) 3글자보다 짧은 검색어는 supports()가 false.
+ * - 가격은 포인트 필드로 색인해서 maxPrice도 인덱스 안에서 거른다.
+ * - 결과는 doc values로 저장소와 같은 순서로 정렬한다. ItemSortKey 순서(값 같으면 id 순), 정렬 조건이 없으면 id 순.
+ *   (관련도 순으로 자르면 LIKE 검색과 다른 상품이 잘린다)
+ * - 쓰기는 IndexWriter에 바로 반영하고, 검색에 보이는 것은 refreshMillis마다 SearcherManager가 새 검색기를 열 때. (near-real-time)
+ *   커밋은 하지 않는다. 기동할 때마다 저장소에서 다시 만든다.
+ */
+@Slf4j
+public class ItemSearchIndex implements Closeable {
+
+    static final int GRAM = 3;
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String PRICE = "price";
+    private static final String QUANTITY = "quantity";
+
+    private final int maxHits;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService refresher;
+    private Map<Long, Item> pending;
+
+    public ItemSearchIndex(long refreshMillis, int maxHits) {
+        this.maxHits = maxHits;
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new GramAnalyzer()));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "item-search-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 인덱스로 처리할 수 있는 조건인지. 상품명 조건이 GRAM 글자 이상일 때만.
+     */
+    public boolean supports(ItemSearchCond cond) {
+        return cond.getItemName() != null && cond.getItemName().length() >= GRAM;
+    }
+
+    /**
+     * limit 없는 조건을 인덱스에서 처음 가져올 건수. 더 있으면 SearchingItemService가 늘려 가며 전부 가져온다.
+     */
+    public int getMaxHits() {
+        return maxHits;
+    }
+
+    /**
+     * @return 조건에 맞는 상품 id. cond의 정렬 순(없으면 id 순)으로 앞에서부터 최대 hits건
+     */
+    public List<Long> search(ItemSearchCond cond, int hits) {
+        // 저장소와 같이 getSortOrDefault 기준. 정렬도 limit도 없으면 저장소는 정렬하지 않지만 H2는 기본키 순으로 읽는다.
+        ItemSortKey sortKey = cond.getSortOrDefault();
+        boolean desc = sortKey != null && cond.isDesc();
+        if (sortKey == null) {
+            sortKey = ItemSortKey.ID;
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query(cond), hits, sort(sortKey, desc));
+                List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    ids.add(Long.parseLong(searcher.doc(scoreDoc.doc).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void index(Item item) {
+        if (pending != null) {
+            pending.put(item.getId(), item);
+        }
+        update(item);
+    }
+
+    /**
+     * 저장소 전체를 스트리밍으로 읽어 다시 색인한다. 읽는 동안 들어온 변경은 모아 두었다가 마지막에 한 번 더 반영해서,
+     * 스트리밍이 읽은 예전 값이 최신 변경을 덮어쓰지 않게 한다.
+     */
+    public void rebuild(ItemStreamer streamer) {
+        synchronized (this) {
+            pending = new HashMap<>();
+            try {
+                writer.deleteAll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        try {
+            streamer.stream(new ItemSearchCond(), this::update);
+        } finally {
+            synchronized (this) {
+                pending.values().forEach(this::update);
+                pending = null;
+            }
+        }
+        refresh();
+    }
+
+    public int size() {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 테스트, 벤치마크용. 다음 주기를 기다리지 않고 지금까지의 쓰기를 검색에 보이게 한다.
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("item search index refresh failed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        refresher.shutdownNow();
+        searcherManager.close();
+        writer.close();
+    }
+
+    private void update(Item item) {
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(item.getId())), document(item));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Document document(Item item) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(item.getId()), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID, item.getId()));
+        if (item.getItemName() != null) {
+            document.add(new TextField(NAME, item.getItemName(), Field.Store.NO));
+            document.add(new SortedDocValuesField(NAME, new BytesRef(item.getItemName())));
+        }
+        if (item.getPrice() != null) {
+            document.add(new IntPoint(PRICE, item.getPrice()));
+            document.add(new NumericDocValuesField(PRICE, item.getPrice()));
+        }
+        if (item.getQuantity() != null) {
+            document.add(new NumericDocValuesField(QUANTITY, item.getQuantity()));
+        }
+        return document;
+    }
+
+    /**
+     * 검색어의 3-gram이 색인된 위치와 같은 간격(1칸씩)으로 연속해야 일치. 검색어가 딱 3글자면 단어 하나.
+     */
+    private static Query query(ItemSearchCond cond) {
+        String itemName = cond.getItemName();
+        String[] grams = new String[itemName.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = itemName.substring(i, i + GRAM);
+        }
+        Query nameQuery = grams.length == 1 ? new TermQuery(new Term(NAME, grams[0])) : new PhraseQuery(NAME, grams);
+        if (cond.getMaxPrice() == null) {
+            return nameQuery;
+        }
+        return new BooleanQuery.Builder()
+                .add(nameQuery, BooleanClause.Occur.MUST)
+                .add(IntPoint.newRangeQuery(PRICE, Integer.MIN_VALUE, cond.getMaxPrice()), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    /**
+     * ItemSortKey.comparator와 같은 순서. null(값 없음)은 가장 작은 값. (desc면 reverse가 뒤집어서 맨 뒤)
+     */
+    private static Sort sort(ItemSortKey sortKey, boolean desc) {
+        SortField byId = new SortField(ID, SortField.Type.LONG, desc);
+        switch (sortKey) {
+            case NAME:
+                SortField byName = new SortField(NAME, SortField.Type.STRING, desc);
+                byName.setMissingValue(SortField.STRING_FIRST);
+                return new Sort(byName, byId);
+            case PRICE:
+                return new Sort(intField(PRICE, desc), byId);
+            case QUANTITY:
+                return new Sort(intField(QUANTITY, desc), byId);
+            default:
+                return new Sort(byId);
+        }
+    }
+
+    private static SortField intField(String field, boolean desc) {
+        SortField sortField = new SortField(field, SortField.Type.INT, desc);
+        sortField.setMissingValue(Integer.MIN_VALUE);
+        return sortField;
+    }
+
+    /**
+     * 상품명 전체를 GRAM 글자씩 겹치게 자른다. (pencil -> pen, enc, nci, cil 위치 0, 1, 2, 3)
+     */
+    private static class GramAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            return new TokenStreamComponents(new NGramTokenizer(GRAM, GRAM));
+        }
+    }
+}
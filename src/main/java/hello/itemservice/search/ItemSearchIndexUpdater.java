@@ -0,0 +1,35 @@
+package hello.itemservice.search;
+
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.service.ItemChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 기동 시 저장소 전체로 검색 인덱스를 만들고, 이후에는 ItemChangedEvent로 바뀐 상품 문서만 다시 색인한다.
+ * 커밋된 변경만 반영한다. fallbackExecution : 트랜잭션 밖에서 발행된 이벤트는 바로 반영.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ItemSearchIndexUpdater {
+
+    private final ItemSearchIndex index;
+    private final ItemStreamer streamer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.rebuild(streamer);
+        log.info("item search index built docs={} elapsed={}ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.getAfter() != null) {
+            index.index(event.getAfter());
+        }
+    }
+}
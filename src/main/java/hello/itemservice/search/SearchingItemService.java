@@ -0,0 +1,116 @@
+package hello.itemservice.search;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
+import hello.itemservice.service.ItemService;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 상품명 조건 검색을 전문 검색 인덱스로 처리하는 ItemService.
+ * 인덱스로 id만 찾고 행은 저장소에서 id로 다시 읽는다. (화면에 보이는 값은 항상 DB 기준)
+ * 인덱스는 refresh 주기만큼 늦을 수 있으므로, 읽어 온 행이 조건에 안 맞으면 버리고 그만큼 인덱스에서 더 가져온다.
+ * 반대로 방금 바뀌어서 새로 조건에 맞게 된 상품은 다음 refresh 전까지 빠질 수 있다.
+ * 결과 순서는 저장소와 같다. (정렬 조건 순, 없으면 id 순. ItemSearchIndex.search)
+ * 저장/수정 등 나머지는 그대로 넘긴다.
+ */
+@RequiredArgsConstructor
+public class SearchingItemService implements ItemService {
+
+    private final ItemService delegate;
+    private final ItemSearchIndex index;
+
+    @Override
+    public Item save(Item item) {
+        return delegate.save(item);
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        delegate.update(itemId, updateParam);
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    /**
+     * 버려지는 행이 있으면 limit건을 못 채울 수 있으므로, 인덱스에서 두 배씩 더 가져와 다시 거른다.
+     * 인덱스가 더 줄 것이 없으면(요청한 것보다 적게 오면) 그대로 끝낸다.
+     * limit이 없으면 LIKE 검색처럼 조건에 맞는 전부를 돌려준다. maxHits부터 시작해서 인덱스가 다 줄 때까지 늘린다. (자르지 않음)
+     */
+    @Override
+    public List<Item> findItems(ItemSearchCond cond) {
+        if (!index.supports(cond)) {
+            return delegate.findItems(cond);
+        }
+        int limit = cond.getLimit() != null ? cond.getLimit() : Integer.MAX_VALUE;
+        ItemSortKey sortKey = cond.getSortOrDefault();
+        // 인덱스의 정렬 값도 늦을 수 있으므로 읽어 온 실제 값으로 다시 정렬한다.
+        Comparator<Item> order = sortKey != null ? sortKey.comparator(cond.isDesc()) : ItemSortKey.ID.comparator(false);
+        int hits = cond.getLimit() != null ? limit : index.getMaxHits();
+        while (true) {
+            List<Long> ids = index.search(cond, hits);
+            List<Item> items = load(ids, cond);
+            items.sort(order);
+            if (items.size() >= limit || ids.size() < hits || hits > Integer.MAX_VALUE / 2) {
+                return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+            }
+            hits *= 2;
+        }
+    }
+
+    /**
+     * 인덱스 순서대로 행을 읽고 조건에 안 맞는 것(인덱스가 늦은 것)은 버린다.
+     */
+    private List<Item> load(List<Long> ids, ItemSearchCond cond) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Item> rows = new HashMap<>();
+        for (Item item : delegate.findAllById(ids)) {
+            rows.put(item.getId(), item);
+        }
+        List<Item> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Item item = rows.get(id);
+            if (item != null && matches(item, cond)) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        return delegate.reserveStock(itemId, amount);
+    }
+
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        return delegate.upsertAll(items);
+    }
+
+    private static boolean matches(Item item, ItemSearchCond cond) {
+        if (item.getItemName() == null || !item.getItemName().contains(cond.getItemName())) {
+            return false;
+        }
+        return cond.getMaxPrice() == null || (item.getPrice() != null && item.getPrice() <= cond.getMaxPrice());
+    }
+}
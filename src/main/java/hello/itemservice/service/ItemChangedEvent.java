@@ -0,0 +1,39 @@
+package hello.itemservice.service;
+
+import hello.itemservice.domain.Item;
+import lombok.Data;
+
+/**
+ * 상품이 저장/수정될 때 ItemService가 발행하는 이벤트.
+ * before는 변경 전, after는 변경 후 상태의 복사본. 새로 저장된 경우 before는 null.
+ * JPA 엔티티는 이후에도 계속 바뀔 수 있으므로 발행 시점의 값을 복사해서 담는다.
+ */
+@Data
+public class ItemChangedEvent {
+
+    private final Item before;
+    private final Item after;
+
+    public static ItemChangedEvent saved(Item after) {
+        return new ItemChangedEvent(null, copyOf(after));
+    }
+
+    public static ItemChangedEvent updated(Item before, Item after) {
+        return new ItemChangedEvent(copyOf(before), copyOf(after));
+    }
+
+    /**
+     * 재고 차감은 조회 없이 처리되므로, 차감 후 상태(after)에서 변경 전 상태를 되돌려 만든다.
+     */
+    public static ItemChangedEvent stockReserved(Item after, int amount) {
+        Item before = copyOf(after);
+        before.setQuantity(after.getQuantity() + amount);
+        return new ItemChangedEvent(before, copyOf(after));
+    }
+
+    public static Item copyOf(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        return copy;
+    }
+}
@@ -3,6 +3,8 @@ package hello.itemservice.service;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,4 +18,10 @@ public interface ItemService {
     Optional<Item> findById(Long id);
 
     List<Item> findItems(ItemSearchCond itemSearch);
+
+    List<Item> findAllById(List<Long> ids);
+
+    StockReservation reserveStock(Long itemId, int amount);
+
+    ItemUpsertResult upsertAll(List<Item> items);
 }
@@ -4,40 +4,106 @@ import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * 저장/수정할 때마다 ItemChangedEvent를 발행한다. (재고 통계 등이 전체 조회 없이 변경분만 반영하도록)
+ * 수정 전 값은 리포지토리의 update가 돌려준 것을 쓴다. (따로 조회하지 않음)
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional
-public class ItemServiceV1 implements ItemService {
+public class ItemServiceV1 implements ItemService, ApplicationEventPublisherAware {
 
     /*
     itemRepository 하나에만 의존함.
      */
     private final ItemRepository itemRepository;
 
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     @Override
     public Item save(Item item) {
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        eventPublisher.publishEvent(ItemChangedEvent.saved(savedItem));
+        return savedItem;
     }
 
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        itemRepository.update(itemId, updateParam);
+        itemRepository.update(itemId, updateParam).ifPresent(item -> {
+            Item after = new Item(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+            after.setId(itemId);
+            eventPublisher.publishEvent(ItemChangedEvent.updated(item, after));
+        });
+    }
+
+    /**
+     * 차감 자체는 조건부 update 한 번이고, 성공했을 때만 이벤트에 필요한 가격을 알기 위해 다시 읽는다.
+     */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation result = itemRepository.reserveStock(itemId, amount);
+        if (result == StockReservation.RESERVED) {
+            itemRepository.findById(itemId)
+                    .ifPresent(item -> eventPublisher.publishEvent(ItemChangedEvent.stockReserved(item, amount)));
+        }
+        return result;
     }
 
+    /**
+     * 변경 전 값은 리포지토리가 insert/update를 구분하려고 조회한 것(previous)을 그대로 쓴다.
+     */
     @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        ItemUpsertResult result = itemRepository.upsertAll(items);
+        publishUpserted(eventPublisher, items, result);
+        return result;
+    }
+
+    static void publishUpserted(ApplicationEventPublisher eventPublisher, List<Item> items, ItemUpsertResult result) {
+        for (Item item : ItemUpsertResult.lastPerId(items)) {
+            Item before = result.getPrevious().get(item.getId());
+            if (before == null) {
+                eventPublisher.publishEvent(ItemChangedEvent.saved(item));
+            } else {
+                eventPublisher.publishEvent(ItemChangedEvent.updated(before, item));
+            }
+        }
+    }
+
+    /*
+    조회는 읽기 전용 트랜잭션. (findById 묶음 조회는 읽기/쓰기 트랜잭션 안의 조회는 모으지 않는다. BatchingItemRepository)
+     */
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Item> findById(Long id) {
         return itemRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Item> findItems(ItemSearchCond cond) {
         return itemRepository.findAll(cond);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> findAllById(List<Long> ids) {
+        return itemRepository.findAllById(ids);
+    }
 }
@@ -3,19 +3,25 @@ package hello.itemservice.service;
 import hello.itemservice.domain.Item;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.repository.StockReservation;
+import hello.itemservice.repository.jpa.JpaItemUpsert;
 import hello.itemservice.repository.v2.ItemQueryRepositoryV2;
 import hello.itemservice.repository.v2.ItemRepositoryV2;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
-public class ItemServiceV2 implements ItemService {
+public class ItemServiceV2 implements ItemService, ApplicationEventPublisherAware {
 
     /*
     ItemRepositoryV2, ItemQueryRepositoryV2에 의존.
@@ -31,18 +37,63 @@ public class ItemServiceV2 implements ItemService {
     private final ItemRepositoryV2 itemRepositoryV2;
     private final ItemQueryRepositoryV2 itemQueryRepositoryV2;
 
+    /*
+    upsertAll에서만 사용. (JpaItemUpsert)
+     */
+    private final EntityManager em;
+
+    /*
+    저장/수정할 때마다 ItemChangedEvent 발행. (ItemServiceV1과 동일)
+     */
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     @Override
 
     public Item save(Item item) {
-        return itemRepositoryV2.save(item);
+        Item savedItem = itemRepositoryV2.save(item);
+        eventPublisher.publishEvent(ItemChangedEvent.saved(savedItem));
+        return savedItem;
     }
 
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
         Item findItem = itemRepositoryV2.findById(itemId).orElseThrow(); // Optional 객체를 원본 타입으로 반환.
+        Item before = ItemChangedEvent.copyOf(findItem);
         findItem.setItemName(updateParam.getItemName());
         findItem.setPrice(updateParam.getPrice());
         findItem.setQuantity(updateParam.getQuantity());
+        eventPublisher.publishEvent(ItemChangedEvent.updated(before, findItem));
+    }
+
+    /*
+    update()처럼 find + 변경 감지로 처리하면 동시에 같은 재고를 읽은 트랜잭션끼리 차감이 유실된다.
+    ItemRepositoryV2의 조건부 벌크 update 한 번으로 처리.
+     */
+    @Override
+    public StockReservation reserveStock(Long itemId, int amount) {
+        StockReservation.validateAmount(amount);
+        if (itemRepositoryV2.reserveStock(itemId, amount) == 1) {
+            itemRepositoryV2.findById(itemId)
+                    .ifPresent(item -> eventPublisher.publishEvent(ItemChangedEvent.stockReserved(item, amount)));
+            return StockReservation.RESERVED;
+        }
+        return StockReservation.failed(itemRepositoryV2.existsById(itemId));
+    }
+
+    /*
+    itemRepositoryV2.save(item)은 id가 있으면 merge라서 건마다 select가 나간다.
+    findAllById(in 조회 한 번)로 기존 엔티티를 올려두고 값을 복사한다. 없는 id는 MERGE 배치 하나. (JpaItemUpsert)
+     */
+    @Override
+    public ItemUpsertResult upsertAll(List<Item> items) {
+        ItemUpsertResult result = JpaItemUpsert.upsertAll(em, items, itemRepositoryV2::findAllById);
+        ItemServiceV1.publishUpserted(eventPublisher, items, result);
+        return result;
     }
 
     @Override
@@ -54,4 +105,9 @@ public class ItemServiceV2 implements ItemService {
     public List<Item> findItems(ItemSearchCond itemSearch) {
         return itemQueryRepositoryV2.findAll(itemSearch);
     }
+
+    @Override
+    public List<Item> findAllById(List<Long> ids) {
+        return itemRepositoryV2.findAllById(ids);
+    }
 }
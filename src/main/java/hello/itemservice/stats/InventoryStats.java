@@ -0,0 +1,165 @@
+package hello.itemservice.stats;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 재고 통계(상품 수, 총 수량, 재고 금액, 가격대별 상품 수)를 변경분만으로 유지한다.
+ *
+ * 저장/수정 때마다 변경 전 상품의 기여분을 빼고 변경 후 상품의 기여분을 더한다. (apply)
+ * 카운터는 LongAdder라 여러 스레드가 동시에 더해도 서로 기다리지 않고, 조회는 카운터 몇 개의 합이라 상품 수와 무관하다.
+ * 각 값은 정확하지만 값들 사이는 원자적인 스냅샷이 아니다. (조회 중에 반영된 변경은 일부 값에만 보일 수 있음)
+ *
+ * 같은 상품을 동시에 수정하면 둘 다 같은 before를 보고 빼는 식으로 DB와 어긋날 수 있다.
+ * 이런 오차는 InventoryStatsReconciler가 주기적으로 DB 집계와 비교해서 보정한다. (observe -> 집계 -> correct)
+ *
+ * 보정은 집계하는 동안 변경이 하나도 없었을 때만 한다.
+ * 집계 중에 커밋된 변경은 DB 집계와 카운터 양쪽에 들어갈 수도, 한쪽에만 들어갈 수도 있어서 차이를 더하면 오히려 어긋나기 때문이다.
+ * 그래서 변경마다 시작/끝을 센다. (changesStarted/changesFinished)
+ * 리스너는 이벤트가 발행된 시점(커밋 전)에 시작을 세고 트랜잭션이 끝난 뒤에 끝을 센다. apply도 자체로 시작/끝을 센다.
+ */
+@Slf4j
+public class InventoryStats {
+
+    /**
+     * 가격대 경계. [0, 10000), [10000, 50000), [50000, 200000), [200000, 1000000), [1000000, ~)
+     */
+    static final int[] PRICE_BAND_BOUNDS = {10_000, 50_000, 200_000, 1_000_000};
+    static final List<String> PRICE_BAND_LABELS = priceBandLabels();
+
+    private final LongAdder itemCount = new LongAdder();
+    private final LongAdder totalQuantity = new LongAdder();
+    private final LongAdder stockValue = new LongAdder();
+    private final LongAdder[] priceBandCounts = new LongAdder[PRICE_BAND_BOUNDS.length + 1];
+    private final AtomicLong changesStarted = new AtomicLong();
+    private final AtomicLong changesFinished = new AtomicLong();
+
+    public InventoryStats() {
+        for (int i = 0; i < priceBandCounts.length; i++) {
+            priceBandCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param before 변경 전 상품. 새로 저장된 경우 null
+     * @param after  변경 후 상품
+     */
+    public void apply(Item before, Item after) {
+        beginChange();
+        try {
+            if (before != null) {
+                add(before, -1);
+            }
+            if (after != null) {
+                add(after, 1);
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * 저장소에는 반영됐거나 곧 반영될 변경이 아직 apply되지 않은 구간의 시작. endChange와 반드시 짝을 맞춘다.
+     */
+    public void beginChange() {
+        changesStarted.incrementAndGet();
+    }
+
+    public void endChange() {
+        changesFinished.incrementAndGet();
+    }
+
+    private void add(Item item, int sign) {
+        long quantity = value(item.getQuantity());
+        long price = value(item.getPrice());
+        itemCount.add(sign);
+        totalQuantity.add(sign * quantity);
+        stockValue.add(sign * price * quantity);
+        priceBandCounts[priceBand(price)].add(sign);
+    }
+
+    public InventoryTotals snapshot() {
+        List<Long> bands = new ArrayList<>(priceBandCounts.length);
+        for (LongAdder count : priceBandCounts) {
+            bands.add(count.sum());
+        }
+        return new InventoryTotals(itemCount.sum(), totalQuantity.sum(), stockValue.sum(), bands, PRICE_BAND_LABELS);
+    }
+
+    /**
+     * 집계 직전에 호출한다. 진행 중인 변경이 있으면 null. (이번 보정은 건너뜀)
+     * finished를 먼저 읽고 started를 읽으므로, 둘이 같으면 finished를 읽은 순간 진행 중인 변경이 없었다.
+     */
+    public Observation observe() {
+        long finished = changesFinished.get();
+        long started = changesStarted.get();
+        if (started != finished) {
+            return null;
+        }
+        return new Observation(started, snapshot());
+    }
+
+    /**
+     * DB 집계(actual)와 집계 직전의 통계(observation)의 차이만큼 더한다.
+     * observe 이후 시작된 변경이 있으면 그 변경이 집계와 카운터 중 어디에 들어갔는지 알 수 없으므로 보정하지 않는다.
+     * 여기서 확인한 뒤에 시작된 변경은 아직 커밋 전이라 집계에 없고, 자기 몫은 스스로 apply하므로 차이를 더해도 된다.
+     * @return 보정이 있었으면 true
+     */
+    public boolean correct(Observation observation, InventoryTotals actual) {
+        InventoryTotals observed = observation.totals;
+        if (changesStarted.get() != observation.changes) {
+            log.debug("inventory stats correction skipped: items changed during aggregation");
+            return false;
+        }
+        if (observed.equals(actual)) {
+            return false;
+        }
+        log.info("inventory stats drift observed={} actual={}", observed, actual);
+        itemCount.add(actual.getItemCount() - observed.getItemCount());
+        totalQuantity.add(actual.getTotalQuantity() - observed.getTotalQuantity());
+        stockValue.add(actual.getStockValue() - observed.getStockValue());
+        for (int i = 0; i < priceBandCounts.length; i++) {
+            priceBandCounts[i].add(actual.getPriceBandCounts().get(i) - observed.getPriceBandCounts().get(i));
+        }
+        return true;
+    }
+
+    /**
+     * 집계 직전의 통계와 그때까지 시작된 변경 수.
+     */
+    public static class Observation {
+        private final long changes;
+        private final InventoryTotals totals;
+
+        Observation(long changes, InventoryTotals totals) {
+            this.changes = changes;
+            this.totals = totals;
+        }
+    }
+
+    static int priceBand(long price) {
+        int index = Arrays.binarySearch(PRICE_BAND_BOUNDS, (int) Math.min(price, Integer.MAX_VALUE));
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static long value(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static List<String> priceBandLabels() {
+        List<String> labels = new ArrayList<>();
+        int low = 0;
+        for (int bound : PRICE_BAND_BOUNDS) {
+            labels.add(low + "-" + (bound - 1));
+            low = bound;
+        }
+        labels.add(low + "-");
+        return List.copyOf(labels);
+    }
+}
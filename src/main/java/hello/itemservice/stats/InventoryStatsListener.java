@@ -0,0 +1,41 @@
+package hello.itemservice.stats;
+
+import hello.itemservice.service.ItemChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 커밋된 변경만 통계에 반영한다. 롤백된 저장/수정은 반영하지 않는다.
+ * 트랜잭션 밖에서 발행된 이벤트는 바로 반영.
+ *
+ * @TransactionalEventListener(AFTER_COMMIT)와 같은 동작을 직접 등록하는 이유는, 보정(InventoryStatsReconciler)이
+ * "DB에는 커밋됐지만 아직 반영 전인 변경"을 알 수 있도록 발행 시점(커밋 전)부터 트랜잭션이 끝날 때까지를 변경 진행 중으로 세기 위해서다.
+ * afterCompletion은 커밋/롤백과 관계없이 항상 불리므로 beginChange/endChange가 어긋나지 않는다.
+ */
+@RequiredArgsConstructor
+public class InventoryStatsListener {
+
+    private final InventoryStats stats;
+
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stats.apply(event.getBefore(), event.getAfter());
+            return;
+        }
+        stats.beginChange();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stats.apply(event.getBefore(), event.getAfter());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                stats.endChange();
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package hello.itemservice.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.function.Supplier;
+
+/**
+ * 통계를 저장소 전체 집계와 비교해서 보정한다.
+ * 기동 시 한 번 실행해서 기존 데이터로 초기값을 채우고, 이후에는 item.stats.reconcile-interval-millis 주기로 실행.
+ * 집계는 전체 스캔이므로 조회 요청마다가 아니라 여기서만 한다.
+ * 집계 전후로 변경이 있었으면 보정하지 않고 다음 주기로 넘긴다. (InventoryStats.correct)
+ * 쓰기가 쉬지 않는 동안에는 보정이 미뤄지지만, 잘못 보정해서 오차를 키우지는 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryStatsReconciler {
+
+    private final InventoryStats stats;
+    private final Supplier<InventoryTotals> source;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${item.stats.reconcile-interval-millis:60000}",
+            initialDelayString = "${item.stats.reconcile-interval-millis:60000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        InventoryStats.Observation observed = stats.observe();
+        if (observed == null) {
+            log.debug("inventory stats reconcile skipped: changes in flight");
+            return;
+        }
+        InventoryTotals actual = source.get();
+        boolean corrected = stats.correct(observed, actual);
+        log.debug("inventory stats reconciled corrected={} elapsed={}ms", corrected, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,19 @@
+package hello.itemservice.stats;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 재고 통계 값. GET /items/stats 응답으로도 그대로 쓴다.
+ * stockValue = sum(price * quantity). priceBandCounts는 InventoryStats.PRICE_BAND_LABELS와 같은 순서.
+ */
+@Data
+public class InventoryTotals {
+
+    private final long itemCount;
+    private final long totalQuantity;
+    private final long stockValue;
+    private final List<Long> priceBandCounts;
+    private final List<String> priceBands;
+}
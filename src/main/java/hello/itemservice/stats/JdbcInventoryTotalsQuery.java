@@ -0,0 +1,67 @@
+package hello.itemservice.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 재고 통계를 DB에서 한 번의 집계 쿼리로 계산한다. (보정용)
+ * InventoryStats와 같은 규칙: null 가격/수량은 0으로 보고, 가격대는 PRICE_BAND_BOUNDS 기준.
+ */
+@Slf4j
+public class JdbcInventoryTotalsQuery implements Supplier<InventoryTotals> {
+
+    private final JdbcTemplate template;
+    private final String sql;
+
+    public JdbcInventoryTotalsQuery(DataSource dataSource) {
+        this.template = new JdbcTemplate(dataSource);
+        this.sql = buildSql();
+    }
+
+    @Override
+    public InventoryTotals get() {
+        return template.queryForObject(sql, (rs, rowNum) -> {
+            List<Long> bands = new ArrayList<>();
+            for (int i = 0; i <= InventoryStats.PRICE_BAND_BOUNDS.length; i++) {
+                bands.add(rs.getLong("band" + i));
+            }
+            return new InventoryTotals(rs.getLong("item_count"), rs.getLong("total_quantity"),
+                    rs.getLong("stock_value"), bands, InventoryStats.PRICE_BAND_LABELS);
+        });
+    }
+
+    /*
+    select count(*) item_count,
+           coalesce(sum(quantity), 0) total_quantity,
+           coalesce(sum(cast(price as bigint) * quantity), 0) stock_value,
+           coalesce(sum(case when coalesce(price, 0) < 10000 then 1 else 0 end), 0) band0,
+           coalesce(sum(case when coalesce(price, 0) >= 10000 and coalesce(price, 0) < 50000 then 1 else 0 end), 0) band1,
+           ...
+    from item
+     */
+    private static String buildSql() {
+        int[] bounds = InventoryStats.PRICE_BAND_BOUNDS;
+        StringBuilder sql = new StringBuilder("select count(*) item_count")
+                .append(", coalesce(sum(quantity), 0) total_quantity")
+                .append(", coalesce(sum(cast(coalesce(price, 0) as bigint) * coalesce(quantity, 0)), 0) stock_value");
+        for (int i = 0; i <= bounds.length; i++) {
+            String condition;
+            if (i == 0) {
+                condition = "coalesce(price, 0) < " + bounds[0];
+            } else if (i == bounds.length) {
+                condition = "coalesce(price, 0) >= " + bounds[i - 1];
+            } else {
+                condition = "coalesce(price, 0) >= " + bounds[i - 1] + " and coalesce(price, 0) < " + bounds[i];
+            }
+            sql.append(", coalesce(sum(case when ").append(condition).append(" then 1 else 0 end), 0) band").append(i);
+        }
+        sql.append(" from item");
+        log.debug("inventory totals sql={}", sql);
+        return sql.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package hello.itemservice.trace;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 기준 시간보다 오래 걸린 SQL 실행 한 건. plan은 explain 기준 시간을 넘긴 select만 채워진다.
+ */
+@Data
+public class SlowStatement {
+
+    private final String sql;
+    private final List<String> binds;
+    private final double elapsedMillis;
+    private final Instant executedAt;
+    private final String thread;
+    private String plan;
+}
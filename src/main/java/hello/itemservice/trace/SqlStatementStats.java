@@ -0,0 +1,41 @@
+package hello.itemservice.trace;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 문장 하나(같은 SQL 문자열)의 누적 실행 시간. 샘플링된 실행만 더한다.
+ */
+class SqlStatementStats {
+
+    private final String sql;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    SqlStatementStats(String sql) {
+        this.sql = sql;
+    }
+
+    void add(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,193 @@
+package hello.itemservice.trace;
+
+import hello.itemservice.jdbc.JdbcListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * InterceptingDataSource가 잰 SQL 실행 시간을 모은다. (JdbcListener로 붙는다)
+ *
+ * - 실행 시간은 매번 재지만(nanoTime 두 번), SQL별 누적 통계에는 sampleRate 비율만 더한다.
+ * - slowThreshold 이상 걸린 실행은 샘플링과 관계없이 바인드 값과 함께 링 버퍼에 남긴다. (가장 오래된 것부터 덮어씀)
+ * - explainThreshold 이상 걸린 select(with로 시작하는 쿼리 포함)는 같은 SQL, 같은 바인드 값으로 EXPLAIN을 실행해 실행 계획을 붙인다.
+ *   EXPLAIN은 SQL을 실행한 그 커넥션(추적되지 않는 원본)으로 바로 실행한다. 풀에서 커넥션을 하나 더 빌리면
+ *   풀 크기가 작을 때 원래 커넥션을 쥔 채로 풀을 기다리게 되기 때문이다.
+ *   SQL별로 한 번만 실행하고(실패도 결과로 남김), 실패한 실행과 H2가 아닌 DB에서는 하지 않는다.
+ */
+@Slf4j
+public class SqlTraceRecorder implements JdbcListener, JdbcListener.ConnectionListener {
+
+    private static final int MAX_STATEMENTS = 1000;
+    private static final int MAX_PLANS = 500;
+    private static final int MAX_BIND_LENGTH = 100;
+    private static final String OTHER_STATEMENTS = "(other)";
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final long explainThresholdNanos;
+
+    private final Map<String, SqlStatementStats> statements = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SlowStatement> slowStatements;
+    private final AtomicLong slowSequence = new AtomicLong();
+    private final Map<String, String> plans = new ConcurrentHashMap<>();
+    private volatile boolean explainSupported = true;
+
+    public SqlTraceRecorder(double sampleRate, long slowThresholdMillis, long explainThresholdMillis, int ringSize) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.explainThresholdNanos = TimeUnit.MILLISECONDS.toNanos(explainThresholdMillis);
+        this.slowStatements = new AtomicReferenceArray<>(ringSize);
+    }
+
+    /**
+     * 커넥션별로 들고 있을 상태가 없으므로 모든 커넥션에 자신을 붙인다.
+     */
+    @Override
+    public ConnectionListener acquired(long waitNanos) {
+        return this;
+    }
+
+    /**
+     * @param connection SQL을 실행한 원본 커넥션. EXPLAIN을 여기서 실행한다. (추적되지 않도록 프록시가 아닌 원본)
+     * @param binds      바인드 값. 인덱스 0 = 첫 번째 파라미터. 없으면 null
+     * @param failed     실행이 예외로 끝났으면 true. 시간은 기록하지만 EXPLAIN은 하지 않는다.
+     */
+    @Override
+    public void executed(Connection connection, String sql, Object[] binds, long nanos, boolean failed) {
+        if (sql == null) {
+            return;
+        }
+        if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            stats(sql).add(nanos);
+        }
+        if (nanos < slowThresholdNanos) {
+            return;
+        }
+        SlowStatement slow = new SlowStatement(sql, render(binds), nanos / 1_000_000.0, Instant.now(),
+                Thread.currentThread().getName());
+        slowStatements.set((int) (slowSequence.getAndIncrement() % slowStatements.length()), slow);
+        if (!failed && nanos >= explainThresholdNanos && explainSupported && isSelect(sql)) {
+            String plan = plans.get(sql);
+            slow.setPlan(plan != null ? plan : explain(connection, sql, binds));
+        }
+    }
+
+    private SqlStatementStats stats(String sql) {
+        SqlStatementStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        // 리터럴이 섞인 SQL이 계속 새로 들어와도 메모리가 끝없이 늘지 않도록 개수를 제한한다.
+        String key = statements.size() < MAX_STATEMENTS ? sql : OTHER_STATEMENTS;
+        return statements.computeIfAbsent(key, SqlStatementStats::new);
+    }
+
+    /**
+     * @return 실행 계획. H2가 아니면 null
+     */
+    private String explain(Connection connection, String sql, Object[] binds) {
+        String plan;
+        try {
+            if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+                explainSupported = false;
+                return null;
+            }
+            try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+                if (binds != null) {
+                    for (int i = 0; i < binds.length; i++) {
+                        ps.setObject(i + 1, binds[i]);
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    plan = rs.next() ? rs.getString(1) : "";
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("explain failed sql={}", sql, e);
+            plan = "explain failed: " + e.getMessage();
+        }
+        if (plans.size() < MAX_PLANS) {
+            plans.put(sql, plan);
+        }
+        return plan;
+    }
+
+    public SqlTraceReport report(int limit) {
+        List<SqlTraceReport.Statement> top = statements.values().stream()
+                .sorted(Comparator.comparingLong(SqlStatementStats::getTotalNanos).reversed())
+                .limit(limit)
+                .map(this::toStatement)
+                .collect(Collectors.toList());
+
+        List<SlowStatement> slow = new ArrayList<>();
+        for (int i = 0; i < slowStatements.length(); i++) {
+            SlowStatement statement = slowStatements.get(i);
+            if (statement != null) {
+                slow.add(statement);
+            }
+        }
+        slow.sort(Comparator.comparingDouble(SlowStatement::getElapsedMillis).reversed());
+
+        return new SqlTraceReport(sampleRate, slowThresholdNanos / 1_000_000.0, explainThresholdNanos / 1_000_000.0,
+                top, slow);
+    }
+
+    public void reset() {
+        statements.clear();
+        for (int i = 0; i < slowStatements.length(); i++) {
+            slowStatements.set(i, null);
+        }
+        plans.clear();
+    }
+
+    private SqlTraceReport.Statement toStatement(SqlStatementStats stats) {
+        long count = stats.getCount();
+        double totalMillis = stats.getTotalNanos() / 1_000_000.0;
+        return new SqlTraceReport.Statement(stats.getSql(), count, Math.round(count / sampleRate),
+                totalMillis, count == 0 ? 0 : totalMillis / count, stats.getMaxNanos() / 1_000_000.0);
+    }
+
+    private static boolean isSelect(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("with");
+    }
+
+    private static List<String> render(Object[] binds) {
+        if (binds == null) {
+            return List.of();
+        }
+        return Arrays.stream(binds)
+                .map(SqlTraceRecorder::renderValue)
+                .collect(Collectors.toList());
+    }
+
+    private static String renderValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof InputStream || value instanceof Reader) {
+            return "<stream>";
+        }
+        String text = String.valueOf(value);
+        return text.length() > MAX_BIND_LENGTH ? text.substring(0, MAX_BIND_LENGTH) + "..." : text;
+    }
+}
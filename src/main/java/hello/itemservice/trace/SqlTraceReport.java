@@ -0,0 +1,30 @@
+package hello.itemservice.trace;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * GET /admin/sql 응답.
+ * statements : 샘플링된 실행의 누적 시간 순. estimatedCount = 샘플 수 / sampleRate
+ * slowStatements : 최근 느린 실행(링 버퍼) 중 오래 걸린 순.
+ */
+@Data
+public class SqlTraceReport {
+
+    private final double sampleRate;
+    private final double slowThresholdMillis;
+    private final double explainThresholdMillis;
+    private final List<Statement> statements;
+    private final List<SlowStatement> slowStatements;
+
+    @Data
+    public static class Statement {
+        private final String sql;
+        private final long sampledCount;
+        private final long estimatedCount;
+        private final double totalMillis;
+        private final double avgMillis;
+        private final double maxMillis;
+    }
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.web;
+
+import hello.itemservice.limit.ConcurrencyLimitInterceptor;
+import hello.itemservice.limit.ConcurrencyLimitSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * GET /admin/concurrency-limits : 검색/상세/쓰기별 현재 한도, 처리 중인 요청 수, 응답 시간(짧은/긴 창), 통과/거절 수
+ * 제한을 끄면(item.concurrency-limit.enabled=false) 404.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ConcurrencyLimitController {
+
+    private final ObjectProvider<ConcurrencyLimitInterceptor> interceptor;
+
+    @GetMapping("/admin/concurrency-limits")
+    public List<ConcurrencyLimitSnapshot> limits() {
+        ConcurrencyLimitInterceptor limitInterceptor = interceptor.getIfAvailable();
+        if (limitInterceptor == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "concurrency limit disabled");
+        }
+        return limitInterceptor.snapshots();
+    }
+}
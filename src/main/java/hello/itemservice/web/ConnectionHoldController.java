@@ -0,0 +1,43 @@
+package hello.itemservice.web;
+
+import hello.itemservice.connection.ConnectionHoldProfiler;
+import hello.itemservice.connection.ConnectionHoldReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * GET /admin/connection-holds : 서비스 메서드별 커넥션 점유 시간과 SQL 실행 시간, 평균/최대 동시 사용 커넥션 수
+ * DELETE /admin/connection-holds : 모은 값 초기화
+ * 측정을 끄면(item.connection-profile.enabled=false) 404.
+ */
+@RestController
+@RequestMapping("/admin/connection-holds")
+@RequiredArgsConstructor
+public class ConnectionHoldController {
+
+    private final ObjectProvider<ConnectionHoldProfiler> profiler;
+
+    @GetMapping
+    public ConnectionHoldReport report() {
+        return profiler().report();
+    }
+
+    @DeleteMapping
+    public void reset() {
+        profiler().reset();
+    }
+
+    private ConnectionHoldProfiler profiler() {
+        ConnectionHoldProfiler connectionHoldProfiler = profiler.getIfAvailable();
+        if (connectionHoldProfiler == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "connection profile disabled");
+        }
+        return connectionHoldProfiler;
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.web;
+
+import hello.itemservice.fragment.FragmentCacheStats;
+import hello.itemservice.fragment.ItemFragmentCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * GET /admin/fragment-cache : 크기, 적중/실패 수, 평균 렌더링 시간, 적중으로 아낀 렌더링 시간(추정)
+ */
+@RestController
+@RequiredArgsConstructor
+public class FragmentCacheController {
+
+    private final ItemFragmentCache itemFragmentCache;
+
+    @GetMapping("/admin/fragment-cache")
+    public FragmentCacheStats stats() {
+        return itemFragmentCache.stats();
+    }
+}
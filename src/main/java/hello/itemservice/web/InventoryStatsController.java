@@ -0,0 +1,24 @@
+package hello.itemservice.web;
+
+import hello.itemservice.stats.InventoryStats;
+import hello.itemservice.stats.InventoryTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * GET /items/stats
+ * 상품 수, 총 수량, 재고 금액(price * quantity 합), 가격대별 상품 수.
+ * 저장할 때마다 유지되는 카운터를 읽기만 하므로 상품 수와 관계없이 일정한 시간에 응답한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class InventoryStatsController {
+
+    private final InventoryStats inventoryStats;
+
+    @GetMapping("/items/stats")
+    public InventoryTotals stats() {
+        return inventoryStats.snapshot();
+    }
+}
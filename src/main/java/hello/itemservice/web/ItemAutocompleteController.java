@@ -0,0 +1,34 @@
+package hello.itemservice.web;
+
+import hello.itemservice.autocomplete.ItemNameIndex;
+import hello.itemservice.autocomplete.ItemNameTrie;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * GET /items/autocomplete?prefix=pe&limit=10
+ * prefix로 시작하는 상품명을 그 이름을 가진 상품 수가 많은 순으로. 본문은 [{"name": "pen", "count": 3}, ...]
+ * DB를 거치지 않고 메모리 인덱스만 읽는다. (대소문자 구분, 상품 검색의 LIKE와 같음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemAutocompleteController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final ItemNameIndex itemNameIndex;
+
+    @GetMapping("/items/autocomplete")
+    public ResponseEntity<List<ItemNameTrie.Suggestion>> autocomplete(@RequestParam(defaultValue = "") String prefix,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(itemNameIndex.suggest(prefix, Math.min(limit, MAX_LIMIT)));
+    }
+}
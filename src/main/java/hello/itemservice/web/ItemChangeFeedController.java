@@ -0,0 +1,31 @@
+package hello.itemservice.web;
+
+import hello.itemservice.feed.ItemChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * GET /items/changes (text/event-stream)
+ * 상품 저장/수정을 커밋된 순서대로 보낸다. 이벤트 "items"의 data는 [{"sequence", "before", "after"}, ...]
+ * 브라우저 EventSource는 재접속할 때 Last-Event-ID를 보내므로 링에 남아 있는 만큼은 이어서 받는다.
+ * 구독자가 너무 많으면 503.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemChangeFeedController {
+
+    private final ItemChangeFeed itemChangeFeed;
+
+    @GetMapping(value = "/items/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> changes(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return itemChangeFeed.subscribe(lastEventId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
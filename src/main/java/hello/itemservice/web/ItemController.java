@@ -1,15 +1,20 @@
 package hello.itemservice.web;
 
 import hello.itemservice.domain.Item;
+import hello.itemservice.fragment.ItemFragments;
 import hello.itemservice.repository.ItemSearchCond;
 import hello.itemservice.repository.ItemUpdateDto;
 import hello.itemservice.service.ItemService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @Controller
@@ -18,18 +23,26 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemFragments itemFragments;
 
     @GetMapping
-    public String items(@ModelAttribute("itemSearch") ItemSearchCond itemSearch, Model model) {
+    public String items(@ModelAttribute("itemSearch") ItemSearchCond itemSearch, Model model,
+                        HttpServletRequest request, HttpServletResponse response) {
+        if (itemSearch.getLimit() != null && itemSearch.getLimit() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit은 1 이상이어야 합니다: " + itemSearch.getLimit());
+        }
         List<Item> items = itemService.findItems(itemSearch);
         model.addAttribute("items", items);
+        model.addAttribute("itemRows", itemFragments.rows(items, request, response));
         return "items";
     }
 
     @GetMapping("/{itemId}")
-    public String item(@PathVariable long itemId, Model model) {
+    public String item(@PathVariable long itemId, Model model,
+                       HttpServletRequest request, HttpServletResponse response) {
         Item item = itemService.findById(itemId).get();
         model.addAttribute("item", item);
+        model.addAttribute("itemDetail", itemFragments.detail(item, request, response));
         return "item";
     }
 
@@ -47,9 +60,11 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}/edit")
-    public String editForm(@PathVariable Long itemId, Model model) {
+    public String editForm(@PathVariable Long itemId, Model model,
+                           HttpServletRequest request, HttpServletResponse response) {
         Item item = itemService.findById(itemId).get();
         model.addAttribute("item", item);
+        model.addAttribute("itemEditForm", itemFragments.editForm(item, request, response));
         return "editForm";
     }
 
@@ -0,0 +1,51 @@
+package hello.itemservice.web;
+
+import hello.itemservice.bulk.ExportFormat;
+import hello.itemservice.bulk.ItemExporter;
+import hello.itemservice.repository.ItemSearchCond;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+/**
+ * GET /items/export?format=csv|ndjson&gzip=true&itemName=..&maxPrice=..
+ * 검색 조건은 상품 목록(/items)과 같은 ItemSearchCond를 사용한다.
+ * StreamingResponseBody로 응답하므로 DB에서 읽는 대로 응답 스트림에 쓰이고, 응답 전체를 메모리에 만들지 않는다.
+ */
+@RestController
+@RequestMapping("/items/export")
+@RequiredArgsConstructor
+public class ItemExportController {
+
+    private final ItemExporter exporter;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute ItemSearchCond cond,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "지원하지 않는 형식: " + format);
+        }
+        String fileName = "items" + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        // 본문 자체가 .gz 파일이므로 Content-Encoding은 붙이지 않는다. (브라우저가 풀어버리지 않도록)
+        String contentType = gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8";
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(out -> exporter.export(cond, exportFormat, gzip, out));
+    }
+}
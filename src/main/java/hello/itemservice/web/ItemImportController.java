@@ -0,0 +1,43 @@
+package hello.itemservice.web;
+
+import hello.itemservice.bulk.ImportResult;
+import hello.itemservice.bulk.ItemCsvImporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 서버에 올라와 있는 CSV 파일을 적재.
+ * 수 GB 파일을 HTTP 요청 본문으로 받지 않고, item.import.base-dir 아래의 파일 이름만 받는다.
+ * base-dir 밖의 경로는 거부한다.
+ */
+@RestController
+@RequestMapping("/items/import")
+public class ItemImportController {
+
+    private final ItemCsvImporter importer;
+    private final Path baseDir;
+
+    public ItemImportController(ItemCsvImporter importer,
+                                @Value("${item.import.base-dir:import}") String baseDir) {
+        this.importer = importer;
+        this.baseDir = Path.of(baseDir).toAbsolutePath().normalize();
+    }
+
+    @PostMapping
+    public ImportResult importCsv(@RequestParam String file,
+                                  @RequestParam(defaultValue = "true") boolean resume) {
+        Path path = baseDir.resolve(file).normalize();
+        if (!path.startsWith(baseDir) || !Files.isRegularFile(path)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 파일: " + file);
+        }
+        return importer.importFile(path, resume);
+    }
+}
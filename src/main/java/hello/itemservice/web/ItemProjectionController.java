@@ -0,0 +1,30 @@
+package hello.itemservice.web;
+
+import hello.itemservice.projection.ItemProjectionStatus;
+import hello.itemservice.projection.ItemProjector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * GET /admin/projection : 검색 읽기 모델 상태. (행 수, 반영 못 한 변경 수, 지연 시간, 재적재 횟수)
+ * 읽기 모델을 끄면(item.projection.enabled=false) 404.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemProjectionController {
+
+    private final ObjectProvider<ItemProjector> itemProjector;
+
+    @GetMapping("/admin/projection")
+    public ItemProjectionStatus status() {
+        ItemProjector projector = itemProjector.getIfAvailable();
+        if (projector == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "item projection disabled");
+        }
+        return projector.status();
+    }
+}
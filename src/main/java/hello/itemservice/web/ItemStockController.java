@@ -0,0 +1,45 @@
+package hello.itemservice.web;
+
+import hello.itemservice.repository.StockReservation;
+import hello.itemservice.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * POST /items/{itemId}/reserve?amount=3
+ * 재고 차감 성공 200, 재고 부족 409, 상품 없음 404. 본문은 {"result": "..."}
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemStockController {
+
+    private final ItemService itemService;
+
+    @PostMapping("/items/{itemId}/reserve")
+    public ResponseEntity<Map<String, StockReservation>> reserve(@PathVariable Long itemId,
+                                                                 @RequestParam(defaultValue = "1") int amount) {
+        if (amount <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        StockReservation result = itemService.reserveStock(itemId, amount);
+        HttpStatus status;
+        switch (result) {
+            case RESERVED:
+                status = HttpStatus.OK;
+                break;
+            case INSUFFICIENT_STOCK:
+                status = HttpStatus.CONFLICT;
+                break;
+            default:
+                status = HttpStatus.NOT_FOUND;
+        }
+        return ResponseEntity.status(status).body(Map.of("result", result));
+    }
+}
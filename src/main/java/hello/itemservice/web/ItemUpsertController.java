@@ -0,0 +1,30 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemUpsertResult;
+import hello.itemservice.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * POST /items/upsert
+ * 본문 [{"id": 1, "itemName": "pen", "price": 1000, "quantity": 10}, ...] (id가 없으면 새로 저장)
+ * 응답 {"insertedIds": [...], "updatedIds": [...]}
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemUpsertController {
+
+    private final ItemService itemService;
+
+    @PostMapping("/items/upsert")
+    public Map<String, List<Long>> upsert(@RequestBody List<Item> items) {
+        ItemUpsertResult result = itemService.upsertAll(items);
+        return Map.of("insertedIds", result.getInsertedIds(), "updatedIds", result.getUpdatedIds());
+    }
+}
@@ -0,0 +1,44 @@
+package hello.itemservice.web;
+
+import hello.itemservice.trace.SqlTraceRecorder;
+import hello.itemservice.trace.SqlTraceReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * GET /admin/sql?limit=50 : SQL별 누적 시간(상위 limit개)과 최근 느린 SQL(바인드 값, 실행 계획)
+ * DELETE /admin/sql : 모은 값 초기화
+ * SQL 추적을 끄면(item.sql-trace.enabled=false) 404.
+ */
+@RestController
+@RequestMapping("/admin/sql")
+@RequiredArgsConstructor
+public class SqlTraceController {
+
+    private final ObjectProvider<SqlTraceRecorder> recorder;
+
+    @GetMapping
+    public SqlTraceReport report(@RequestParam(defaultValue = "50") int limit) {
+        return recorder().report(limit);
+    }
+
+    @DeleteMapping
+    public void reset() {
+        recorder().reset();
+    }
+
+    private SqlTraceRecorder recorder() {
+        SqlTraceRecorder sqlTraceRecorder = recorder.getIfAvailable();
+        if (sqlTraceRecorder == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "sql trace disabled");
+        }
+        return sqlTraceRecorder;
+    }
+}
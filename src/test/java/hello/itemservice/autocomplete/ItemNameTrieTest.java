@@ -0,0 +1,170 @@
+package hello.itemservice.autocomplete;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 자동완성 트라이 정확성과 메모리/지연 시간 예산.
+ * 벤치마크 상품 수는 -Dautocomplete.benchmark.items (기본 100만 건),
+ * 예산은 -Dautocomplete.budget.bytes-per-name (기본 256), -Dautocomplete.budget.p99-micros (기본 1000)로 바꿀 수 있다.
+ */
+@Slf4j
+class ItemNameTrieTest {
+
+    @Test
+    void topK() {
+        //given
+        ItemNameTrie trie = new ItemNameTrie();
+        for (String name : List.of("pen", "pen", "pencil", "pen", "penguin", "pencil", "cup", "pe")) {
+            trie.add(name);
+        }
+
+        //when
+        List<String> result = names(trie.topK("pen", 2));
+
+        //then
+        assertThat(result).containsExactly("pen", "pencil");
+        assertThat(names(trie.topK("p", 10))).containsExactly("pen", "pencil", "pe", "penguin");
+        assertThat(names(trie.topK("penc", 10))).containsExactly("pencil");
+        assertThat(names(trie.topK("x", 10))).isEmpty();
+        assertThat(trie.getNameCount()).isEqualTo(5);
+    }
+
+    @Test
+    void removeMergesNodes() {
+        //given
+        ItemNameTrie trie = new ItemNameTrie();
+        trie.add("pen");
+        trie.add("pencil");
+        trie.add("penguin");
+        int nodes = trie.getNodeCount();
+
+        //when
+        trie.remove("pen");
+        trie.remove("penguin");
+
+        //then
+        assertThat(names(trie.topK("pe", 10))).containsExactly("pencil");
+        assertThat(trie.getNodeCount()).isLessThan(nodes);
+        trie.remove("pencil");
+        assertThat(trie.getNodeCount()).isEqualTo(1);
+        assertThat(trie.getNameCount()).isZero();
+    }
+
+    /**
+     * 무작위 추가/삭제 후 모든 접두어에 대해 전체 정렬 결과와 비교한다.
+     */
+    @Test
+    void matchesBruteForce() {
+        //given
+        SplittableRandom random = new SplittableRandom(7);
+        ItemNameTrie trie = new ItemNameTrie();
+        Map<String, Integer> counts = new HashMap<>();
+        String alphabet = "abc";
+
+        //when
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int c = 0; c < length; c++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String key = name.toString();
+            if (random.nextInt(3) == 0) {
+                trie.remove(key);
+                counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            } else {
+                trie.add(key);
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+
+        //then
+        for (String prefix : List.of("", "a", "ab", "abc", "c", "cba", "bbbb")) {
+            assertThat(names(trie.topK(prefix, 7))).as(prefix).isEqualTo(bruteForce(counts, prefix, 7));
+        }
+        assertThat(trie.getNameCount()).isEqualTo(counts.size());
+    }
+
+    /**
+     * 100만 건 적재와 지연 시간 측정은 오래 걸리고 장비에 따라 흔들리므로
+     * 일반 test 태스크에서는 제외하고 ./gradlew loadTest로만 실행한다.
+     */
+    @Test
+    @Tag("load")
+    void memoryAndLatencyBudget() {
+        //given
+        int count = Integer.getInteger("autocomplete.benchmark.items", 1_000_000);
+        long bytesPerNameBudget = Long.getLong("autocomplete.budget.bytes-per-name", 256);
+        long p99MicrosBudget = Long.getLong("autocomplete.budget.p99-micros", 1000);
+        ItemGenerator generator = new ItemGenerator(42);
+        ItemNameTrie trie = new ItemNameTrie();
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        long buildNanos = 0;
+        for (int chunk = 0; chunk * 10_000 < count; chunk++) {
+            for (Item item : generator.generate(chunk, Math.min(10_000, count - chunk * 10_000))) {
+                long start = System.nanoTime();
+                trie.add(item.getItemName());
+                buildNanos += System.nanoTime() - start;
+                counts.merge(item.getItemName(), 1, Integer::sum);
+                if (names.size() < 10_000) {
+                    names.add(item.getItemName());
+                }
+            }
+        }
+
+        //when
+        // 한 글자씩 입력하는 상황처럼 상품명의 1~4글자 접두어로 조회
+        SplittableRandom random = new SplittableRandom(42);
+        int lookups = 100_000;
+        long[] nanos = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            String name = names.get(random.nextInt(names.size()));
+            String prefix = name.substring(0, Math.min(name.length(), 1 + random.nextInt(4)));
+            long start = System.nanoTime();
+            trie.topK(prefix, 10);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        //then
+        long bytesPerName = trie.estimatedBytes() / trie.getNameCount();
+        long p50Micros = nanos[lookups / 2] / 1000;
+        long p99Micros = nanos[lookups * 99 / 100] / 1000;
+        log.info("items={} names={} nodes={} estimatedBytes={} bytesPerName={} build={}ms lookup p50={}us p99={}us max={}us",
+                count, trie.getNameCount(), trie.getNodeCount(), trie.estimatedBytes(), bytesPerName,
+                buildNanos / 1_000_000, p50Micros, p99Micros, nanos[lookups - 1] / 1000);
+        assertThat(names(trie.topK("pe", 10))).isEqualTo(bruteForce(counts, "pe", 10));
+        assertThat(bytesPerName).isLessThanOrEqualTo(bytesPerNameBudget);
+        assertThat(p99Micros).isLessThanOrEqualTo(p99MicrosBudget);
+    }
+
+    private static List<String> bruteForce(Map<String, Integer> counts, String prefix, int k) {
+        return counts.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<ItemNameTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(ItemNameTrie.Suggestion::getName).collect(Collectors.toList());
+    }
+}
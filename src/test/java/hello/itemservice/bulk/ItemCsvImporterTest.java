@@ -0,0 +1,167 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.domain.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 스프링 없이 ItemCsvImporter의 파싱과 체크포인트 이어받기를 검증.
+ * 저장은 받은 배치를 모아 두기만 하는 ItemBatchWriter로 대신한다.
+ */
+class ItemCsvImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parseEdgeCases() throws IOException {
+        //given
+        Path file = write("items.csv", "item_name,price,quantity\n"
+                + "plain,100,1\n"
+                + "\"a,b\",200,2\n"
+                + "\"say \"\"hi\"\"\",300,3\n"
+                + "crlf,400,4\r\n"
+                + "trailing,100,1,\n"
+                + ",100,1\n"
+                + "toolongname,100,1\n"
+                + "negative,-1,1\n"
+                + "overflow,99999999999,1\n"
+                + "few,1\n"
+                + "\"open,1,1\n"
+                + "\n"
+                + "last,500,5");
+        RecordingWriter writer = new RecordingWriter(-1);
+
+        //when
+        ImportResult result = new ItemCsvImporter(writer, 100, 1024).importFile(file, false);
+
+        //then
+        assertThat(writer.names()).containsExactly("plain", "a,b", "say \"hi\"", "crlf", "last");
+        assertThat(writer.items.get(3).getQuantity()).isEqualTo(4);
+        assertThat(result.getRowsImported()).isEqualTo(5);
+        assertThat(result.getRowsRejected()).isEqualTo(7);
+        assertThat(result.getCommittedOffset()).isEqualTo(Files.size(file));
+    }
+
+    /**
+     * 헤더가 없으면 첫 행도 상품이다. 헤더처럼 생긴 상품 이름(item_01)이어도 건너뛰지 않는다.
+     */
+    @Test
+    void firstRowWithoutHeaderIsImported() throws IOException {
+        //given
+        Path file = write("noheader.csv", "item_01,1000,5\nitem_02,2000,6\n");
+        RecordingWriter writer = new RecordingWriter(-1);
+
+        //when
+        ImportResult result = new ItemCsvImporter(writer, 100, 1024).importFile(file, false);
+
+        //then
+        assertThat(writer.names()).containsExactly("item_01", "item_02");
+        assertThat(result.getRowsRejected()).isZero();
+    }
+
+    @Test
+    void checkpointStaysAtEndWhenLastBatchIsExactlyFull() throws IOException {
+        //given
+        Path file = write("exact.csv", rows(4));
+
+        //when
+        ImportResult result = new ItemCsvImporter(new RecordingWriter(-1), 2, 1024).importFile(file, false);
+
+        //then
+        assertThat(result.getRowsImported()).isEqualTo(4);
+        assertThat(result.getCommittedOffset()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    void rejectedRowsAreFlushedInBatches() throws IOException {
+        //given
+        Path file = write("bad.csv", "x\n".repeat(10));
+        RecordingWriter writer = new RecordingWriter(-1);
+
+        //when
+        ImportResult result = new ItemCsvImporter(writer, 3, 1024).importFile(file, false);
+
+        //then
+        assertThat(writer.items).isEmpty();
+        assertThat(result.getRowsRejected()).isEqualTo(10);
+        assertThat(result.getCommittedOffset()).isEqualTo(Files.size(file));
+    }
+
+    /**
+     * 두 번째 배치에서 저장이 실패한 뒤 이어받기로 다시 실행하면, 커밋된 첫 배치는 건너뛰고 나머지만 한 번씩 적재된다.
+     * 윈도우를 작게 잡아 윈도우 경계에 걸친 행도 함께 확인한다.
+     */
+    @Test
+    void resumeFromCheckpoint() throws IOException {
+        //given
+        Path file = write("resume.csv", rows(10));
+        RecordingWriter failing = new RecordingWriter(1);
+        assertThatThrownBy(() -> new ItemCsvImporter(failing, 3, 32).importFile(file, true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ImportCheckpoint.load(file).getOffset()).isPositive();
+        assertThat(ImportCheckpoint.load(file).getRowsImported()).isEqualTo(3);
+
+        //when
+        RecordingWriter writer = new RecordingWriter(-1);
+        ImportResult result = new ItemCsvImporter(writer, 3, 32).importFile(file, true);
+
+        //then
+        List<String> all = new ArrayList<>(failing.names());
+        all.addAll(writer.names());
+        assertThat(all).containsExactly("item0", "item1", "item2", "item3", "item4",
+                "item5", "item6", "item7", "item8", "item9");
+        assertThat(result.getRowsImported()).isEqualTo(10);
+        assertThat(Files.exists(ImportCheckpoint.pathOf(file))).isFalse();
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static String rows(int count) {
+        StringBuilder sb = new StringBuilder("item_name,price,quantity\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("item").append(i).append(',').append(1000 + i).append(",1\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 받은 배치를 모아 둔다. failAt번째(0부터) write 호출은 실패시킨다. 음수면 실패하지 않음.
+     */
+    private static class RecordingWriter extends ItemBatchWriter {
+
+        final List<Item> items = new ArrayList<>();
+        private final int failAt;
+        private int calls;
+
+        RecordingWriter(int failAt) {
+            super(null, null);
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void write(List<Item> batch) {
+            if (calls++ == failAt) {
+                throw new IllegalStateException("write failed");
+            }
+            items.addAll(batch);
+        }
+
+        List<String> names() {
+            return items.stream().map(Item::getItemName).collect(Collectors.toList());
+        }
+    }
+}
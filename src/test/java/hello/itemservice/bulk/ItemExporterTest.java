@@ -0,0 +1,141 @@
+package hello.itemservice.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemStreamer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 메모리 DB -> JdbcTemplateItemStreamer -> ItemExporter로 내보낸 결과를 다시 읽어 원래 값과 비교.
+ * 값이 없는 컬럼, 따옴표, 쉼표, 줄바꿈이 들어간 상품명을 함께 넣는다.
+ */
+class ItemExporterTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", "");
+        template = new JdbcTemplate(dataSource);
+        template.execute("create table item (id bigint primary key, item_name varchar(10), price integer, quantity integer)");
+        template.update("insert into item values (1, 'plain', 1000, 10)");
+        template.update("insert into item values (2, 'a,b', null, 20)");
+        template.update("insert into item values (3, 'say \"hi\"', 3000, null)");
+        template.update("insert into item values (4, ?, 4000, 0)", "line\nbreak");
+        template.update("insert into item values (5, ?, 5000, 50)", "cr\rx");
+        template.update("insert into item values (6, null, null, null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        template.execute("drop table item");
+    }
+
+    @Test
+    void csvRoundTrip() throws IOException {
+        //given
+        ItemExporter exporter = new ItemExporter(new JdbcTemplateItemStreamer(dataSource, 2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = exporter.export(new ItemSearchCond(), ExportFormat.CSV, true, out);
+
+        //then
+        List<List<String>> records = parseCsv(gunzip(out.toByteArray()));
+        assertThat(rows).isEqualTo(6);
+        assertThat(records).containsExactly(
+                List.of("id", "item_name", "price", "quantity"),
+                List.of("1", "plain", "1000", "10"),
+                List.of("2", "a,b", "", "20"),
+                List.of("3", "say \"hi\"", "3000", ""),
+                List.of("4", "line\nbreak", "4000", "0"),
+                List.of("5", "cr\rx", "5000", "50"),
+                List.of("6", "", "", ""));
+    }
+
+    @Test
+    void ndjsonRoundTrip() throws IOException {
+        //given
+        ItemExporter exporter = new ItemExporter(new JdbcTemplateItemStreamer(dataSource, 2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        exporter.export(new ItemSearchCond(), ExportFormat.NDJSON, false, out);
+
+        //then
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(mapper.readTree(line));
+        }
+        assertThat(lines).hasSize(6);
+        assertThat(lines.get(1).get("itemName").asText()).isEqualTo("a,b");
+        assertThat(lines.get(1).get("price").isNull()).isTrue();
+        assertThat(lines.get(2).get("itemName").asText()).isEqualTo("say \"hi\"");
+        assertThat(lines.get(2).get("quantity").isNull()).isTrue();
+        assertThat(lines.get(3).get("itemName").asText()).isEqualTo("line\nbreak");
+        assertThat(lines.get(3).get("quantity").asInt()).isZero();
+        assertThat(lines.get(4).get("itemName").asText()).isEqualTo("cr\rx");
+        assertThat(lines.get(5).get("itemName").isNull()).isTrue();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * RFC 4180 방식. 따옴표 안의 쉼표, 줄바꿈, ""는 값의 일부.
+     */
+    private static List<List<String>> parseCsv(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        assertThat(Arrays.asList(field.toString(), record.isEmpty())).containsExactly("", true);
+        return records;
+    }
+}
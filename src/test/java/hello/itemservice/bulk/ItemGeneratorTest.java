@@ -0,0 +1,66 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.SyntheticDataInit;
+import hello.itemservice.domain.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 같은 seed면 스레드 수, chunk를 처리한 순서와 관계없이 같은 카탈로그가 나오는지 확인.
+ */
+class ItemGeneratorTest {
+
+    @Test
+    void sameSeedSameChunkSameItems() {
+        //given
+        ItemGenerator generator = new ItemGenerator(42);
+
+        //when
+        List<Item> first = generator.generate(7, 1_000);
+        List<Item> second = new ItemGenerator(42).generate(7, 1_000);
+
+        //then
+        assertThat(second).containsExactlyElementsOf(first);
+        assertThat(generator.generate(8, 1_000)).isNotEqualTo(first);
+        assertThat(new ItemGenerator(43).generate(7, 1_000)).isNotEqualTo(first);
+        assertThat(first).allSatisfy(item -> {
+            assertThat(item.getItemName().length()).isBetween(1, 10);
+            assertThat(item.getPrice()).isGreaterThanOrEqualTo(100);
+            assertThat(item.getQuantity()).isBetween(0, 10_000);
+        });
+    }
+
+    @Test
+    void catalogDoesNotDependOnThreads() throws Exception {
+        //given
+        RecordingWriter singleThread = new RecordingWriter();
+        RecordingWriter fourThreads = new RecordingWriter();
+
+        //when
+        new SyntheticDataInit(singleThread, 10_000, 42, 500, 1).initData();
+        new SyntheticDataInit(fourThreads, 10_000, 42, 500, 4).initData();
+
+        //then
+        assertThat(singleThread.items).hasSize(10_000);
+        assertThat(fourThreads.items).containsExactlyInAnyOrderElementsOf(singleThread.items);
+    }
+
+    private static class RecordingWriter extends ItemBatchWriter {
+
+        final List<Item> items = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingWriter() {
+            super(null, null);
+        }
+
+        @Override
+        public void write(List<Item> batch) {
+            items.addAll(batch);
+        }
+    }
+}
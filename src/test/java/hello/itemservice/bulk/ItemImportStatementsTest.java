@@ -0,0 +1,90 @@
+package hello.itemservice.bulk;
+
+import hello.itemservice.jdbc.InterceptingDataSource;
+import hello.itemservice.jdbc.JdbcListener;
+import hello.itemservice.repository.ItemRepository;
+import hello.itemservice.repository.ItemSchemaInitializer;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemReposotiryV1;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemReposotiryV2;
+import hello.itemservice.repository.jdbctemplate.JdbcTemplateItemReposotiryV3;
+import hello.itemservice.service.ItemServiceV1;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CSV 적재가 JdbcTemplate 저장소에서 행마다 insert하지 않고 배치마다 몇 문장으로 끝나는지 센다.
+ * id 없는 행은 시퀀스 조회 한 번으로 id를 받고, 전부 MERGE 배치 하나로 나간다. (ItemSequence.assignIds)
+ */
+class ItemImportStatementsTest {
+
+    private static final int ROWS = 2_000;
+    private static final int BATCH_SIZE = 500;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"v1", "v2", "v3"})
+    void fewStatementsPerBatch(String version) throws IOException {
+        //given
+        AtomicLong statements = new AtomicLong();
+        JdbcListener counter = waitNanos -> new JdbcListener.ConnectionListener() {
+            @Override
+            public void executed(Connection connection, String sql, Object[] binds, long nanos, boolean failed) {
+                statements.incrementAndGet();
+            }
+        };
+        DataSource raw = new DriverManagerDataSource("jdbc:h2:mem:import-" + version + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ItemSchemaInitializer(raw, "classpath:sql/schema.sql").initializeDatabase();
+        DataSource dataSource = new InterceptingDataSource(raw, List.of(counter));
+        ItemServiceV1 itemService = new ItemServiceV1(repository(version, dataSource));
+        itemService.setApplicationEventPublisher(event -> {
+        });
+        ItemBatchWriter writer = new ItemBatchWriter(itemService, new DataSourceTransactionManager(dataSource));
+        Path file = csv();
+
+        //when
+        ImportResult result = new ItemCsvImporter(writer, BATCH_SIZE, 1 << 20).importFile(file, false);
+
+        //then 배치마다 시퀀스 조회, MERGE 배치, 시퀀스 현재 값 확인 세 문장
+        int batches = ROWS / BATCH_SIZE;
+        assertThat(result.getRowsImported()).isEqualTo(ROWS);
+        assertThat(statements.get()).isLessThanOrEqualTo(batches * 3L);
+        assertThat(new JdbcTemplate(raw).queryForObject("select count(distinct id) from item", Long.class))
+                .isEqualTo(ROWS);
+    }
+
+    private static ItemRepository repository(String version, DataSource dataSource) {
+        switch (version) {
+            case "v1":
+                return new JdbcTemplateItemReposotiryV1(dataSource);
+            case "v2":
+                return new JdbcTemplateItemReposotiryV2(dataSource);
+            default:
+                return new JdbcTemplateItemReposotiryV3(dataSource);
+        }
+    }
+
+    private Path csv() throws IOException {
+        StringBuilder sb = new StringBuilder("item_name,price,quantity\n");
+        for (int i = 0; i < ROWS; i++) {
+            sb.append("item").append(i).append(',').append(1000 + i).append(",1\n");
+        }
+        return Files.writeString(dir.resolve("items.csv"), sb.toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,230 @@
+package hello.itemservice.coalesce;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.service.ItemServiceV1;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인기 상품 하나에 조회가 몰리는 상황(thundering herd)에서 DB 호출 수 비교.
+ * DB 대신 조회마다 sleep하는 메모리 저장소를 쓰고, 저장소 findById/findAll 호출 수를 DB 쿼리 수로 본다.
+ */
+@Slf4j
+class CoalescingItemServiceTest {
+
+    private static final int THREADS = 64;
+    private static final int READS_PER_THREAD = 50;
+
+    @Test
+    void thunderingHerd() throws Exception {
+        //given
+        SlowRepository plainRepository = new SlowRepository(2);
+        ItemService plain = service(plainRepository);
+        Long plainId = plain.save(new Item("hot", 10000, 10)).getId();
+
+        SlowRepository coalescedRepository = new SlowRepository(2);
+        CoalescingItemService coalescing = new CoalescingItemService(service(coalescedRepository));
+        Long coalescedId = coalescing.save(new Item("hot", 10000, 10)).getId();
+
+        //when
+        long plainNanos = herd(() -> plain.findById(plainId));
+        long coalescedNanos = herd(() -> coalescing.findById(coalescedId));
+
+        //then
+        int reads = THREADS * READS_PER_THREAD;
+        log.info("reads={} plain queries={} ({}/s) coalesced queries={} ({}/s) shared={}", reads,
+                plainRepository.queries.get(), perSecond(plainRepository.queries.get(), plainNanos),
+                coalescedRepository.queries.get(), perSecond(coalescedRepository.queries.get(), coalescedNanos),
+                coalescing.getCoalesced());
+        assertThat(plainRepository.queries.get()).isEqualTo(reads);
+        assertThat(coalescedRepository.queries.get()).isEqualTo(coalescing.getCalls());
+        assertThat(coalescing.getCalls() + coalescing.getCoalesced()).isEqualTo(reads);
+        assertThat(coalescedRepository.queries.get()).isLessThan(reads / 4);
+    }
+
+    @Test
+    void sameSearchIsShared() throws Exception {
+        //given
+        SlowRepository repository = new SlowRepository(2);
+        CoalescingItemService coalescing = new CoalescingItemService(service(repository));
+        coalescing.save(new Item("itemA", 10000, 10));
+        coalescing.save(new Item("itemB", 20000, 20));
+
+        //when
+        herd(() -> assertThat(coalescing.findItems(new ItemSearchCond("item", 15000))).hasSize(1));
+
+        //then
+        assertThat(repository.searches.get()).isLessThan(THREADS * READS_PER_THREAD / 4);
+    }
+
+    /**
+     * 쓰기 전에 시작된 조회가 아직 진행 중이어도, 쓰기를 마친 호출은 거기에 합류하지 않고 새 값을 읽는다.
+     */
+    @Test
+    void readsAfterOwnWrite() throws Exception {
+        //given
+        SlowRepository repository = new SlowRepository(0);
+        CoalescingItemService coalescing = new CoalescingItemService(service(repository));
+        Long id = coalescing.save(new Item("itemA", 10000, 10)).getId();
+        repository.block = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Optional<Item>> inFlight = executor.submit(() -> coalescing.findById(id));
+        repository.entered.await(5, TimeUnit.SECONDS);
+        repository.block = null;
+
+        //when
+        coalescing.update(id, new ItemUpdateDto("itemA", 20000, 10));
+        Optional<Item> afterWrite = coalescing.findById(id);
+        repository.release();
+
+        //then
+        assertThat(afterWrite.get().getPrice()).isEqualTo(20000);
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(coalescing.getCoalesced()).isZero();
+        executor.shutdown();
+    }
+
+    /**
+     * 읽기/쓰기 트랜잭션 안의 조회는 진행 중인 다른 조회에 합류하지 않는다. (커밋 전 자기 변경을 봐야 하므로)
+     */
+    @Test
+    void readInTransactionIsNotCoalesced() throws Exception {
+        //given
+        SlowRepository repository = new SlowRepository(0);
+        CoalescingItemService coalescing = new CoalescingItemService(service(repository));
+        Long id = coalescing.save(new Item("itemA", 10000, 10)).getId();
+        repository.block = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Optional<Item>> inFlight = executor.submit(() -> coalescing.findById(id));
+        repository.entered.await(5, TimeUnit.SECONDS);
+        repository.block = null;
+
+        //when
+        Optional<Item> inTransaction;
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            inTransaction = coalescing.findById(id);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        repository.release();
+
+        //then
+        assertThat(inTransaction).isPresent();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(repository.queries.get()).isEqualTo(2);
+        assertThat(coalescing.getCoalesced()).isZero();
+        executor.shutdown();
+    }
+
+    private static ItemService service(MemoryItemRepository repository) {
+        ItemServiceV1 service = new ItemServiceV1(repository);
+        service.setApplicationEventPublisher(event -> {
+        });
+        return service;
+    }
+
+    private static long herd(Runnable read) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < READS_PER_THREAD; i++) {
+                    read.run();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private static long perSecond(long count, long nanos) {
+        return count * 1_000_000_000L / Math.max(1, nanos);
+    }
+
+    private static class SlowRepository extends MemoryItemRepository {
+
+        private final long latencyMillis;
+        private final AtomicInteger queries = new AtomicInteger();
+        private final AtomicInteger searches = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile CountDownLatch block;
+
+        private SlowRepository(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Optional<Item> findById(Long id) {
+            queries.incrementAndGet();
+            // 첫 조회가 끝나기 전의 값을 복사해 둔다. (DB가 쓰기 전 스냅샷을 읽은 것처럼)
+            Optional<Item> snapshot = super.findById(id).map(item -> {
+                Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+                copy.setId(item.getId());
+                return copy;
+            });
+            if (block != null) {
+                entered.countDown();
+                await(released);
+            }
+            sleep();
+            return snapshot;
+        }
+
+        @Override
+        public List<Item> findAll(ItemSearchCond cond) {
+            searches.incrementAndGet();
+            sleep();
+            return super.findAll(cond);
+        }
+
+        private void release() {
+            released.countDown();
+        }
+
+        private void sleep() {
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private static void await(CountDownLatch latch) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package hello.itemservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * item.repository 모드마다 쓰지 않는 JPA/MyBatis 자동 구성만 정확히 제외되는지 확인.
+ */
+class RepositoryModeEnvironmentPostProcessorTest {
+
+    private static final String HIBERNATE = "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration";
+    private static final String JPA_REPOSITORIES = "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration";
+    private static final String MYBATIS = "org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration";
+    private static final String MYBATIS_LANGUAGE = "org.mybatis.spring.boot.autoconfigure.MybatisLanguageDriverAutoConfiguration";
+
+    private final RepositoryModeEnvironmentPostProcessor postProcessor = new RepositoryModeEnvironmentPostProcessor();
+
+    @ParameterizedTest
+    @CsvSource({
+            "memory, true, true",
+            "jdbc-v1, true, true",
+            "jdbc-v2, true, true",
+            "jdbc-v3, true, true",
+            "mybatis, true, false",
+            "jpa, false, true",
+            "spring-data-jpa, false, true",
+            "querydsl, false, true",
+            "v2, false, true"
+    })
+    void excludesUnusedAutoConfigurations(String mode, boolean excludeJpa, boolean excludeMyBatis) {
+        //given
+        MockEnvironment environment = new MockEnvironment().withProperty("item.repository", mode);
+
+        //when
+        postProcessor.postProcessEnvironment(environment, null);
+
+        //then
+        List<String> excludes = excludes(environment);
+        assertThat(excludes.contains(HIBERNATE)).isEqualTo(excludeJpa);
+        assertThat(excludes.contains(JPA_REPOSITORIES)).isEqualTo(excludeJpa);
+        assertThat(excludes.contains(MYBATIS)).isEqualTo(excludeMyBatis);
+        assertThat(excludes.contains(MYBATIS_LANGUAGE)).isEqualTo(excludeMyBatis);
+        assertThat(excludes).hasSize((excludeJpa ? 2 : 0) + (excludeMyBatis ? 2 : 0));
+    }
+
+    @Test
+    void defaultModeKeepsJpa() {
+        //given
+        MockEnvironment environment = new MockEnvironment();
+
+        //when
+        postProcessor.postProcessEnvironment(environment, null);
+
+        //then
+        assertThat(excludes(environment)).containsExactly(MYBATIS, MYBATIS_LANGUAGE);
+    }
+
+    @Test
+    void keepsUserExcludes() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("item.repository", "mybatis")
+                .withProperty("spring.autoconfigure.exclude", "com.example.FooAutoConfiguration");
+
+        //when
+        postProcessor.postProcessEnvironment(environment, null);
+
+        //then
+        assertThat(excludes(environment)).containsExactly("com.example.FooAutoConfiguration", HIBERNATE, JPA_REPOSITORIES);
+    }
+
+    @Test
+    void disabled() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("item.repository", "memory")
+                .withProperty("item.repository.exclude-unused-auto-configuration", "false");
+
+        //when
+        postProcessor.postProcessEnvironment(environment, null);
+
+        //then
+        assertThat(excludes(environment)).isEmpty();
+    }
+
+    private static List<String> excludes(MockEnvironment environment) {
+        String value = environment.getProperty("spring.autoconfigure.exclude", "");
+        return value.isEmpty() ? List.of() : Arrays.asList(value.split(","));
+    }
+}
@@ -0,0 +1,67 @@
+package hello.itemservice.connection;
+
+import hello.itemservice.coalesce.CoalescingItemService;
+import hello.itemservice.jdbc.InterceptingDataSource;
+import hello.itemservice.service.ItemService;
+import hello.itemservice.trace.SqlTraceRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 감싸는 순서 확인. DataSource는 Lazy(Intercepting(원래 DataSource))이고 추적과 점유 측정이 같은 InterceptingDataSource에 붙는다.
+ * itemService는 가장 바깥이 점유 측정, 그 안이 CoalescingItemService.
+ */
+@SpringBootTest
+class ConnectionHoldPostProcessorTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    @Qualifier("itemService")
+    ItemService itemService;
+
+    @Autowired
+    SqlTraceRecorder sqlTraceRecorder;
+
+    @Autowired
+    ConnectionHoldProfiler connectionHoldProfiler;
+
+    @Test
+    void dataSourceIsLazyOverOneInterceptingDataSource() {
+        //when
+        DataSource target = ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource();
+
+        //then
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+        assertThat(target).isInstanceOf(InterceptingDataSource.class);
+        assertThat(((InterceptingDataSource) target).getListeners())
+                .containsExactlyInAnyOrder(sqlTraceRecorder, connectionHoldProfiler);
+        assertThat(((InterceptingDataSource) target).getTargetDataSource())
+                .isNotInstanceOf(InterceptingDataSource.class);
+    }
+
+    @Test
+    void holdInterceptorWrapsCoalescingService() throws Exception {
+        //when
+        Advised advised = (Advised) itemService;
+
+        //then
+        assertThat(AopUtils.isAopProxy(itemService)).isTrue();
+        assertThat(Arrays.stream(advised.getAdvisors()).map(Advisor::getAdvice).collect(Collectors.toList()))
+                .singleElement().isInstanceOf(ConnectionHoldInterceptor.class);
+        assertThat(advised.getTargetSource().getTarget()).isInstanceOf(CoalescingItemService.class);
+    }
+}
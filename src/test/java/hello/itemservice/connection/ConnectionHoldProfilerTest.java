@@ -0,0 +1,99 @@
+package hello.itemservice.connection;
+
+import hello.itemservice.jdbc.InterceptingDataSource;
+import hello.itemservice.jdbc.JdbcListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 지연 커넥션: SQL 없이 끝난 트랜잭션은 커넥션을 꺼내지 않는다.
+ * 점유 시간: 커넥션을 잡은 채 SQL 밖에서 보낸 시간(sleep)은 점유 시간에는 들어가고 SQL 시간에는 들어가지 않는다.
+ */
+class ConnectionHoldProfilerTest {
+
+    @Test
+    void lazyConnectionAndHoldTime() {
+        //given
+        ConnectionHoldProfiler profiler = new ConnectionHoldProfiler();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new InterceptingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:hold;DB_CLOSE_DELAY=-1", "sa", ""), List.of(profiler)));
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        profiler.reset();
+
+        //when
+        ConnectionHoldProfiler.Call call = profiler.begin("cached");
+        transaction.executeWithoutResult(status -> {
+        });
+        profiler.end(call);
+
+        call = profiler.begin("query");
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            sleep(50);
+        });
+        profiler.end(call);
+
+        //then
+        ConnectionHoldReport report = profiler.report();
+        ConnectionHoldReport.Method cached = method(report, "cached");
+        assertThat(cached.getAcquisitions()).isZero();
+        assertThat(cached.getCallsWithoutConnection()).isEqualTo(1);
+
+        ConnectionHoldReport.Method query = method(report, "query");
+        assertThat(query.getAcquisitions()).isEqualTo(1);
+        assertThat(query.getCallsWithoutConnection()).isZero();
+        assertThat(query.getTotalHoldMillis()).isGreaterThanOrEqualTo(50);
+        assertThat(query.getTotalSqlMillis()).isLessThan(query.getTotalHoldMillis());
+        assertThat(report.getConnectionsInUse()).isZero();
+        assertThat(report.getPeakConnectionsInUse()).isEqualTo(1);
+    }
+
+    /**
+     * 커넥션을 잡고 있는 동안 reset()해도, 끝난 호출과 반환 시간은 새 통계에 들어가야 한다.
+     */
+    @Test
+    void callSpanningResetIsReported() {
+        //given
+        ConnectionHoldProfiler profiler = new ConnectionHoldProfiler();
+        ConnectionHoldProfiler.Call call = profiler.begin("query");
+        JdbcListener.ConnectionListener hold = profiler.acquired(0);
+
+        //when
+        profiler.reset();
+        sleep(20);
+        hold.closed();
+        profiler.end(call);
+
+        //then
+        ConnectionHoldReport report = profiler.report();
+        ConnectionHoldReport.Method query = method(report, "query");
+        assertThat(query.getCalls()).isEqualTo(1);
+        assertThat(query.getTotalHoldMillis()).isGreaterThanOrEqualTo(20);
+        assertThat(report.getConnectionsInUse()).isZero();
+    }
+
+    private static ConnectionHoldReport.Method method(ConnectionHoldReport report, String name) {
+        return report.getMethods().stream()
+                .filter(method -> method.getMethod().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package hello.itemservice.domain;
 
 import hello.itemservice.repository.ItemRepository;
 import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
 import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.ItemUpsertResult;
 import hello.itemservice.repository.memory.MemoryItemRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
@@ -11,7 +13,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -75,9 +79,11 @@ class ItemRepositoryTest {
 
         //when
         ItemUpdateDto updateParam = new ItemUpdateDto("item2", 20000, 30);
-        itemRepository.update(itemId, updateParam);
+        Optional<Item> before = itemRepository.update(itemId, updateParam);
 
         //then
+        assertThat(before).get().extracting(Item::getItemName, Item::getPrice, Item::getQuantity)
+                .containsExactly("item1", 10000, 10);
         Item findItem = itemRepository.findById(itemId).get();
         assertThat(findItem.getItemName()).isEqualTo(updateParam.getItemName());
         assertThat(findItem.getPrice()).isEqualTo(updateParam.getPrice());
@@ -112,6 +118,87 @@ class ItemRepositoryTest {
         test("itemA", 10000, item1);
     }
 
+    @Test
+    void findItemsSortedWithLimit() {
+        //given
+        Item item1 = new Item("itemA-1", 30000, 10);
+        Item item2 = new Item("itemA-2", 10000, 30);
+        Item item3 = new Item("itemB-1", 20000, 20);
+        Item item4 = new Item("itemA-3", 10000, 40);
+        itemRepository.save(item1);
+        itemRepository.save(item2);
+        itemRepository.save(item3);
+        itemRepository.save(item4);
+
+        //when, then
+        //가격 오름차순, 같은 가격이면 id 순
+        sortTest(new ItemSearchCond(null, null, ItemSortKey.PRICE, false, null), item2, item4, item3, item1);
+        sortTest(new ItemSearchCond(null, null, ItemSortKey.PRICE, false, 2), item2, item4);
+        sortTest(new ItemSearchCond(null, null, ItemSortKey.PRICE, true, 2), item1, item3);
+
+        //검색 조건과 함께
+        sortTest(new ItemSearchCond("itemA", null, ItemSortKey.QUANTITY, true, 2), item4, item2);
+        sortTest(new ItemSearchCond("itemA", 20000, ItemSortKey.NAME, true, 1), item4);
+
+        //limit만 있으면 id 순
+        sortTest(new ItemSearchCond(null, null, null, false, 3), item1, item2, item3);
+    }
+
+    @Test
+    void upsertAll() {
+        //given
+        Item existing = itemRepository.save(new Item("itemA", 10000, 10));
+        Item changed = new Item("itemA-2", 20000, 20);
+        changed.setId(existing.getId());
+        Item newItem = new Item("itemB", 30000, 30);
+        Item newItemWithId = new Item("itemC", 40000, 40);
+        newItemWithId.setId(existing.getId() + 1000);
+
+        //when
+        ItemUpsertResult result = itemRepository.upsertAll(List.of(changed, newItem, newItemWithId));
+
+        //then
+        assertThat(result.getUpdatedIds()).containsExactly(existing.getId());
+        assertThat(result.getInsertedIds()).containsExactly(newItem.getId(), newItemWithId.getId());
+        assertThat(result.getPrevious().get(existing.getId()).getItemName()).isEqualTo("itemA");
+        assertThat(itemRepository.findById(existing.getId()).get().getItemName()).isEqualTo("itemA-2");
+        assertThat(itemRepository.findById(newItem.getId())).isPresent();
+        assertThat(itemRepository.findById(newItemWithId.getId()).get().getItemName()).isEqualTo("itemC");
+
+        //지정한 id로 들어간 뒤에도 새로 저장하는 상품의 id가 겹치지 않음
+        Item next = itemRepository.save(new Item("itemD", 10000, 10));
+        assertThat(next.getId()).isNotIn(existing.getId(), newItem.getId(), newItemWithId.getId());
+    }
+
+    /**
+     * 시퀀스가 아직 발급하지 않은 큰 id로 upsert한 뒤 새 상품을 계속 저장해도 그 id와 겹치지 않아야 한다.
+     * +100은 JDBC/MyBatis(저장마다 시퀀스 값 하나, 50씩 증가)가 두 번째 저장에서, JPA(pooled-lo 50개 블록)가
+     * 세 번째 블록에서 받게 되는 id다. 시퀀스를 당기지 않으면 기본키 충돌.
+     */
+    @Test
+    void saveAfterUpsertWithHighId() {
+        //given
+        Item existing = itemRepository.save(new Item("itemA", 10000, 10));
+        Item highId = new Item("itemB", 20000, 20);
+        highId.setId(existing.getId() + 100);
+        itemRepository.upsertAll(List.of(highId));
+
+        //when
+        List<Item> saved = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            saved.add(itemRepository.save(new Item("item" + i, 10000, 10)));
+        }
+
+        //then (JPA는 조회 전 flush에서 insert가 나가므로 충돌하면 여기서 예외)
+        assertThat(saved).extracting(Item::getId).doesNotContain(highId.getId()).doesNotHaveDuplicates();
+        assertThat(itemRepository.findAllById(List.of(highId.getId()))).extracting(Item::getItemName).containsExactly("itemB");
+    }
+
+    void sortTest(ItemSearchCond cond, Item... items) {
+        List<Item> result = itemRepository.findAll(cond);
+        assertThat(result).containsExactly(items);
+    }
+
     void test(String itemName, Integer maxPrice, Item... items) {
         List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice));
         assertThat(result).containsExactly(items);
@@ -0,0 +1,102 @@
+package hello.itemservice.feed;
+
+import hello.itemservice.domain.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemChangeRingTest {
+
+    @Test
+    void readInBatches() {
+        //given
+        ItemChangeRing ring = new ItemChangeRing(16);
+        for (int i = 0; i < 10; i++) {
+            ring.publish(null, new Item("item" + i, 1000, i));
+        }
+
+        //when
+        List<ItemChange> batch = new ArrayList<>();
+        long next = ring.read(0, 4, batch);
+        List<ItemChange> rest = new ArrayList<>();
+        long end = ring.read(next, 100, rest);
+
+        //then
+        assertThat(next).isEqualTo(4);
+        assertThat(batch).extracting(ItemChange::getSequence).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(end).isEqualTo(10);
+        assertThat(rest).extracting(change -> change.getAfter().getQuantity()).containsExactly(4, 5, 6, 7, 8, 9);
+        assertThat(ring.read(end, 100, new ArrayList<>())).isEqualTo(end);
+    }
+
+    @Test
+    void slowReaderSkipsOverwrittenChanges() {
+        //given
+        ItemChangeRing ring = new ItemChangeRing(16);
+        for (int i = 0; i < 40; i++) {
+            ring.publish(null, new Item("item" + i, 1000, i));
+        }
+
+        //when
+        List<ItemChange> batch = new ArrayList<>();
+        long next = ring.read(0, 100, batch);
+
+        //then
+        assertThat(batch).isEmpty();
+        assertThat(next).isEqualTo(40 - 8);
+        List<ItemChange> rest = new ArrayList<>();
+        assertThat(ring.read(next, 100, rest)).isEqualTo(40);
+        assertThat(rest).extracting(ItemChange::getSequence).startsWith(32L).endsWith(39L);
+    }
+
+    /**
+     * 여러 스레드가 동시에 발행해도 독자는 순번 순서대로 받고, 받은 것 + 놓친 것 = 발행한 것.
+     */
+    @Test
+    void concurrentPublishers() throws Exception {
+        //given
+        ItemChangeRing ring = new ItemChangeRing(1024);
+        int publishers = 4;
+        int perPublisher = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(publishers);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perPublisher; i++) {
+                    ring.publish(null, new Item("item", 1000, i));
+                }
+            }));
+        }
+        long cursor = 0;
+        long received = 0;
+        long lost = 0;
+        List<ItemChange> batch = new ArrayList<>();
+        while (cursor < (long) publishers * perPublisher) {
+            batch.clear();
+            long next = ring.read(cursor, 256, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                assertThat(batch.get(i).getSequence()).isEqualTo(cursor + i);
+                assertThat(batch.get(i).getAfter()).isNotNull();
+            }
+            received += batch.size();
+            lost += next - cursor - batch.size();
+            cursor = next;
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(received + lost).isEqualTo((long) publishers * perPublisher);
+        assertThat(received).isPositive();
+    }
+}
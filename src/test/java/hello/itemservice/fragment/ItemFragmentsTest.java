@@ -0,0 +1,114 @@
+package hello.itemservice.fragment;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.ITemplateEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 목록 1000행을 매번 그릴 때와 조각 캐시에서 꺼낼 때의 시간 비교, 상품 값이 바뀌면 다시 그리는지, 크기 제한.
+ * 조각은 상품 값만으로 그리므로 DB 없이 id를 붙인 Item으로 확인한다.
+ */
+@Slf4j
+@SpringBootTest
+class ItemFragmentsTest {
+
+    private static final int ROWS = 1000;
+
+    @Autowired
+    ITemplateEngine templateEngine;
+
+    @Test
+    void hotListPage() {
+        //given
+        List<Item> items = items(ROWS);
+        ItemFragments uncached = new ItemFragments(templateEngine, new ItemFragmentCache(0));
+        ItemFragmentCache cache = new ItemFragmentCache(16 * 1024 * 1024);
+        ItemFragments cached = new ItemFragments(templateEngine, cache);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String expected = uncached.rows(items, request, response);
+
+        //when
+        long renderNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        String result = null;
+        for (int run = 0; run < 20; run++) {
+            long start = System.nanoTime();
+            uncached.rows(items, request, response);
+            renderNanos = Math.min(renderNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            result = cached.rows(items, request, response);
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+        }
+
+        //then
+        FragmentCacheStats stats = cache.stats();
+        log.info("rows={} render={}us cached={}us stats={}", ROWS, renderNanos / 1_000, cachedNanos / 1_000, stats);
+        assertThat(result).isEqualTo(expected);
+        assertThat(result).contains("href=\"/items/1\"");
+        assertThat(stats.getMisses()).isEqualTo(ROWS);
+        assertThat(stats.getHits()).isEqualTo(19L * ROWS);
+        assertThat(cachedNanos).isLessThan(renderNanos);
+    }
+
+    @Test
+    void changedItemIsRenderedAgain() {
+        //given
+        ItemFragmentCache cache = new ItemFragmentCache(16 * 1024 * 1024);
+        ItemFragments fragments = new ItemFragments(templateEngine, cache);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Item item = items(1).get(0);
+        fragments.detail(item, request, response);
+
+        //when
+        item.setItemName("changed");
+        String detail = fragments.detail(item, request, response);
+
+        //then
+        assertThat(detail).contains("value=\"changed\"");
+        assertThat(cache.stats().getHits()).isZero();
+        assertThat(cache.stats().getMisses()).isEqualTo(2);
+
+        cache.evict(item.getId());
+        assertThat(cache.stats().getEntries()).isZero();
+    }
+
+    @Test
+    void boundedByBytes() {
+        //given
+        long maxBytes = 20_000;
+        ItemFragmentCache cache = new ItemFragmentCache(maxBytes);
+        ItemFragments fragments = new ItemFragments(templateEngine, cache);
+
+        //when
+        fragments.rows(items(ROWS), new MockHttpServletRequest("GET", "/items"), new MockHttpServletResponse());
+
+        //then
+        FragmentCacheStats stats = cache.stats();
+        assertThat(stats.getBytes()).isLessThanOrEqualTo(maxBytes);
+        assertThat(stats.getEntries()).isPositive();
+        assertThat(stats.getEvictions()).isEqualTo(ROWS - stats.getEntries());
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Item item = new Item("item" + i, 1000 * i, i % 100);
+            item.setId((long) i);
+            items.add(item);
+        }
+        return items;
+    }
+}
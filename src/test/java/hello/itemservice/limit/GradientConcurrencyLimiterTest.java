@@ -0,0 +1,78 @@
+package hello.itemservice.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void rejectsOverLimit() {
+        //given
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter("test", 2, 1, 10);
+
+        //when, then
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.snapshot().getRejected()).isEqualTo(1);
+    }
+
+    /**
+     * 한도를 꽉 채워 쓰는 동안 응답 시간이 그대로면 늘고, 평소보다 느려지면 바로 줄어든다.
+     * (느린 상태가 계속되면 longRtt가 따라 올라가 다시 늘어나므로 느려진 직후만 본다)
+     */
+    @Test
+    void followsLatency() {
+        //given
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter("test", 20, 4, 200);
+
+        //when
+        saturate(limiter, FAST, 500);
+        int grown = limiter.getLimit();
+        saturate(limiter, SLOW, 3);
+        int shrunk = limiter.getLimit();
+
+        //then
+        assertThat(grown).isGreaterThan(20);
+        assertThat(shrunk).isLessThan(grown / 2);
+        assertThat(shrunk).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void doesNotGrowWhenUnderused() {
+        //given
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter("test", 20, 4, 200);
+
+        //when
+        for (int i = 0; i < 500; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST);
+        }
+
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    /**
+     * 한도만큼 동시에 잡았다가 같은 응답 시간으로 모두 놓는 것을 rounds번.
+     */
+    private static void saturate(GradientConcurrencyLimiter limiter, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos);
+            }
+        }
+    }
+}
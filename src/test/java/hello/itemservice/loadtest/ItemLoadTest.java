@@ -0,0 +1,160 @@
+package hello.itemservice.loadtest;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 상품 엔드포인트 부하 테스트. 일반 test 태스크에서는 제외되고 ./gradlew loadTest로만 실행된다.
+ *
+ * 애플리케이션을 임의 포트로 띄우고, 저장소 구현은 item.repository 시스템 프로퍼티로 고른다. (loadTest -Prepository=jpa)
+ * 시작 전에 load.seed-items건을 POST /items/add로 넣어 두고, 조회/수정은 그 id 중에서 고른다.
+ * 결과 표는 load.report-dir/{repository}.txt
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // 요청마다 SQL 로그가 찍히면 로그 출력이 지연 시간을 좌우하므로 끈다.
+        "logging.level.org.springframework.jdbc=info",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=info",
+        "logging.level.hello.itemservice.repository=info"
+})
+class ItemLoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Value("${item.repository:v2}")
+    String repository;
+
+    @Value("${load.rate:200}")
+    double rate;
+
+    @Value("${load.duration:30}")
+    long durationSeconds;
+
+    @Value("${load.warmup:5}")
+    long warmupSeconds;
+
+    @Value("${load.mix:search=50,detail=35,add=10,edit=5}")
+    String mix;
+
+    @Value("${load.seed-items:1000}")
+    int seedItems;
+
+    @Value("${load.seed:42}")
+    long seed;
+
+    @Value("${load.report-dir:build/reports/loadtest}")
+    String reportDir;
+
+    @Test
+    void itemEndpoints() throws Exception {
+        //given
+        URI baseUri = URI.create("http://localhost:" + port);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        List<Item> items = new ItemGenerator(seed).generate(0, seedItems);
+        long[] ids = seed(client, baseUri, items);
+        List<LoadGenerator.Endpoint> endpoints = endpoints(ids, items);
+
+        //when
+        LoadGenerator generator = new LoadGenerator(client, baseUri, endpoints, Duration.ofSeconds(30));
+        long measuredNanos = generator.run(rate, Duration.ofSeconds(warmupSeconds), Duration.ofSeconds(durationSeconds), seed);
+
+        //then
+        LoadReport report = new LoadReport(repository, rate, measuredNanos, endpoints);
+        Path path = report.write(Path.of(reportDir));
+        log.info("load test report {}\n{}", path, report.render());
+        for (LoadGenerator.Endpoint endpoint : endpoints) {
+            assertThat(endpoint.getErrors()).as(endpoint.getName() + " errors").isZero();
+        }
+    }
+
+    private long[] seed(HttpClient client, URI baseUri, List<Item> items) throws Exception {
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            HttpResponse<Void> response = client.send(addRequest(baseUri, items.get(i)), HttpResponse.BodyHandlers.discarding());
+            // redirect:/items/{itemId}?status=true
+            String location = response.headers().firstValue("Location").orElseThrow();
+            String path = URI.create(location).getPath();
+            ids[i] = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+        }
+        return ids;
+    }
+
+    private List<LoadGenerator.Endpoint> endpoints(long[] ids, List<Item> items) {
+        List<LoadGenerator.Endpoint> endpoints = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : LoadGenerator.parseMix(mix).entrySet()) {
+            endpoints.add(new LoadGenerator.Endpoint(entry.getKey(), entry.getValue(), factory(entry.getKey(), ids, items)));
+        }
+        return endpoints;
+    }
+
+    private LoadGenerator.RequestFactory factory(String name, long[] ids, List<Item> items) {
+        switch (name) {
+            case "search":
+                // 상품명 앞 3글자와 가격 상한을 섞어서 검색. 일부는 조건 없이 전체 목록.
+                return (baseUri, random) -> {
+                    if (random.nextInt(10) == 0) {
+                        return HttpRequest.newBuilder(baseUri.resolve("/items")).GET().build();
+                    }
+                    Item item = items.get(random.nextInt(items.size()));
+                    String itemName = item.getItemName().substring(0, Math.min(3, item.getItemName().length()));
+                    return HttpRequest.newBuilder(baseUri.resolve("/items?itemName=" + encode(itemName)
+                            + "&maxPrice=" + item.getPrice())).GET().build();
+                };
+            case "detail":
+                return (baseUri, random) -> HttpRequest.newBuilder(
+                        baseUri.resolve("/items/" + ids[random.nextInt(ids.length)])).GET().build();
+            case "add":
+                return (baseUri, random) -> addRequest(baseUri, items.get(random.nextInt(items.size())));
+            case "edit":
+                return (baseUri, random) -> {
+                    Item item = items.get(random.nextInt(items.size()));
+                    return form(baseUri.resolve("/items/" + ids[random.nextInt(ids.length)] + "/edit"),
+                            item.getItemName(), item.getPrice(), random.nextInt(1000));
+                };
+            default:
+                throw new IllegalArgumentException("unknown endpoint in load.mix: " + name);
+        }
+    }
+
+    private static HttpRequest addRequest(URI baseUri, Item item) {
+        return form(baseUri.resolve("/items/add"), item.getItemName(), item.getPrice(), item.getQuantity());
+    }
+
+    private static HttpRequest form(URI uri, String itemName, Integer price, Integer quantity) {
+        String body = "itemName=" + encode(itemName) + "&price=" + price + "&quantity=" + quantity;
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
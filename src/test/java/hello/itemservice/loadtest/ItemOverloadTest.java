@@ -0,0 +1,104 @@
+package hello.itemservice.loadtest;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 과부하 테스트. 일반 test 태스크에서는 제외되고 ./gradlew loadTest로만 실행된다. (@Tag("load"))
+ *
+ * item 테이블에 overload.seed-items건을 넣어 검색(LIKE 전체 스캔)을 느리게 만든 뒤, 처리할 수 있는 것보다 많은 검색을
+ * overload.rate로 보낸다. 동시 처리 제한이 켜져 있으면 넘치는 요청은 503으로 바로 거절되고, 처리된 요청의 p99는
+ * overload.p99-bound-millis 안에 머문다. 비교하려면 -PconcurrencyLimit=false로 끄고 같은 조건으로 돌린다. (이때는 검사하지 않고 기록만)
+ * 결과 표는 load.report-dir/overload-{limited|unlimited}.txt
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.springframework.jdbc=info",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=info",
+        "logging.level.hello.itemservice.repository=info"
+})
+class ItemOverloadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${item.concurrency-limit.enabled:true}")
+    boolean limited;
+
+    @Value("${overload.seed-items:300000}")
+    int seedItems;
+
+    @Value("${overload.rate:400}")
+    double rate;
+
+    @Value("${overload.duration:20}")
+    long durationSeconds;
+
+    @Value("${overload.p99-bound-millis:2000}")
+    long p99BoundMillis;
+
+    @Value("${load.report-dir:build/reports/loadtest}")
+    String reportDir;
+
+    @Test
+    void searchUnderOverload() {
+        //given
+        ItemGenerator generator = new ItemGenerator(42);
+        for (int chunk = 0; chunk * 10_000 < seedItems; chunk++) {
+            List<Object[]> rows = generator.generate(chunk, Math.min(10_000, seedItems - chunk * 10_000)).stream()
+                    .map(item -> new Object[]{item.getItemName(), item.getPrice(), item.getQuantity()})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("insert into item (item_name, price, quantity) values (?, ?, ?)", rows);
+        }
+        List<Item> samples = generator.generate(-1, 1000);
+        LoadGenerator.Endpoint search = new LoadGenerator.Endpoint("search", 1, (baseUri, random) -> {
+            Item item = samples.get(random.nextInt(samples.size()));
+            String itemName = item.getItemName().substring(0, Math.min(3, item.getItemName().length()));
+            return HttpRequest.newBuilder(baseUri.resolve("/items?itemName="
+                    + URLEncoder.encode(itemName, StandardCharsets.UTF_8) + "&maxPrice=" + item.getPrice())).GET().build();
+        });
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        //when
+        LoadGenerator loadGenerator = new LoadGenerator(client, URI.create("http://localhost:" + port), List.of(search),
+                Duration.ofSeconds(60));
+        long measuredNanos = loadGenerator.run(rate, Duration.ofSeconds(5), Duration.ofSeconds(durationSeconds), 42);
+
+        //then
+        LoadReport report = new LoadReport(limited ? "overload-limited" : "overload-unlimited", rate, measuredNanos, List.of(search));
+        Path path = report.write(Path.of(reportDir));
+        log.info("overload report {}\n{}", path, report.render());
+        if (limited) {
+            Histogram histogram = search.getHistogram();
+            assertThat(histogram.getTotalCount()).isPositive();
+            assertThat(histogram.getValueAtPercentile(99) / 1000).as("search p99(ms)").isLessThan(p99BoundMillis);
+            assertThat(search.getErrors()).isZero();
+        }
+    }
+}
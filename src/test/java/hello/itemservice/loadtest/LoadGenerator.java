@@ -0,0 +1,172 @@
+package hello.itemservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 개방형(open model) 부하 생성기.
+ *
+ * 요청을 응답과 무관하게 rate에 맞춘 고정 간격으로 보낸다. 서버가 느려져도 보내는 속도는 줄지 않는다.
+ * 지연 시간은 실제로 보낸 시각이 아니라 보냈어야 할 시각(intended start)부터 잰다.
+ * 생성기 스레드가 밀려서 늦게 보낸 요청도 그만큼 늦은 것으로 기록되므로 coordinated omission이 생기지 않는다.
+ *
+ * 요청 종류는 weight 비율로 섞고, 종류별로 HdrHistogram에 마이크로초 단위로 기록한다.
+ * 동시 처리 제한으로 거절된 요청(503)은 오류가 아니라 shed로 따로 세고 지연 시간 분포에는 넣지 않는다.
+ * warmup 구간에 시작된 요청은 기록하지 않는다.
+ */
+public class LoadGenerator {
+
+    /**
+     * 보낼 요청 하나를 만드는 방법. random은 생성기 스레드에서만 쓴다.
+     */
+    public interface RequestFactory {
+        HttpRequest create(URI baseUri, SplittableRandom random);
+    }
+
+    public static class Endpoint {
+        private final String name;
+        private final int weight;
+        private final RequestFactory factory;
+        private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        public Endpoint(String name, int weight, RequestFactory factory) {
+            this.name = name;
+            this.weight = weight;
+            this.factory = factory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getShed() {
+            return shed.sum();
+        }
+    }
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final List<Endpoint> endpoints;
+    private final int[] cumulativeWeights;
+    private final Duration timeout;
+
+    public LoadGenerator(HttpClient client, URI baseUri, List<Endpoint> endpoints, Duration timeout) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.endpoints = endpoints;
+        this.timeout = timeout;
+        this.cumulativeWeights = new int[endpoints.size()];
+        int sum = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            sum += endpoints.get(i).weight;
+            cumulativeWeights[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("no endpoint has a positive weight");
+        }
+    }
+
+    /**
+     * 초당 rate건을 warmup + duration 동안 보내고, 보낸 요청이 모두 끝날 때까지 기다린다.
+     * @return 측정 구간 길이(나노초)
+     */
+    public long run(double rate, Duration warmup, Duration duration, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ConcurrentLinkedQueue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pick(random);
+            HttpRequest request = endpoint.factory.create(baseUri, random);
+            boolean record = intendedStart >= measureFrom;
+            CompletableFuture<?> future = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .handle((response, ex) -> {
+                        if (record) {
+                            complete(endpoint, intendedStart, response, ex);
+                        }
+                        return null;
+                    });
+            inFlight.add(future);
+            if ((i & 0x3FFF) == 0) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        return end - measureFrom;
+    }
+
+    private void complete(Endpoint endpoint, long intendedStart, HttpResponse<?> response, Throwable ex) {
+        if (ex == null && response.statusCode() == 503) {
+            endpoint.shed.increment();
+            return;
+        }
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+        endpoint.histogram.recordValue(Math.min(latencyMicros, endpoint.histogram.getHighestTrackableValue()));
+        if (ex != null || response.statusCode() >= 400) {
+            endpoint.errors.increment();
+        }
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    /**
+     * "search=50,detail=35,add=10,edit=5" 형식을 이름 -> 비율로 읽는다.
+     */
+    public static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("invalid mix entry: " + entry);
+            }
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,81 @@
+package hello.itemservice.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트 결과 보고서.
+ * 버전 간에 diff로 비교할 수 있도록 실행 시각 같은 매번 바뀌는 값은 넣지 않고, 엔드포인트 순서와 열 폭을 고정한다.
+ * 지연 시간은 밀리초, 처리량은 초당 완료 건수. shed는 503으로 거절된 건수. (count, 지연 시간에는 포함되지 않음)
+ */
+public class LoadReport {
+
+    private final String repository;
+    private final double rate;
+    private final long measuredNanos;
+    private final List<LoadGenerator.Endpoint> endpoints;
+
+    public LoadReport(String repository, double rate, long measuredNanos, List<LoadGenerator.Endpoint> endpoints) {
+        this.repository = repository;
+        this.rate = rate;
+        this.measuredNanos = measuredNanos;
+        this.endpoints = endpoints;
+    }
+
+    public String render() {
+        double seconds = measuredNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "repository=%s rate=%.1f/s duration=%.0fs%n", repository, rate, seconds));
+        sb.append(String.format(Locale.ROOT, "%-8s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "endpoint", "count", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors", "shed"));
+        for (LoadGenerator.Endpoint endpoint : endpoints) {
+            Histogram histogram = endpoint.getHistogram();
+            long count = histogram.getTotalCount();
+            sb.append(String.format(Locale.ROOT, "%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d %8d%n",
+                    endpoint.getName(),
+                    count,
+                    count / seconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()),
+                    endpoint.getErrors(),
+                    endpoint.getShed()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {dir}/{repository}.txt에 표를, {dir}/{repository}-{endpoint}.hgrm에 백분위 분포 전체를 남긴다.
+     */
+    public Path write(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            Path report = dir.resolve(repository + ".txt");
+            Files.writeString(report, render(), StandardCharsets.UTF_8);
+            for (LoadGenerator.Endpoint endpoint : endpoints) {
+                Path distribution = dir.resolve(repository + "-" + endpoint.getName() + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), false, "UTF-8")) {
+                    // 마이크로초로 기록했으므로 1000으로 나눠 밀리초로 출력
+                    endpoint.getHistogram().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,75 @@
+package hello.itemservice.projection;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 읽기 모델 검색 결과가 저장소 검색과 같은지. (가격 구간 경계 포함)
+ */
+class ItemProjectionTest {
+
+    @Test
+    void sameResultsAsRepository() {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        for (Item item : new ItemGenerator(7).generate(0, 5_000)) {
+            repository.save(item);
+        }
+        ItemProjection projection = new ItemProjection();
+        projection.rebuild(repository);
+
+        List<ItemSearchCond> conds = List.of(
+                new ItemSearchCond(null, null, ItemSortKey.ID, false, null),
+                new ItemSearchCond("pen", 12000, ItemSortKey.ID, false, null),
+                new ItemSearchCond("cup", 9900, ItemSortKey.PRICE, true, 30),
+                new ItemSearchCond(null, 1000, ItemSortKey.NAME, false, 50),
+                new ItemSearchCond("book", null, ItemSortKey.QUANTITY, false, 10));
+
+        //when, then
+        assertThat(projection.size()).isEqualTo(5_000);
+        for (ItemSearchCond cond : conds) {
+            assertThat(projection.findAll(cond)).as(cond.toString())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(repository.findAll(cond));
+        }
+    }
+
+    @Test
+    void applyMovesBetweenPriceBuckets() {
+        //given
+        ItemProjection projection = new ItemProjection();
+        Item item = new Item("itemA", 12_345, 10);
+        item.setId(1L);
+        projection.apply(1L, item);
+        ItemSearchCond cheap = new ItemSearchCond("item", 1_000);
+
+        //when
+        Item changed = new Item("itemA", 980, 10);
+        changed.setId(1L);
+        projection.apply(1L, changed);
+
+        //then
+        assertThat(projection.findAll(cheap)).extracting(Item::getPrice).containsExactly(980);
+        assertThat(projection.findAll(new ItemSearchCond("item", 979))).isEmpty();
+
+        projection.apply(1L, null);
+        assertThat(projection.findAll(new ItemSearchCond())).isEmpty();
+    }
+
+    @Test
+    void bucket() {
+        assertThat(ItemProjectionRow.bucket(50)).isEqualTo(50);
+        assertThat(ItemProjectionRow.bucket(980)).isEqualTo(980);
+        assertThat(ItemProjectionRow.bucket(12_345)).isEqualTo(12_000);
+        assertThat(ItemProjectionRow.bucket(99_999)).isEqualTo(99_000);
+        assertThat(ItemProjectionRow.bucket(Integer.MAX_VALUE)).isEqualTo(2_100_000_000);
+    }
+}
@@ -0,0 +1,56 @@
+package hello.itemservice.projection;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.feed.ItemChangeRing;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemProjectorTest {
+
+    /**
+     * 반영하는 동안 항상 새 변경이 들어와서 링이 비는 순간이 없어도, 매 배치 따라잡으므로 지연이 쌓이지 않아야 한다.
+     */
+    @Test
+    void lagStaysLowUnderContinuousWrites() throws InterruptedException {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        ItemChangeRing ring = new ItemChangeRing(1024);
+        Item item = repository.save(new Item("itemA", 10000, 10));
+        AtomicInteger price = new AtomicInteger(10000);
+        // 읽기 모델이 행을 다시 읽을 때마다 다른 스레드가 새로 수정한 것처럼 변경을 하나 더 발행한다.
+        Runnable writer = () -> {
+            repository.update(item.getId(), new ItemUpdateDto("itemA", price.incrementAndGet(), 10));
+            ring.publish(null, repository.findById(item.getId()).get());
+        };
+        ItemProjector projector = new ItemProjector(ring, new ItemProjection(), repository, ids -> {
+            writer.run();
+            return repository.findAllById(ids);
+        }, 64, 1, 100);
+
+        //when 첫 적재가 끝난 뒤 변경 하나로 시작하면, 그다음부터는 반영할 때마다 새 변경이 생긴다.
+        projector.start();
+        try {
+            while (!projector.status().isReady()) {
+                Thread.sleep(1);
+            }
+            writer.run();
+            Thread.sleep(500);
+
+            //then
+            ItemProjectionStatus status = projector.status();
+            assertThat(status.getAppliedChanges()).isGreaterThan(10);
+            assertThat(status.getPending()).isGreaterThan(0);
+            assertThat(status.getLagMillis()).isLessThan(100);
+            assertThat(projector.getProjection().findAll(new ItemSearchCond("item", null)))
+                    .hasSize(1);
+        } finally {
+            projector.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 모든 ItemRepository 구현에 대한 동시성 계약 테스트. 구현마다 item.repository를 바꾼 컨텍스트를 따로 띄운다. (아래 static 클래스)
+ *
+ * THREADS개 스레드가 저장, 수정, 단건 조회, 검색, 재고 차감을 섞어서 실행하면서 확인한다.
+ * - 저장된 id는 모두 다르다.
+ * - 상품은 저장한 스레드만 수정한다. 단건 조회와 검색은 그 스레드가 마지막으로 쓴 값과 정확히 같아야 한다. (수정 유실 없음)
+ *   검색은 스레드 고유 접두어(t07...)로 하므로 다른 스레드의 쓰기와 섞이지 않는다.
+ * - 모든 스레드가 같이 차감하는 인기 상품의 재고는 처음 재고 - 성공한 차감 수.
+ *
+ * 처리량은 stress.report-dir/{repository}.txt에 남긴다. 실행 시각 같은 값은 넣지 않으므로 버전 간에 diff로 비교한다.
+ * stress.min-ops-per-second를 지정하면 처리량이 그보다 낮을 때 실패한다.
+ * 스레드마다 커밋해야 하므로 @Transactional을 붙이지 않고, 컨텍스트(내장 DB)는 버린다.
+ */
+@Slf4j
+@DirtiesContext
+@TestPropertySource(properties = {
+        // 연산마다 SQL 로그가 찍히면 로그 출력이 처리량을 좌우하므로 끈다.
+        "logging.level.org.springframework.jdbc=info",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=info",
+        "logging.level.hello.itemservice.repository=info"
+})
+abstract class ItemRepositoryStressTest {
+
+    private static final int THREADS = 16;
+    private static final int OPS_PER_THREAD = 400;
+    private static final int HOT_STOCK = THREADS * OPS_PER_THREAD / 20;
+    private static final List<String> OPERATIONS = List.of("save", "update", "findById", "findAll", "reserveStock");
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Value("${item.repository}")
+    String repository;
+
+    @Value("${stress.report-dir:build/reports/repository-stress}")
+    String reportDir;
+
+    @Value("${stress.min-ops-per-second:0}")
+    double minOpsPerSecond;
+
+    private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+    private final Map<String, LongAdder> counts = new LinkedHashMap<>();
+    private final Map<String, LongAdder> nanos = new LinkedHashMap<>();
+    private final LongAdder reserved = new LongAdder();
+
+    ItemRepositoryStressTest() {
+        for (String operation : OPERATIONS) {
+            counts.put(operation, new LongAdder());
+            nanos.put(operation, new LongAdder());
+        }
+    }
+
+    @Test
+    void interleavedOperations() throws Exception {
+        //given
+        Item hot = itemRepository.save(new Item("popular", 10000, HOT_STOCK));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<Map<Long, Item>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return run(thread, hot.getId());
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Map<Long, Item> expected = new HashMap<>();
+        for (Future<Map<Long, Item>> future : futures) {
+            expected.putAll(future.get());
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        //then
+        double opsPerSecond = THREADS * OPS_PER_THREAD / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        String report = report(opsPerSecond);
+        Path path = Path.of(reportDir).resolve(repository + ".txt");
+        write(path, report);
+        log.info("repository stress report {}\n{}", path, report);
+
+        assertThat(ids).hasSize(expected.size());
+        for (Item item : expected.values()) {
+            assertThat(itemRepository.findById(item.getId())).contains(item);
+        }
+        assertThat(itemRepository.findById(hot.getId()).get().getQuantity())
+                .isEqualTo(HOT_STOCK - reserved.intValue())
+                .isGreaterThanOrEqualTo(0);
+        assertThat(opsPerSecond).isGreaterThanOrEqualTo(minOpsPerSecond);
+    }
+
+    /**
+     * 스레드 하나의 작업. 이 스레드가 저장한 상품과 마지막으로 쓴 값을 돌려준다.
+     */
+    private Map<Long, Item> run(int thread, Long hotId) {
+        Random random = new Random(thread);
+        String prefix = String.format("t%02d", thread);
+        Map<Long, Item> owned = new LinkedHashMap<>();
+        List<Long> ownedIds = new ArrayList<>();
+
+        for (int i = 0; i < OPS_PER_THREAD; i++) {
+            int op = ownedIds.isEmpty() ? 0 : random.nextInt(10);
+            if (op < 2) {
+                Item newItem = new Item(prefix + "n" + i, 1000 + random.nextInt(100_000), 100);
+                Item item = timed("save", () -> itemRepository.save(newItem));
+                assertThat(item.getId()).isNotNull();
+                assertThat(ids.add(item.getId())).as("duplicate id %s", item.getId()).isTrue();
+                owned.put(item.getId(), copyOf(item));
+                ownedIds.add(item.getId());
+            } else if (op < 4) {
+                Long id = ownedIds.get(random.nextInt(ownedIds.size()));
+                ItemUpdateDto updateParam = new ItemUpdateDto(prefix + "u" + i, 1000 + random.nextInt(100_000), random.nextInt(1000));
+                timed("update", () -> {
+                    itemRepository.update(id, updateParam);
+                    return null;
+                });
+                Item item = new Item(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+                item.setId(id);
+                owned.put(id, item);
+            } else if (op < 7) {
+                Long id = ownedIds.get(random.nextInt(ownedIds.size()));
+                assertThat(timed("findById", () -> itemRepository.findById(id))).contains(owned.get(id));
+            } else if (op < 9) {
+                int maxPrice = 1000 + random.nextInt(100_000);
+                List<Item> found = timed("findAll", () -> itemRepository.findAll(new ItemSearchCond(prefix, maxPrice)));
+                List<Item> expected = owned.values().stream()
+                        .filter(item -> item.getPrice() <= maxPrice)
+                        .collect(Collectors.toList());
+                assertThat(found).containsExactlyInAnyOrderElementsOf(expected);
+            } else {
+                if (timed("reserveStock", () -> itemRepository.reserveStock(hotId, 1)) == StockReservation.RESERVED) {
+                    reserved.increment();
+                }
+            }
+        }
+        return owned;
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        nanos.get(operation).add(System.nanoTime() - start);
+        counts.get(operation).increment();
+        return result;
+    }
+
+    private String report(double opsPerSecond) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "repository=%s threads=%d ops=%d ops/s=%.0f%n",
+                repository, THREADS, THREADS * OPS_PER_THREAD, opsPerSecond));
+        sb.append(String.format(Locale.ROOT, "%-12s %8s %10s%n", "operation", "count", "avg(us)"));
+        for (String operation : OPERATIONS) {
+            long count = counts.get(operation).sum();
+            sb.append(String.format(Locale.ROOT, "%-12s %8d %10.1f%n", operation, count,
+                    count == 0 ? 0 : nanos.get(operation).sum() / 1_000.0 / count));
+        }
+        return sb.toString();
+    }
+
+    private static void write(Path path, String report) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, report, StandardCharsets.UTF_8);
+    }
+
+    private static Item copyOf(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        return copy;
+    }
+
+    @SpringBootTest(properties = "item.repository=memory")
+    static class MemoryTest extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=jdbc-v1")
+    static class JdbcTemplateV1Test extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=jdbc-v2")
+    static class JdbcTemplateV2Test extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=jdbc-v3")
+    static class JdbcTemplateV3Test extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=mybatis")
+    static class MyBatisTest extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=jpa")
+    static class JpaTest extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=spring-data-jpa")
+    static class SpringDataJpaTest extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=querydsl")
+    static class QueryDslTest extends ItemRepositoryStressTest {
+    }
+
+    @SpringBootTest(properties = "item.repository=v2")
+    static class V2Test extends ItemRepositoryStressTest {
+    }
+}
@@ -0,0 +1,37 @@
+package hello.itemservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 내장 파일 DB를 다시 열 때 스키마 스크립트가 기존 데이터를 지우지 않는지 확인.
+ * 커넥션을 매번 새로 열고 닫으므로(DriverManagerDataSource) 마지막 커넥션이 닫힐 때마다 DB가 닫혔다가 다시 열린다.
+ */
+class ItemSchemaInitializerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void createsSchemaOnlyOnce() {
+        //given
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:" + dir.resolve("itemservice") + ";DB_CLOSE_ON_EXIT=FALSE", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(new ItemSchemaInitializer(dataSource, "classpath:sql/schema.sql").initializeDatabase()).isTrue();
+        jdbcTemplate.update("insert into item(item_name, price, quantity) values ('itemA', 10000, 10)");
+
+        //when
+        boolean initialized = new ItemSchemaInitializer(dataSource, "classpath:sql/schema.sql").initializeDatabase();
+
+        //then
+        assertThat(initialized).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(1);
+    }
+}
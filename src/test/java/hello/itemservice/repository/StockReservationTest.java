@@ -0,0 +1,110 @@
+package hello.itemservice.repository;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.memory.MemoryItemRepository;
+import hello.itemservice.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인기 상품 하나에 여러 스레드가 동시에 재고 차감을 요청하는 경합 테스트.
+ * 스레드마다 커밋해야 하므로 @Transactional을 붙이지 않고, 남은 데이터가 다른 테스트에 보이지 않도록 컨텍스트(내장 DB)를 버린다.
+ */
+@Slf4j
+@SpringBootTest
+@DirtiesContext
+class StockReservationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Test
+    void reserveStock() {
+        //given
+        Item item = itemService.save(new Item("itemA", 10000, 10));
+
+        //when, then
+        assertThat(itemService.reserveStock(item.getId(), 3)).isEqualTo(StockReservation.RESERVED);
+        assertThat(itemService.reserveStock(item.getId(), 8)).isEqualTo(StockReservation.INSUFFICIENT_STOCK);
+        assertThat(itemService.reserveStock(item.getId(), 7)).isEqualTo(StockReservation.RESERVED);
+        assertThat(itemService.reserveStock(-1L, 1)).isEqualTo(StockReservation.NOT_FOUND);
+        assertThat(itemService.findById(item.getId()).get().getQuantity()).isZero();
+    }
+
+    @Test
+    void hotItemWithService() throws Exception {
+        Item item = itemService.save(new Item("hot", 10000, 2_000));
+        hotItem(item, itemService::reserveStock, id -> itemService.findById(id).get().getQuantity());
+    }
+
+    @Test
+    void hotItemWithRepository() throws Exception {
+        Item item = itemRepository.save(new Item("hot", 10000, 2_000));
+        hotItem(item, itemRepository::reserveStock, id -> itemRepository.findById(id).get().getQuantity());
+    }
+
+    @Test
+    void hotItemWithMemoryRepository() throws Exception {
+        MemoryItemRepository repository = new MemoryItemRepository();
+        Item item = repository.save(new Item("hot", 10000, 200_000));
+        hotItem(item, repository::reserveStock, id -> repository.findById(id).get().getQuantity());
+    }
+
+    /**
+     * 재고가 바닥날 때까지 THREADS개 스레드가 1개씩 차감한다.
+     * 성공 건수가 처음 재고와 정확히 같아야 하고(유실/초과 차감 없음), 남은 재고는 0.
+     */
+    private void hotItem(Item item, BiFunction<Long, Integer, StockReservation> reserve,
+                         Function<Long, Integer> quantity) throws Exception {
+        //given
+        int stock = item.getQuantity();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int reserved = 0;
+                while (reserve.apply(item.getId(), 1) == StockReservation.RESERVED) {
+                    reserved++;
+                }
+                return reserved;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        //then
+        log.info("hot item threads={} reservations={} elapsed={}ms reservations/s={}",
+                THREADS, total, elapsedNanos / 1_000_000, total * 1_000_000_000L / Math.max(1, elapsedNanos));
+        assertThat(total).isEqualTo(stock);
+        assertThat(quantity.apply(item.getId())).isZero();
+    }
+}
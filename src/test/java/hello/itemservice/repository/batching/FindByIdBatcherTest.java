@@ -0,0 +1,141 @@
+package hello.itemservice.repository.batching;
+
+import hello.itemservice.domain.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 동시 findById 묶음 조회. loader는 조회마다 1ms 걸리는 in 조회 흉내.
+ */
+@Slf4j
+class FindByIdBatcherTest {
+
+    private static final int THREADS = 32;
+    private static final int LOOKUPS_PER_THREAD = 100;
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final Function<List<Long>, List<Item>> loader = ids -> {
+        queries.incrementAndGet();
+        sleep(1);
+        // 음수 id는 없는 상품
+        return ids.stream()
+                .filter(id -> id >= 0)
+                .map(id -> {
+                    Item item = new Item("item" + id, 1000, 1);
+                    item.setId(id);
+                    return item;
+                })
+                .collect(Collectors.toList());
+    };
+
+    @Test
+    void concurrentLookupsShareQueries() throws Exception {
+        //given
+        FindByIdBatcher batcher = new FindByIdBatcher(loader, 100, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long base = t * 1_000L;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long id = base; id < base + LOOKUPS_PER_THREAD; id++) {
+                    Optional<Item> found = batcher.load(id);
+                    assertThat(found).map(Item::getId).contains(id);
+                }
+                assertThat(batcher.load(-base - 1)).isEmpty();
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        //then
+        long lookups = THREADS * (LOOKUPS_PER_THREAD + 1L);
+        log.info("lookups={} queries={} avg batch={} elapsed={}ms window={}us", batcher.getLookups(), queries.get(),
+                lookups / Math.max(1, queries.get()), elapsedNanos / 1_000_000, batcher.getWindowMicros());
+        assertThat(batcher.getLookups()).isEqualTo(lookups);
+        assertThat(batcher.getQueries()).isEqualTo(queries.get());
+        assertThat(queries.get()).isLessThan((int) (lookups / 4));
+    }
+
+    /**
+     * 한 스레드에서 하나씩 조회하면 모을 상대가 없으므로 window가 0으로 줄어 기다리지 않는다.
+     */
+    @Test
+    void noWaitingAtLowLoad() {
+        //given
+        FindByIdBatcher batcher = new FindByIdBatcher(loader, 100, 500);
+
+        //when
+        for (long id = 0; id < 20; id++) {
+            assertThat(batcher.load(id)).isPresent();
+        }
+
+        //then
+        assertThat(queries.get()).isEqualTo(20);
+        assertThat(batcher.getWindowMicros()).isZero();
+    }
+
+    /**
+     * 묶음의 첫 호출도 loader가 돌려준 객체가 아니라 복사본을 받는다.
+     */
+    @Test
+    void everyCallerGetsDetachedCopy() {
+        //given
+        Item loaded = new Item("itemA", 1000, 1);
+        loaded.setId(1L);
+        FindByIdBatcher batcher = new FindByIdBatcher(ids -> List.of(loaded), 100, 500);
+
+        //when
+        Item first = batcher.load(1L).orElseThrow();
+        Item second = batcher.load(1L).orElseThrow();
+
+        //then
+        assertThat(first).isNotSameAs(loaded).isEqualTo(loaded);
+        assertThat(second).isNotSameAs(loaded).isNotSameAs(first);
+    }
+
+    @Test
+    void loaderFailureReachesEveryCaller() {
+        //given
+        FindByIdBatcher batcher = new FindByIdBatcher(ids -> {
+            throw new IllegalStateException("db down");
+        }, 100, 500);
+
+        //when, then
+        assertThatThrownBy(() -> batcher.load(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("db down");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package hello.itemservice.repository.jpa;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import hello.itemservice.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 시퀀스(pooled-lo) id + hibernate.jdbc.batch_size 적용 전후 insert 처리량 비교.
+ * 적용 전(IDENTITY)은 persist마다 insert가 바로 나가므로, 같은 세션의 JDBC 배치 크기를 1로 줄여서 재현한다.
+ * 상품 수는 -Dinsert.benchmark.items로 바꿀 수 있다. (기본 2만 건, 1000건씩 한 트랜잭션 = ItemBatchWriter와 같은 단위)
+ * 커밋해야 하므로 @Transactional을 붙이지 않고 컨텍스트(내장 DB)를 버린다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        // 건마다 SQL 로그가 찍히면 로그 출력이 시간을 좌우하므로 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=info",
+        "logging.level.org.springframework.jdbc=info"
+})
+@DirtiesContext
+class JpaInsertBatchingTest {
+
+    private static final int TRANSACTION_SIZE = 1000;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void groupedInserts() {
+        //given
+        int count = Integer.getInteger("insert.benchmark.items", 20_000);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        insert(new ItemGenerator(1), Math.min(count, 2_000), 50, statistics); // 워밍업
+
+        //when
+        long[] unbatched = insert(new ItemGenerator(42), count, 1, statistics);
+        long[] batched = insert(new ItemGenerator(42), count, 50, statistics);
+
+        //then
+        log.info("items={} unbatched: {}ms {} items/s statements={} / batched(50): {}ms {} items/s statements={}",
+                count, unbatched[0], count * 1000L / Math.max(1, unbatched[0]), unbatched[1],
+                batched[0], count * 1000L / Math.max(1, batched[0]), batched[1]);
+        // 배치 없이는 건마다 insert 하나. 배치하면 50건에 insert 하나 + 시퀀스 조회 하나.
+        assertThat(unbatched[1]).isGreaterThanOrEqualTo(count);
+        assertThat(batched[1]).isLessThanOrEqualTo(count / 50 * 2 + count / TRANSACTION_SIZE * 2 + 10);
+    }
+
+    /**
+     * @return {걸린 시간(ms), 준비된 JDBC 문장 수}
+     */
+    private long[] insert(ItemGenerator generator, int count, int jdbcBatchSize, Statistics statistics) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int chunk = 0; chunk * TRANSACTION_SIZE < count; chunk++) {
+            List<Item> items = generator.generate(chunk, Math.min(TRANSACTION_SIZE, count - chunk * TRANSACTION_SIZE));
+            transactionTemplate.executeWithoutResult(status -> {
+                em.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                for (Item item : items) {
+                    itemService.save(item);
+                }
+            });
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new long[]{elapsedMillis, statistics.getPrepareStatementCount()};
+    }
+}
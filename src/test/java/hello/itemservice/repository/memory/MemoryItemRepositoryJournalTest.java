@@ -0,0 +1,137 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 없이 MemoryItemRepository + ItemJournal만으로 재시작(복구)을 검증.
+ * 재시작은 journal을 close하고 같은 디렉토리로 새 repository를 만드는 것으로 흉내낸다.
+ * 테스트에서 연 journal은 모두 끝날 때 닫는다. (close는 여러 번 불러도 됨)
+ */
+@Slf4j
+class MemoryItemRepositoryJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final List<ItemJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(ItemJournal::close);
+    }
+
+    @Test
+    void recoverFromLog() {
+        //given
+        ItemJournal journal = newJournal(true);
+        MemoryItemRepository repository = new MemoryItemRepository(journal);
+        Item itemA = repository.save(new Item("itemA", 10000, 10));
+        Item itemB = repository.save(new Item("itemB", 20000, 20));
+        repository.update(itemA.getId(), new ItemUpdateDto("itemA2", 11000, 11));
+        journal.close();
+
+        //when
+        MemoryItemRepository recovered = new MemoryItemRepository(newJournal(true));
+
+        //then
+        Item findA = recovered.findById(itemA.getId()).get();
+        assertThat(findA.getItemName()).isEqualTo("itemA2");
+        assertThat(findA.getPrice()).isEqualTo(11000);
+        assertThat(recovered.findById(itemB.getId()).get()).isEqualTo(itemB);
+        assertThat(recovered.save(new Item("itemC", 1, 1)).getId()).isEqualTo(itemB.getId() + 1);
+    }
+
+    @Test
+    void recoverFromSnapshotAndLogTail() {
+        //given
+        ItemJournal journal = newJournal(true);
+        MemoryItemRepository repository = new MemoryItemRepository(journal);
+        Item itemA = repository.save(new Item("itemA", 10000, 10));
+        repository.snapshot();
+        Item itemB = repository.save(new Item("itemB", 20000, 20));
+        repository.update(itemA.getId(), new ItemUpdateDto("itemA2", 11000, 11));
+        journal.close();
+
+        //when
+        MemoryItemRepository recovered = new MemoryItemRepository(newJournal(true));
+
+        //then
+        assertThat(recovered.findAll(new ItemSearchCond())).hasSize(2);
+        assertThat(recovered.findById(itemA.getId()).get().getItemName()).isEqualTo("itemA2");
+        assertThat(recovered.findById(itemB.getId()).get()).isEqualTo(itemB);
+    }
+
+    @Test
+    void segmentRotation() {
+        //given 세그먼트 여러 개에 걸쳐 쓰기
+        ItemJournal journal = newJournal(false);
+        MemoryItemRepository repository = new MemoryItemRepository(journal);
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            repository.save(new Item("item" + (i % 1000), i, i));
+        }
+        journal.close();
+
+        //when
+        MemoryItemRepository recovered = new MemoryItemRepository(newJournal(false));
+
+        //then
+        assertThat(recovered.findAll(new ItemSearchCond())).hasSize(count);
+        assertThat(recovered.findById((long) count).get().getPrice()).isEqualTo(count - 1);
+    }
+
+    /**
+     * 쓰기 처리량과 복구 시간 측정. 건수는 -Djournal.benchmark.items 로 조절.
+     * 오래 걸리므로 일반 test 태스크에서는 제외하고 ./gradlew loadTest로만 실행한다.
+     */
+    @Test
+    @Tag("load")
+    void writeThroughputAndRecoveryTime() {
+        int count = Integer.getInteger("journal.benchmark.items", 1_000_000);
+        ItemJournal journal = open(new ItemJournal(dir, 64 * 1024 * 1024, 10, false));
+        MemoryItemRepository repository = new MemoryItemRepository(journal);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            repository.save(new Item("item" + (i % 1000), i, i));
+        }
+        long writeNanos = System.nanoTime() - start;
+        repository.snapshot();
+        for (int i = 0; i < count / 10; i++) {
+            repository.update((long) i + 1, new ItemUpdateDto("upd" + i % 100, i, i));
+        }
+        journal.close();
+
+        start = System.nanoTime();
+        MemoryItemRepository recovered = new MemoryItemRepository(open(new ItemJournal(dir, 64 * 1024 * 1024, 10, false)));
+        long recoverNanos = System.nanoTime() - start;
+
+        log.info("items={} write={} ops/s recovery(snapshot + {} log records)={}ms",
+                count, count * 1_000_000_000L / writeNanos, count / 10, recoverNanos / 1_000_000);
+        assertThat(recovered.findAll(new ItemSearchCond())).hasSize(count);
+    }
+
+    private ItemJournal newJournal(boolean waitForFlush) {
+        return open(new ItemJournal(dir, SEGMENT_SIZE, 5, waitForFlush));
+    }
+
+    private ItemJournal open(ItemJournal journal) {
+        journals.add(journal);
+        return journal;
+    }
+}
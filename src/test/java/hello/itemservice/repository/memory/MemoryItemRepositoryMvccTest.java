@@ -0,0 +1,297 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.repository.StockReservation;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 다중 버전 MemoryItemRepository 검증과 쓰기가 몰릴 때의 읽기 처리량 측정.
+ * 측정 시간(ms)은 -Dmvcc.benchmark.millis, 상품 수는 -Dmvcc.benchmark.items로 바꿀 수 있다.
+ */
+@Slf4j
+class MemoryItemRepositoryMvccTest {
+
+    private static final int READERS = 4;
+    private static final int WRITERS = 4;
+
+    @Test
+    void returnedItemsAreReadOnly() {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        Item saved = repository.save(new Item("itemA", 10000, 10));
+
+        //when
+        Item found = repository.findById(saved.getId()).get();
+
+        //then
+        assertThat(found).isEqualTo(saved);
+        assertThatThrownBy(() -> found.setPrice(1)).isInstanceOf(UnsupportedOperationException.class);
+        saved.setPrice(1);
+        assertThat(repository.findById(saved.getId()).get().getPrice()).isEqualTo(10000);
+    }
+
+    @Test
+    void latestVersionReadableAfterPruning() {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        Item item = repository.save(new Item("itemA", 10000, 0));
+
+        //when
+        for (int i = 1; i <= MemoryItemRepository.RETAINED_VERSIONS * 2; i++) {
+            repository.update(item.getId(), new ItemUpdateDto("itemA", 10000, i));
+        }
+
+        //then 보존 범위를 넘은 버전은 잘려도 최신 스냅샷 읽기는 다시 시도할 일이 없다.
+        assertThat(repository.findById(item.getId()).get().getQuantity())
+                .isEqualTo((int) MemoryItemRepository.RETAINED_VERSIONS * 2);
+        assertThat(repository.getSnapshotRetries()).isZero();
+        assertThat(repository.retainedVersions(item.getId())).isLessThanOrEqualTo((int) MemoryItemRepository.RETAINED_VERSIONS + 1);
+    }
+
+    /**
+     * 쓰기가 끊긴 상품의 이전 버전은 commit에서 잘리지 않으므로 pruneVersions가 잘라낸다.
+     */
+    @Test
+    void coldVersionsArePrunedBySweep() {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        Item cold = repository.save(new Item("cold", 10000, 0));
+        Item hot = repository.save(new Item("hot", 10000, 0));
+        for (int i = 1; i <= 100; i++) {
+            repository.update(cold.getId(), new ItemUpdateDto("cold", 10000, i));
+        }
+        for (int i = 1; i <= MemoryItemRepository.RETAINED_VERSIONS; i++) {
+            repository.update(hot.getId(), new ItemUpdateDto("hot", 10000, i));
+        }
+        assertThat(repository.retainedVersions(cold.getId())).isEqualTo(101);
+
+        //when
+        repository.pruneVersions();
+
+        //then
+        assertThat(repository.retainedVersions(cold.getId())).isEqualTo(1);
+        assertThat(repository.findById(cold.getId()).get().getQuantity()).isEqualTo(100);
+    }
+
+    /**
+     * 쓰기 스레드가 전체 상품의 재고를 같은 값으로 upsertAll하는 동안 findAll이 섞인 값을 보지 않아야 한다.
+     */
+    @Test
+    void findAllSeesConsistentSnapshot() throws Exception {
+        //given
+        MemoryItemRepository repository = new MemoryItemRepository();
+        List<Item> items = seed(repository, 1_000);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS);
+        List<Future<Long>> readers = new ArrayList<>();
+
+        //when
+        for (int w = 0; w < WRITERS; w++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    int quantity = ThreadLocalRandom.current().nextInt(1_000_000);
+                    repository.upsertAll(withQuantity(items, quantity));
+                }
+                return null;
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                long mixed = 0;
+                for (int i = 0; i < 2_000; i++) {
+                    List<Item> snapshot = repository.findAll(new ItemSearchCond());
+                    long distinct = snapshot.stream().map(Item::getQuantity).distinct().count();
+                    if (snapshot.size() != items.size() || distinct != 1) {
+                        mixed++;
+                    }
+                }
+                return mixed;
+            }));
+        }
+        long mixed = 0;
+        for (Future<Long> reader : readers) {
+            mixed += reader.get();
+        }
+        running.set(false);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        //then
+        assertThat(mixed).isZero();
+    }
+
+    /**
+     * 락 없이 CAS로 차감하는 reserveStock이 동시에 몰려도 재고보다 많이 예약되지 않고,
+     * 읽는 쪽에서 본 재고는 커밋 순서대로 줄어들기만 한다.
+     */
+    @Test
+    void concurrentReservationsFollowCommitOrder() throws Exception {
+        //given
+        int quantity = 20_000;
+        MemoryItemRepository repository = new MemoryItemRepository();
+        Item item = repository.save(new Item("itemA", 10000, quantity));
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        List<Future<Long>> writers = new ArrayList<>();
+
+        //when
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                long reserved = 0;
+                while (repository.reserveStock(item.getId(), 1) == StockReservation.RESERVED) {
+                    reserved++;
+                }
+                return reserved;
+            }));
+        }
+        Future<Boolean> reader = executor.submit(() -> {
+            int last = Integer.MAX_VALUE;
+            int current;
+            do {
+                current = repository.findById(item.getId()).get().getQuantity();
+                if (current > last) {
+                    return false;
+                }
+                last = current;
+            } while (current > 0);
+            return true;
+        });
+        long reserved = 0;
+        for (Future<Long> writer : writers) {
+            reserved += writer.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(reserved).isEqualTo(quantity);
+        assertThat(reader.get()).isTrue();
+        assertThat(repository.findById(item.getId()).get().getQuantity()).isZero();
+    }
+
+    /**
+     * 쓰기 없을 때와 WRITERS개 스레드가 쉬지 않고 update/reserveStock할 때의 읽기 처리량 비교.
+     * 읽기는 락을 잡지 않으므로 쓰기가 몰려도 크게 떨어지지 않아야 한다. (수치는 로그로만 남기고 단정하지 않음)
+     * 오래 걸리므로 일반 test 태스크에서는 제외하고 ./gradlew loadTest로만 실행한다.
+     */
+    @Test
+    @Tag("load")
+    void readThroughputUnderConcurrentUpdates() throws Exception {
+        //given
+        int count = Integer.getInteger("mvcc.benchmark.items", 10_000);
+        long millis = Long.getLong("mvcc.benchmark.millis", 2_000);
+        MemoryItemRepository repository = new MemoryItemRepository();
+        List<Item> items = seed(repository, count);
+
+        //when
+        Throughput idle = measure(repository, items, 0, millis);
+        Throughput busy = measure(repository, items, WRITERS, millis);
+
+        //then
+        log.info("items={} readers={} idle findById/s={} findAll/s={}", count, READERS, idle.findByIdPerSecond, idle.findAllPerSecond);
+        log.info("items={} readers={} writers={} findById/s={} findAll/s={} writes/s={} snapshotRetries={}",
+                count, READERS, WRITERS, busy.findByIdPerSecond, busy.findAllPerSecond, busy.writesPerSecond,
+                repository.getSnapshotRetries());
+        assertThat(busy.findByIdPerSecond).isPositive();
+        assertThat(busy.findAllPerSecond).isPositive();
+        assertThat(busy.writesPerSecond).isPositive();
+    }
+
+    private Throughput measure(MemoryItemRepository repository, List<Item> items, int writers, long millis) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder findById = new LongAdder();
+        LongAdder findAll = new LongAdder();
+        LongAdder writes = new LongAdder();
+        ItemSearchCond top = new ItemSearchCond(null, null, ItemSortKey.PRICE, false, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + writers);
+        for (int w = 0; w < writers; w++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Item item = items.get(random.nextInt(items.size()));
+                    if (random.nextBoolean()) {
+                        repository.update(item.getId(), new ItemUpdateDto(item.getItemName(), random.nextInt(100_000), 1_000));
+                    } else {
+                        repository.reserveStock(item.getId(), 1);
+                    }
+                    writes.increment();
+                }
+                return null;
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    // findAll은 전체를 훑으므로 findById 100번에 한 번 섞는다.
+                    for (int i = 0; i < 100; i++) {
+                        repository.findById(items.get(random.nextInt(items.size())).getId());
+                    }
+                    findById.add(100);
+                    repository.findAll(top);
+                    findAll.increment();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        Thread.sleep(millis);
+        running.set(false);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        double seconds = millis / 1000.0;
+        return new Throughput(Math.round(findById.sum() / seconds), Math.round(findAll.sum() / seconds),
+                Math.round(writes.sum() / seconds));
+    }
+
+    private static List<Item> seed(MemoryItemRepository repository, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(repository.save(new Item("item" + i, 1000 + i, 1_000)));
+        }
+        return items;
+    }
+
+    private static List<Item> withQuantity(List<Item> items, int quantity) {
+        return items.stream()
+                .map(item -> {
+                    Item next = new Item(item.getItemName(), item.getPrice(), quantity);
+                    next.setId(item.getId());
+                    return next;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static class Throughput {
+        final long findByIdPerSecond;
+        final long findAllPerSecond;
+        final long writesPerSecond;
+
+        Throughput(long findByIdPerSecond, long findAllPerSecond, long writesPerSecond) {
+            this.findByIdPerSecond = findByIdPerSecond;
+            this.findAllPerSecond = findAllPerSecond;
+            this.writesPerSecond = writesPerSecond;
+        }
+    }
+}
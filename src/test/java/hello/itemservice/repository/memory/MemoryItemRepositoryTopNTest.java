@@ -0,0 +1,63 @@
+package hello.itemservice.repository.memory;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 정렬 + limit 조회를 전체 정렬 후 자르는 방식과 비교.
+ * 상품 수는 -Dsearch.benchmark.items로 바꿀 수 있다. (기본 100만 건)
+ * 오래 걸리므로 일반 test 태스크에서는 제외하고 ./gradlew loadTest로만 실행한다.
+ */
+@Slf4j
+class MemoryItemRepositoryTopNTest {
+
+    @Test
+    @Tag("load")
+    void topKLatencyOnLargeCatalog() {
+        //given
+        int count = Integer.getInteger("search.benchmark.items", 1_000_000);
+        MemoryItemRepository repository = new MemoryItemRepository();
+        ItemGenerator generator = new ItemGenerator(42);
+        for (int chunk = 0; chunk * 10_000 < count; chunk++) {
+            for (Item item : generator.generate(chunk, Math.min(10_000, count - chunk * 10_000))) {
+                repository.save(item);
+            }
+        }
+        ItemSearchCond cond = new ItemSearchCond("pen", null, ItemSortKey.PRICE, false, 20);
+        Comparator<Item> comparator = ItemSortKey.PRICE.comparator(false);
+
+        //when
+        List<Item> result = null;
+        List<Item> expected = null;
+        long heapNanos = Long.MAX_VALUE;
+        long sortNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            result = repository.findAll(cond);
+            heapNanos = Math.min(heapNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            expected = repository.findAll(new ItemSearchCond("pen", null)).stream()
+                    .sorted(comparator)
+                    .limit(20)
+                    .collect(Collectors.toList());
+            sortNanos = Math.min(sortNanos, System.nanoTime() - start);
+        }
+
+        //then
+        log.info("items={} limit=20 bounded heap={}ms full sort={}ms", count, heapNanos / 1_000_000, sortNanos / 1_000_000);
+        assertThat(result).containsExactlyElementsOf(expected);
+        assertThat(result).hasSize(Math.min(20, expected.size()));
+    }
+}
@@ -0,0 +1,174 @@
+package hello.itemservice.search;
+
+import hello.itemservice.bulk.ItemGenerator;
+import hello.itemservice.domain.Item;
+import hello.itemservice.repository.ItemSearchCond;
+import hello.itemservice.repository.ItemSortKey;
+import hello.itemservice.repository.ItemStreamer;
+import hello.itemservice.repository.ItemUpdateDto;
+import hello.itemservice.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 상품명 전문 검색 인덱스와 LIKE 검색 비교.
+ * 상품 수는 -Dsearch.benchmark.items로 바꿀 수 있다. (기본 10만 건)
+ * 커밋해야 인덱스에 반영되므로 @Transactional을 붙이지 않고 컨텍스트(내장 DB)를 버린다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "item.search.enabled=true",
+        // 건마다 SQL 로그가 찍히면 로그 출력이 시간을 좌우하므로 끈다.
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=info",
+        "logging.level.org.springframework.jdbc=info"
+})
+@DirtiesContext
+class ItemSearchIndexTest {
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    @Qualifier("itemService")
+    ItemService likeItemService;
+
+    @Autowired
+    ItemSearchIndex index;
+
+    @Autowired
+    ItemStreamer itemStreamer;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void followsWrites() {
+        //given
+        Item item = itemService.save(new Item("searchable", 10000, 10));
+        index.refresh();
+        assertThat(itemService.findItems(new ItemSearchCond("chab", null))).extracting(Item::getId).contains(item.getId());
+
+        //when
+        itemService.update(item.getId(), new ItemUpdateDto("renamed", 10000, 10));
+        index.refresh();
+
+        //then
+        assertThat(itemService.findItems(new ItemSearchCond("chab", null))).extracting(Item::getId).doesNotContain(item.getId());
+        assertThat(itemService.findItems(new ItemSearchCond("name", 10000))).extracting(Item::getId).contains(item.getId());
+        assertThat(itemService.findItems(new ItemSearchCond("name", 9999))).extracting(Item::getId).doesNotContain(item.getId());
+    }
+
+    /**
+     * 스테일 행을 버린 만큼 인덱스에서 더 가져와 limit건을 채우고, 저장소와 같은 순서(id 순)로 돌려준다.
+     */
+    @Test
+    void fillsLimitWhenStaleHitsAreDropped() {
+        //given
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(itemService.save(new Item("zqx" + i, 10000, 10)));
+        }
+        index.refresh();
+
+        //when 앞의 두 상품은 이름이 바뀌었지만 인덱스에는 아직 예전 이름이 남아 있을 수 있다.
+        itemService.update(items.get(0).getId(), new ItemUpdateDto("moved0", 10000, 10));
+        itemService.update(items.get(1).getId(), new ItemUpdateDto("moved1", 10000, 10));
+        List<Item> found = itemService.findItems(new ItemSearchCond("zqx", null, null, false, 3));
+
+        //then
+        assertThat(found).extracting(Item::getId).containsExactlyElementsOf(ids(items.subList(2, 5)));
+        assertThat(itemService.findItems(new ItemSearchCond("zqx", null))).extracting(Item::getId)
+                .containsExactlyElementsOf(ids(items.subList(2, 5)));
+    }
+
+    /**
+     * limit 없는 검색은 LIKE 검색과 같이 전부 돌려준다. max-hits에서 자르지 않는다.
+     */
+    @Test
+    void unlimitedSearchIsNotTruncated() {
+        //given
+        int count = index.getMaxHits() + 5;
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("wvk" + i, 10000, 10));
+        }
+        itemService.upsertAll(items);
+        index.refresh();
+
+        //when
+        List<Item> found = itemService.findItems(new ItemSearchCond("wvk", null));
+
+        //then
+        assertThat(found).hasSize(count);
+        assertThat(found).extracting(Item::getId)
+                .containsExactlyInAnyOrderElementsOf(ids(likeItemService.findItems(new ItemSearchCond("wvk", null))));
+    }
+
+    /**
+     * 적재와 비교에 시간이 걸리므로 일반 test 태스크에서는 제외하고 ./gradlew loadTest로만 실행한다.
+     */
+    @Test
+    @Tag("load")
+    void latencyAgainstLikeScan() {
+        //given
+        int count = Integer.getInteger("search.benchmark.items", 100_000);
+        ItemGenerator generator = new ItemGenerator(42);
+        for (int chunk = 0; chunk * 10_000 < count; chunk++) {
+            List<Object[]> rows = generator.generate(chunk, Math.min(10_000, count - chunk * 10_000)).stream()
+                    .map(item -> new Object[]{item.getItemName(), item.getPrice(), item.getQuantity()})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("insert into item (item_name, price, quantity) values (?, ?, ?)", rows);
+        }
+        long start = System.nanoTime();
+        index.rebuild(itemStreamer);
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<ItemSearchCond> conds = List.of(
+                new ItemSearchCond("kit7", null),
+                new ItemSearchCond("lamp", 5000, ItemSortKey.PRICE, false, 20),
+                new ItemSearchCond("penbook", null, ItemSortKey.NAME, true, 50));
+
+        for (ItemSearchCond cond : conds) {
+            //when
+            List<Item> found = null;
+            List<Item> expected = null;
+            long indexNanos = Long.MAX_VALUE;
+            long likeNanos = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                start = System.nanoTime();
+                found = itemService.findItems(cond);
+                indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                expected = likeItemService.findItems(cond);
+                likeNanos = Math.min(likeNanos, System.nanoTime() - start);
+            }
+
+            //then
+            log.info("items={} rebuild={}ms cond={} hits={} index={}ms like={}ms", count, rebuildMillis, cond,
+                    found.size(), indexNanos / 1_000_000.0, likeNanos / 1_000_000.0);
+            if (cond.getSort() != null) {
+                assertThat(found).extracting(Item::getId).containsExactlyElementsOf(ids(expected));
+            } else if (expected.size() <= 1000) {
+                assertThat(found).extracting(Item::getId).containsExactlyInAnyOrderElementsOf(ids(expected));
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+package hello.itemservice.stats;
+
+import hello.itemservice.domain.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryStatsTest {
+
+    @Test
+    void saveAndUpdate() {
+        //given
+        InventoryStats stats = new InventoryStats();
+        Item itemA = item(1L, 5000, 10);
+        Item itemB = item(2L, 20000, 3);
+
+        //when
+        stats.apply(null, itemA);
+        stats.apply(null, itemB);
+        stats.apply(itemA, item(1L, 60000, 2));
+
+        //then
+        InventoryTotals totals = stats.snapshot();
+        assertThat(totals.getItemCount()).isEqualTo(2);
+        assertThat(totals.getTotalQuantity()).isEqualTo(5);
+        assertThat(totals.getStockValue()).isEqualTo(20000 * 3 + 60000 * 2);
+        assertThat(totals.getPriceBandCounts()).containsExactly(0L, 1L, 1L, 0L, 0L);
+    }
+
+    @Test
+    void concurrentWrites() throws Exception {
+        //given
+        InventoryStats stats = new InventoryStats();
+        int threads = 8;
+        int perThread = 10_000;
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Item before = item((long) i, 1000, 1);
+                    stats.apply(null, before);
+                    stats.apply(before, item((long) i, 100_000, 2));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        InventoryTotals totals = stats.snapshot();
+        long count = (long) threads * perThread;
+        assertThat(totals.getItemCount()).isEqualTo(count);
+        assertThat(totals.getTotalQuantity()).isEqualTo(count * 2);
+        assertThat(totals.getStockValue()).isEqualTo(count * 200_000);
+        assertThat(totals.getPriceBandCounts()).containsExactly(0L, 0L, count, 0L, 0L);
+    }
+
+    @Test
+    void correctAddsDifference() {
+        //given 통계가 DB와 어긋난 상태
+        InventoryStats stats = new InventoryStats();
+        stats.apply(null, item(1L, 5000, 10));
+        InventoryStats db = new InventoryStats();
+        db.apply(null, item(1L, 5000, 10));
+        db.apply(null, item(2L, 5000, 1));
+
+        //when
+        boolean corrected = stats.correct(stats.observe(), db.snapshot());
+
+        //then
+        assertThat(corrected).isTrue();
+        assertThat(stats.snapshot()).isEqualTo(db.snapshot());
+    }
+
+    /**
+     * 집계 중에 커밋된 변경이 DB 집계와 카운터 양쪽에 들어간 경우. 차이를 더하면 그 변경이 두 번 세어지므로 이번 보정은 버린다.
+     */
+    @Test
+    void correctSkippedWhenChangeLandsInBothAggregateAndCounters() {
+        //given 통계에 item2가 빠진 상태
+        InventoryStats stats = new InventoryStats();
+        stats.apply(null, item(1L, 5000, 10));
+        InventoryStats db = new InventoryStats();
+        db.apply(null, item(1L, 5000, 10));
+        db.apply(null, item(2L, 5000, 1));
+        InventoryStats.Observation observed = stats.observe();
+
+        //when 집계 중에 item3이 커밋되어 집계에도 들어가고 리스너도 반영
+        db.apply(null, item(3L, 1_000_000, 1));
+        stats.apply(null, item(3L, 1_000_000, 1));
+        boolean corrected = stats.correct(observed, db.snapshot());
+
+        //then 이번에는 보정하지 않고, 다음 보정에서 맞춘다.
+        assertThat(corrected).isFalse();
+        assertThat(stats.snapshot().getItemCount()).isEqualTo(2);
+        assertThat(stats.correct(stats.observe(), db.snapshot())).isTrue();
+        assertThat(stats.snapshot()).isEqualTo(db.snapshot());
+        assertThat(stats.snapshot().getPriceBandCounts()).containsExactly(2L, 0L, 0L, 0L, 1L);
+    }
+
+    @Test
+    void observeSkipsWhileChangeInFlight() {
+        //given 커밋 전에 발행된 변경 (리스너가 시작만 센 상태)
+        InventoryStats stats = new InventoryStats();
+        stats.beginChange();
+
+        //when, then
+        assertThat(stats.observe()).isNull();
+        stats.endChange();
+        assertThat(stats.observe()).isNotNull();
+    }
+
+    private Item item(Long id, int price, int quantity) {
+        Item item = new Item("item" + id, price, quantity);
+        item.setId(id);
+        return item;
+    }
+}
@@ -0,0 +1,97 @@
+package hello.itemservice.trace;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.itemservice.jdbc.InterceptingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 커넥션이 하나뿐인 풀에서 추적한다. EXPLAIN이 커넥션을 하나 더 빌리려 하면 타임아웃으로 실패한다.
+ */
+class SqlTraceRecorderTest {
+
+    //given 모든 실행을 샘플링하고, 모든 실행을 느린 SQL로 취급
+    SqlTraceRecorder recorder = new SqlTraceRecorder(1.0, 0, 0, 10);
+    HikariDataSource pool;
+    JdbcTemplate template;
+
+    @BeforeEach
+    void beforeEach() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:trace;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(1);
+        pool.setConnectionTimeout(250);
+        template = new JdbcTemplate(new InterceptingDataSource(pool, List.of(recorder)));
+        template.execute("create table item (id bigint primary key, item_name varchar(10))");
+        template.update("insert into item values (?, ?)", 1L, "itemA");
+    }
+
+    @AfterEach
+    void afterEach() {
+        template.execute("drop table item");
+        pool.close();
+    }
+
+    @Test
+    void recordStatementsWithBindsAndPlan() {
+        //when
+        String sql = "select item_name from item where id = ?";
+        template.queryForObject(sql, String.class, 1L);
+
+        //then
+        SqlTraceReport report = recorder.report(10);
+        assertThat(report.getStatements()).extracting(SqlTraceReport.Statement::getSql).contains(sql);
+        SlowStatement select = slow(sql);
+        assertThat(select.getBinds()).isEqualTo(List.of("1"));
+        assertThat(select.getPlan()).containsIgnoringCase("select").doesNotContain("explain failed");
+    }
+
+    @Test
+    void withQueryIsExplained() {
+        //when
+        String sql = "with t as (select id from item) select count(*) from t";
+        template.queryForObject(sql, Long.class);
+
+        //then
+        assertThat(slow(sql).getPlan()).isNotNull();
+    }
+
+    @Test
+    void nonSelectIsRecordedWithoutPlan() {
+        //when
+        String sql = "update item set item_name = ? where id = ?";
+        template.update(sql, "itemB", 1L);
+
+        //then
+        SlowStatement update = slow(sql);
+        assertThat(update.getBinds()).isEqualTo(List.of("itemB", "1"));
+        assertThat(update.getPlan()).isNull();
+    }
+
+    @Test
+    void failingStatementIsRecordedWithoutPlan() {
+        //when 실행 중에 실패하는 SQL (0으로 나누기)
+        String sql = "select 1 / (id - 1) from item where id = ?";
+        assertThatThrownBy(() -> template.queryForObject(sql, Integer.class, 1L))
+                .isInstanceOf(DataAccessException.class);
+
+        //then
+        assertThat(recorder.report(10).getStatements()).extracting(SqlTraceReport.Statement::getSql).contains(sql);
+        assertThat(slow(sql).getPlan()).isNull();
+    }
+
+    private SlowStatement slow(String sql) {
+        return recorder.report(10).getSlowStatements().stream()
+                .filter(statement -> statement.getSql().equals(sql))
+                .findFirst().orElseThrow();
+    }
+}
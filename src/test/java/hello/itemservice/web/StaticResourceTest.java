@@ -0,0 +1,58 @@
+package hello.itemservice.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 템플릿의 css 링크가 내용 해시 주소로 바뀌고, 그 주소는 미리 압축한 파일과 immutable 캐시 헤더로 응답하는지 확인.
+ * 해시 없는 주소는 immutable이 아니라 매번 다시 확인(no-cache)하게 한다.
+ * .gz는 processResources에서 만들어지므로 gradle로 실행해야 한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StaticResourceTest {
+
+    private static final Pattern CSS_LINK = Pattern.compile("/css/bootstrap\\.min-[0-9a-f]{32}\\.css");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void fingerprintedPrecompressedCss() throws Exception {
+        //given
+        String page = mockMvc.perform(get("/items")).andReturn().getResponse().getContentAsString();
+        Matcher matcher = CSS_LINK.matcher(page);
+        assertThat(matcher.find()).as("fingerprinted css link").isTrue();
+
+        //when
+        MockHttpServletResponse response = mockMvc.perform(get(matcher.group()).header("Accept-Encoding", "gzip"))
+                .andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Vary")).contains("Accept-Encoding");
+        assertThat(response.getHeader("Cache-Control")).contains("max-age=31536000", "public", "immutable");
+    }
+
+    @Test
+    void unversionedCssIsRevalidated() throws Exception {
+        //when
+        MockHttpServletResponse response = mockMvc.perform(get("/css/bootstrap.min.css")).andReturn().getResponse();
+
+        //then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("no-cache");
+        assertThat(response.getHeader("Last-Modified")).isNotNull();
+    }
+}